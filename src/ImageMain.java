@@ -3,11 +3,14 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStreamReader;
+import java.util.Arrays;
 
 import controller.Features;
 import controller.GUIController;
 import controller.ImageController;
 import model.ProcessingModel;
+import model.FixedPoint;
+import model.Parallel;
 import model.ProcessingModelImpl;
 import view.GUIView;
 import view.View;
@@ -32,6 +35,19 @@ public class ImageMain {
     BufferedReader in = null;
 
 
+    // -threads N and -fixed-point may come before any of the modes below
+    while (args.length > 0 && (args[0].equals("-threads") || args[0].equals("-fixed-point"))) {
+      if (args[0].equals("-fixed-point")) {
+        FixedPoint.setEnabled(true);
+        args = Arrays.copyOfRange(args, 1, args.length);
+      } else if (args.length >= 2) {
+        Parallel.setThreads(Integer.parseInt(args[1]));
+        args = Arrays.copyOfRange(args, 2, args.length);
+      } else {
+        break;
+      }
+    }
+
     StringBuilder sB = new StringBuilder();
 
     for (String s : args) {
@@ -3,6 +3,9 @@ package controller;
 import java.io.IOException;
 import java.util.Objects;
 import java.util.Scanner;
+import model.FixedPoint;
+import model.Parallel;
+import model.PpmFormat;
 import model.ProcessingModel;
 import model.ProcessingModelImpl;
 import operations.BlueComponent;
@@ -10,14 +13,18 @@ import operations.Blur;
 import operations.Brighten;
 import operations.FlipHorizontal;
 import operations.FlipVertical;
+import operations.Gamma;
 import operations.GreenComponent;
 import operations.Greyscale;
 import operations.ImageOperationCommand;
 import operations.Intensity;
+import operations.Invert;
+import operations.LevelsAdjust;
 import operations.Luma;
 import operations.RedComponent;
 import operations.Sepia;
 import operations.Sharpen;
+import operations.Threshold;
 import operations.Value;
 
 /**
@@ -92,11 +99,31 @@ public class ImageController {
       } else if (userInstruction[0].equals("save")) {
         writeMessage("Saving image.\n");
         try {
-          this.images.save(userInstruction[1], userInstruction[2]);
+          if (userInstruction.length > 3) {
+            this.images.save(userInstruction[1], userInstruction[2],
+                    PpmFormat.fromName(userInstruction[3]));
+          } else {
+            this.images.save(userInstruction[1], userInstruction[2]);
+          }
           writeMessage("Image saved.\n");
         } catch (IllegalArgumentException e) {
           writeMessage("Error: " + e.getMessage() + System.lineSeparator());
         }
+      } else if (userInstruction[0].equals("threads")) {
+        try {
+          Parallel.setThreads(Integer.parseInt(userInstruction[1]));
+          writeMessage("Using " + Parallel.getThreads() + " threads.\n");
+        } catch (IllegalArgumentException e) {
+          writeMessage("Error: " + e.getMessage() + System.lineSeparator());
+        }
+      } else if (userInstruction[0].equals("fixed-point")) {
+        if (userInstruction.length > 1
+                && (userInstruction[1].equals("on") || userInstruction[1].equals("off"))) {
+          FixedPoint.setEnabled(userInstruction[1].equals("on"));
+          writeMessage("Fixed-point arithmetic " + userInstruction[1] + ".\n");
+        } else {
+          writeMessage("Error: fixed-point takes on or off." + System.lineSeparator());
+        }
       } else {
         processCommand(userInstruction);
       }
@@ -216,7 +243,48 @@ public class ImageController {
         break;
       case "blur":
         try {
-          cmd = new Blur(userInstruction[1], userInstruction[2]);
+          if (userInstruction.length > 3) {
+            cmd = new Blur(Integer.parseInt(userInstruction[1]),
+                    userInstruction[2], userInstruction[3]);
+          } else {
+            cmd = new Blur(userInstruction[1], userInstruction[2]);
+          }
+          cmd.execute(images);
+        } catch (IllegalArgumentException e) {
+          writeMessage("Error: " + e.getMessage() + System.lineSeparator());
+        }
+        break;
+      case "levels-adjust":
+        try {
+          cmd = new LevelsAdjust(Integer.parseInt(userInstruction[1]),
+                  Integer.parseInt(userInstruction[2]), Integer.parseInt(userInstruction[3]),
+                  userInstruction[4], userInstruction[5]);
+          cmd.execute(images);
+        } catch (IllegalArgumentException e) {
+          writeMessage("Error: " + e.getMessage() + System.lineSeparator());
+        }
+        break;
+      case "gamma":
+        try {
+          cmd = new Gamma(Double.parseDouble(userInstruction[1]),
+                  userInstruction[2], userInstruction[3]);
+          cmd.execute(images);
+        } catch (IllegalArgumentException e) {
+          writeMessage("Error: " + e.getMessage() + System.lineSeparator());
+        }
+        break;
+      case "invert":
+        try {
+          cmd = new Invert(userInstruction[1], userInstruction[2]);
+          cmd.execute(images);
+        } catch (IllegalArgumentException e) {
+          writeMessage("Error: " + e.getMessage() + System.lineSeparator());
+        }
+        break;
+      case "threshold":
+        try {
+          cmd = new Threshold(Integer.parseInt(userInstruction[1]),
+                  userInstruction[2], userInstruction[3]);
           cmd.execute(images);
         } catch (IllegalArgumentException e) {
           writeMessage("Error: " + e.getMessage() + System.lineSeparator());
@@ -247,7 +315,8 @@ public class ImageController {
     writeMessage("Supported user operations are: " + System.lineSeparator());
     writeMessage("load image-path image-name (load an image)"
             + System.lineSeparator());
-    writeMessage("save image-path image-name (save an image)"
+    writeMessage("save image-path image-name [p3|p6|p6-16] (save an image, as a binary PPM "
+            + "file with one or two bytes per sample if p6 or p6-16 is given)"
             + System.lineSeparator());
     writeMessage("red-component image-name dest-image-name " +
             "(create greyscale image with the red component)"
@@ -288,6 +357,25 @@ public class ImageController {
     writeMessage("blur image-name dest-image-name " +
             "(blurs an image)"
             + System.lineSeparator());
+    writeMessage("blur radius image-name dest-image-name " +
+            "(blurs an image by the given radius)"
+            + System.lineSeparator());
+    writeMessage("levels-adjust black mid white image-name dest-image-name " +
+            "(stretch the levels of an image)"
+            + System.lineSeparator());
+    writeMessage("gamma value image-name dest-image-name " +
+            "(apply gamma correction to an image)"
+            + System.lineSeparator());
+    writeMessage("invert image-name dest-image-name " +
+            "(create the negative of an image)"
+            + System.lineSeparator());
+    writeMessage("threshold level image-name dest-image-name " +
+            "(make each channel 0 or 255)"
+            + System.lineSeparator());
+    writeMessage("threads count (run image operations on this many threads)"
+            + System.lineSeparator());
+    writeMessage("fixed-point on|off (use integer arithmetic for filters)"
+            + System.lineSeparator());
     writeMessage("menu (Print supported instruction list)" + System.lineSeparator());
     writeMessage("q or quit (quit the program) " + System.lineSeparator());
   }
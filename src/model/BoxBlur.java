@@ -0,0 +1,146 @@
+package model;
+
+/**
+ * This class blurs an image by an arbitrary radius. The blur is three box blurs in a row, which
+ * approximates a Gaussian blur with a standard deviation of about the radius. Each box blur
+ * keeps a running sum of the window, adding the pixel that enters it and subtracting the one
+ * that leaves, so the cost per pixel is the same for every radius.
+ *
+ * <p>Each box blur is done across the rows and then down the columns. Near the edges the
+ * window is averaged over the part of it inside the image, so edges do not darken. Going down
+ * the columns keeps only a window of rows on the heap, which lets images that are too big for
+ * the heap be blurred through their rows.
+ */
+final class BoxBlur {
+  private static final int PASSES = 3;
+
+  private BoxBlur() {
+  }
+
+  /**
+   * Blurs the given image in place.
+   *
+   * @param image  the image to blur
+   * @param radius the number of pixels on each side of a pixel that each box blur averages
+   * @throws IllegalArgumentException if the radius is negative
+   */
+  static void apply(Image image, int radius) throws IllegalArgumentException {
+    apply(image, image.getWidth(), image.getHeight(), radius);
+  }
+
+  /**
+   * Blurs the given image in place, reading and writing rows of the given size.
+   *
+   * @param image  the image to blur
+   * @param width  the number of pixels in a row
+   * @param height the number of rows
+   * @param radius the number of pixels on each side of a pixel that each box blur averages
+   * @throws IllegalArgumentException if the radius is negative
+   */
+  static void apply(Image image, int width, int height, int radius)
+          throws IllegalArgumentException {
+    if (radius < 0) {
+      throw new IllegalArgumentException("Radius must not be negative.");
+    }
+    if (radius == 0 || width == 0 || height == 0) {
+      return;
+    }
+    // a window wider than the image covers all of it, so bigger radii change nothing
+    radius = Math.min(radius, Math.max(width, height));
+
+    int[] row = new int[width];
+    int[][] channels = new int[3][width];
+    int[] line = new int[width];
+    for (int y = 0; y < height; y++) {
+      image.getRow(y, row);
+      for (int x = 0; x < width; x++) {
+        int p = row[x];
+        channels[0][x] = (p >> 16) & 0xFF;
+        channels[1][x] = (p >> 8) & 0xFF;
+        channels[2][x] = p & 0xFF;
+      }
+      for (int[] channel : channels) {
+        for (int pass = 0; pass < PASSES; pass++) {
+          boxLine(channel, line, width, radius);
+          System.arraycopy(line, 0, channel, 0, width);
+        }
+      }
+      for (int x = 0; x < width; x++) {
+        row[x] = PixelOps.pack(channels[0][x], channels[1][x], channels[2][x]);
+      }
+      image.setRow(y, row);
+    }
+
+    for (int pass = 0; pass < PASSES; pass++) {
+      boxColumns(image, width, height, radius);
+    }
+  }
+
+  /**
+   * Averages each value of a line with the values up to the given radius either side of it.
+   *
+   * @param src    the values to read
+   * @param dst    the array to write the averages to
+   * @param length the number of values in the line
+   * @param radius the radius of the window
+   */
+  static void boxLine(int[] src, int[] dst, int length, int radius) {
+    int sum = 0;
+    for (int i = Math.min(radius, length - 1); i >= 0; i--) {
+      sum += src[i];
+    }
+    for (int x = 0; x < length; x++) {
+      int count = Math.min(x + radius, length - 1) - Math.max(x - radius, 0) + 1;
+      dst[x] = (sum + count / 2) / count;
+      if (x + radius + 1 < length) {
+        sum += src[x + radius + 1];
+      }
+      if (x - radius >= 0) {
+        sum -= src[x - radius];
+      }
+    }
+  }
+
+  /**
+   * Box blurs every column of the image in one sweep down its rows. A source row is still
+   * needed until the window has passed it, after its own output row has been written, so the
+   * rows in the window are kept in a ring.
+   */
+  private static void boxColumns(Image image, int width, int height, int radius) {
+    int[][] ring = new int[Math.min(2 * radius + 2, height)][width];
+    int[] sums = new int[3 * width];
+    int[] row = new int[width];
+
+    for (int y = 0; y <= Math.min(radius, height - 1); y++) {
+      int[] source = ring[y % ring.length];
+      image.getRow(y, source);
+      add(sums, source, width, 1);
+    }
+    for (int y = 0; y < height; y++) {
+      int count = Math.min(y + radius, height - 1) - Math.max(y - radius, 0) + 1;
+      int half = count / 2;
+      for (int x = 0; x < width; x++) {
+        row[x] = PixelOps.pack((sums[x] + half) / count, (sums[width + x] + half) / count,
+                (sums[2 * width + x] + half) / count);
+      }
+      if (y + radius + 1 < height) {
+        int[] source = ring[(y + radius + 1) % ring.length];
+        image.getRow(y + radius + 1, source);
+        add(sums, source, width, 1);
+      }
+      if (y - radius >= 0) {
+        add(sums, ring[(y - radius) % ring.length], width, -1);
+      }
+      image.setRow(y, row);
+    }
+  }
+
+  private static void add(int[] sums, int[] row, int width, int sign) {
+    for (int x = 0; x < width; x++) {
+      int p = row[x];
+      sums[x] += sign * ((p >> 16) & 0xFF);
+      sums[width + x] += sign * ((p >> 8) & 0xFF);
+      sums[2 * width + x] += sign * (p & 0xFF);
+    }
+  }
+}
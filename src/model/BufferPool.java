@@ -0,0 +1,122 @@
+package model;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class keeps pixel arrays that images no longer need so that later images of a similar
+ * size can reuse them instead of allocating new ones. Running a script makes a new image for
+ * every step, usually of the same size, so after the first few steps most arrays come from
+ * here.
+ *
+ * <p>Arrays are grouped into size classes: a request is rounded up to the next power of two or
+ * quarter step between powers of two, so an array is at most a quarter bigger than asked for.
+ * Small arrays are not pooled, and the pool never holds more than an eighth of the maximum
+ * heap, dropping arrays that would take it over that limit.
+ */
+final class BufferPool {
+  private static final int MIN_POOLED = 1 << 12;
+  private static final int MAX_PER_CLASS = 4;
+
+  private static final Map<Integer, ArrayDeque<int[]>> FREE = new HashMap<>();
+  private static long pooledBytes;
+
+  private BufferPool() {
+  }
+
+  /**
+   * Returns the size of the class that a request for the given number of values falls in.
+   *
+   * @param size the number of values needed
+   * @return the length of the arrays in that class
+   */
+  static int classSize(int size) {
+    if (size <= MIN_POOLED) {
+      return size;
+    }
+    int power = Integer.highestOneBit(size);
+    if (power == size) {
+      return size;
+    }
+    int quarter = power / 4;
+    long rounded = ((long) size + quarter - 1) / quarter * quarter;
+    return rounded > Integer.MAX_VALUE - 8 ? size : (int) rounded;
+  }
+
+  /**
+   * Returns an array holding at least the given number of values, reusing a pooled array when
+   * one of the right class is free.
+   *
+   * @param size  the number of values needed
+   * @param clear whether the values must start as zero; a new array always does
+   * @return the array
+   */
+  static int[] take(int size, boolean clear) {
+    int length = classSize(size);
+    int[] buffer = null;
+    if (length > MIN_POOLED) {
+      synchronized (FREE) {
+        ArrayDeque<int[]> free = FREE.get(length);
+        if (free != null) {
+          buffer = free.poll();
+        }
+        if (buffer != null) {
+          pooledBytes -= 4L * length;
+        }
+      }
+    }
+    if (buffer == null) {
+      return new int[length];
+    }
+    if (clear) {
+      Arrays.fill(buffer, 0, size, 0);
+    }
+    return buffer;
+  }
+
+  /**
+   * Hands an array back to the pool. The caller must not use the array afterwards.
+   *
+   * @param buffer the array to hand back, or null
+   */
+  static void give(int[] buffer) {
+    if (buffer == null || buffer.length <= MIN_POOLED
+            || classSize(buffer.length) != buffer.length) {
+      return;
+    }
+    long bytes = 4L * buffer.length;
+    synchronized (FREE) {
+      ArrayDeque<int[]> free = FREE.computeIfAbsent(buffer.length, length -> new ArrayDeque<>());
+      if (free.size() < MAX_PER_CLASS
+              && pooledBytes + bytes <= Runtime.getRuntime().maxMemory() / 8) {
+        free.push(buffer);
+        pooledBytes += bytes;
+      }
+    }
+  }
+
+  /**
+   * Releases the storage of an image that is no longer needed, such as one just replaced in the
+   * model. Storage still shared with a copy of the image stays with the copy. The image must
+   * not be used afterwards.
+   *
+   * @param image the image to release, or null
+   */
+  static void release(Image image) {
+    if (image instanceof PackedImage) {
+      ((PackedImage) image).release();
+    } else if (image instanceof RemappedImage) {
+      ((RemappedImage) image).release();
+    } else if (image instanceof RecoloredImage) {
+      ((RecoloredImage) image).release();
+    } else if (image instanceof GreyImage) {
+      ((GreyImage) image).release();
+    } else if (image instanceof PlanarImage) {
+      ((PlanarImage) image).release();
+    } else if (image instanceof MappedImage) {
+      ((MappedImage) image).release();
+    }
+  }
+}
@@ -0,0 +1,221 @@
+package model;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * This class represents a point operation that maps each channel value through a table of 256
+ * entries, one table per channel, such as brighten, levels, gamma, invert or threshold. Any
+ * per-channel mapping of whole values is exactly its table, so two tables applied one after
+ * the other compose into a single table, and applying one costs a lookup per channel.
+ *
+ * <p>A table moves every pixel with a given channel value to the same new value, so the red,
+ * green and blue counts of the result follow from the counts before, without reading the
+ * pixels again.
+ */
+final class ChannelTable implements ColorTransform.Step {
+  private final int[][] tables;
+  private final boolean uniform;
+
+  private ChannelTable(int[] red, int[] green, int[] blue) {
+    this.tables = new int[][]{red, green, blue};
+    this.uniform = Arrays.equals(red, green) && Arrays.equals(red, blue);
+  }
+
+  /**
+   * Creates the table that maps every channel the same way.
+   */
+  private static ChannelTable uniform(IntUnaryOperator mapping) {
+    int[] table = new int[256];
+    for (int value = 0; value < 256; value++) {
+      table[value] = PixelOps.clamp(mapping.applyAsInt(value));
+    }
+    return new ChannelTable(table, table, table);
+  }
+
+  /**
+   * Returns the table that adds the given amount to every channel.
+   *
+   * @param amount the amount to add, which may be negative
+   * @return the table
+   */
+  static ChannelTable brighten(int amount) {
+    int clamped = Math.max(-256, Math.min(amount, 256));
+    return uniform(value -> value + clamped);
+  }
+
+  /**
+   * Returns the table that stretches channel values so that the black point becomes 0, the
+   * mid point 128 and the white point 255, along the parabola through those three points.
+   * Values below the black point become 0 and values above the white point 255.
+   *
+   * @param black the value that becomes 0
+   * @param mid   the value that becomes 128
+   * @param white the value that becomes 255
+   * @return the table
+   * @throws IllegalArgumentException unless 0 &lt;= black &lt; mid &lt; white &lt;= 255
+   */
+  static ChannelTable levels(int black, int mid, int white) throws IllegalArgumentException {
+    if (black < 0 || black >= mid || mid >= white || white > 255) {
+      throw new IllegalArgumentException("Levels must satisfy 0 <= black < mid < white <= 255.");
+    }
+    double b = black;
+    double m = mid;
+    double w = white;
+    double d = b * b * (m - w) - b * (m * m - w * w) + w * m * m - m * w * w;
+    double qa = (-b * (128 - 255) + 128 * w - 255 * m) / d;
+    double qb = (b * b * (128 - 255) + 255 * m * m - 128 * w * w) / d;
+    double qc = (b * b * (255 * m - 128 * w) - b * (255 * m * m - 128 * w * w)) / d;
+    return uniform(value -> {
+      if (value <= black) {
+        return 0;
+      }
+      if (value >= white) {
+        return 255;
+      }
+      return (int) Math.round(qa * value * value + qb * value + qc);
+    });
+  }
+
+  /**
+   * Returns the table that applies gamma correction: each value, as a fraction of 255, is
+   * raised to the power 1 / gamma. A gamma above 1 brightens the mid tones.
+   *
+   * @param gamma the gamma
+   * @return the table
+   * @throws IllegalArgumentException if the gamma is not positive
+   */
+  static ChannelTable gamma(double gamma) throws IllegalArgumentException {
+    if (!(gamma > 0) || Double.isInfinite(gamma)) {
+      throw new IllegalArgumentException("Gamma must be positive.");
+    }
+    return uniform(value -> (int) Math.round(255 * Math.pow(value / 255.0, 1 / gamma)));
+  }
+
+  /**
+   * Returns the table that inverts every channel.
+   *
+   * @return the table
+   */
+  static ChannelTable invert() {
+    return uniform(value -> 255 - value);
+  }
+
+  /**
+   * Returns the table that makes every channel 255 if it is at least the given level and 0
+   * otherwise.
+   *
+   * @param level the lowest value that becomes 255
+   * @return the table
+   */
+  static ChannelTable threshold(int level) {
+    return uniform(value -> value >= level ? 255 : 0);
+  }
+
+  /**
+   * Returns the single table that applies this table and then the given one.
+   *
+   * @param next the table to apply second
+   * @return the composed table
+   */
+  ChannelTable then(ChannelTable next) {
+    int[][] composed = new int[3][256];
+    for (int channel = 0; channel < 3; channel++) {
+      for (int value = 0; value < 256; value++) {
+        composed[channel][value] = next.tables[channel][this.tables[channel][value]];
+      }
+    }
+    return new ChannelTable(composed[0], composed[1], composed[2]);
+  }
+
+  /**
+   * Returns whether every channel is mapped the same way, so that grey pixels stay grey.
+   *
+   * @return true if the channels share one table
+   */
+  boolean isUniform() {
+    return this.uniform;
+  }
+
+  /**
+   * Maps the packed 0xRRGGBB pixels in the given range of one array, writing the results to
+   * the same range of another. The arrays may be the same.
+   *
+   * @param src  the pixels to read
+   * @param dst  the array to write
+   * @param from the first pixel
+   * @param to   one past the last pixel
+   */
+  void apply(int[] src, int[] dst, int from, int to) {
+    int[] red = this.tables[0];
+    int[] green = this.tables[1];
+    int[] blue = this.tables[2];
+    for (int i = from; i < to; i++) {
+      int p = src[i];
+      dst[i] = (red[(p >> 16) & 0xFF] << 16) | (green[(p >> 8) & 0xFF] << 8) | blue[p & 0xFF];
+    }
+  }
+
+  /**
+   * Maps the values in the given range of one channel's plane, writing the results to the
+   * same range of another plane. The planes may be the same.
+   *
+   * @param channel the channel, 0 for red, 1 for green and 2 for blue
+   * @param src     the plane to read
+   * @param dst     the plane to write
+   * @param from    the first value
+   * @param to      one past the last value
+   */
+  void apply(int channel, byte[] src, byte[] dst, int from, int to) {
+    int[] table = this.tables[channel];
+    for (int i = from; i < to; i++) {
+      dst[i] = (byte) table[src[i] & 0xFF];
+    }
+  }
+
+  /**
+   * Maps a block of unpacked channels through the tables.
+   */
+  @Override
+  public int[][] computeBlock(int[][] channels, int[][] results, int count, boolean fixed) {
+    for (int channel = 0; channel < 3; channel++) {
+      int[] table = this.tables[channel];
+      int[] values = channels[channel];
+      int[] result = results[channel];
+      for (int i = 0; i < count; i++) {
+        result[i] = table[values[i]];
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Tables map each channel on its own, so they never make pixels grey.
+   */
+  @Override
+  public boolean isGrey() {
+    return false;
+  }
+
+  /**
+   * Returns the red, green, blue and intensity histogram of an image after this table, from
+   * its histogram before. The intensity counts follow only for a grey image and a uniform
+   * table, where intensity is the grey level; otherwise they are left out as null.
+   *
+   * @param before the histogram of the image before the table
+   * @param grey   whether every pixel of the image is grey
+   * @return the histogram after the table
+   */
+  int[][] histogram(int[][] before, boolean grey) {
+    int[][] after = new int[4][];
+    int channels = grey && this.uniform ? 4 : 3;
+    for (int channel = 0; channel < channels; channel++) {
+      int[] table = this.tables[Math.min(channel, 2)];
+      after[channel] = new int[256];
+      for (int value = 0; value < 256; value++) {
+        after[channel][table[value]] += before[channel][value];
+      }
+    }
+    return after;
+  }
+}
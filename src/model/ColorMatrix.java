@@ -0,0 +1,181 @@
+package model;
+
+/**
+ * This class represents a 3x3 colour matrix, such as sepia, greyscale, luma or a single
+ * component. Each output channel is the weighted sum of the input channels, truncated and
+ * clamped to 0 to 255, or in {@link FixedPoint} mode the same sum in 16.16 integer arithmetic.
+ *
+ * <p>Matrices are applied in blocks by {@link ColorTransform}: a block is unpacked into one int
+ * array per channel and each output channel is computed in a loop over those arrays. The
+ * fixed-point loops are straight-line int arithmetic over arrays, which the JIT compiles to
+ * SIMD instructions where the processor has them; the double loop is held back by the
+ * conversion to int, so fixed-point mode is the fast one.
+ *
+ * <p>Double addition is not associative, so each row keeps the order its terms are added in.
+ * Luma adds blue first, as it always has, so results match the filters this class replaced.
+ */
+final class ColorMatrix implements ColorTransform.Step {
+  private static final int RED = 0;
+  private static final int GREEN = 1;
+  private static final int BLUE = 2;
+
+  static final ColorMatrix SEPIA = new ColorMatrix(new double[][]{
+      {0.393, 0.769, 0.189},
+      {0.349, 0.686, 0.168},
+      {0.272, 0.534, 0.131}
+  }, new int[]{RED, GREEN, BLUE});
+
+  static final ColorMatrix GREYSCALE = new ColorMatrix(new double[][]{
+      {0.393, 0.769, 0.189},
+      {0.393, 0.769, 0.189},
+      {0.393, 0.769, 0.189}
+  }, new int[]{RED, GREEN, BLUE});
+
+  static final ColorMatrix LUMA = new ColorMatrix(new double[][]{
+      {0.2126, 0.7152, 0.0722},
+      {0.2126, 0.7152, 0.0722},
+      {0.2126, 0.7152, 0.0722}
+  }, new int[]{BLUE, RED, GREEN});
+
+  static final ColorMatrix RED_COMPONENT = component(RED);
+  static final ColorMatrix GREEN_COMPONENT = component(GREEN);
+  static final ColorMatrix BLUE_COMPONENT = component(BLUE);
+
+  private final double[][] matrix;
+  private final int[] order;
+  private final int[][] fixed;
+  private final boolean grey;
+  private final boolean whole;
+
+  /**
+   * Creates a colour matrix whose terms are added in the given order of input channels.
+   *
+   * @param matrix the weights, indexed by output channel and then input channel
+   * @param order  the input channels in the order their terms are added
+   */
+  ColorMatrix(double[][] matrix, int[] order) {
+    this.matrix = matrix;
+    this.order = order;
+    this.fixed = new int[3][3];
+    boolean grey = true;
+    boolean whole = true;
+    for (int row = 0; row < 3; row++) {
+      for (int column = 0; column < 3; column++) {
+        this.fixed[row][column] = FixedPoint.scale(matrix[row][column]);
+        grey &= matrix[row][column] == matrix[0][column];
+        whole &= matrix[row][column] == Math.rint(matrix[row][column]);
+      }
+    }
+    this.grey = grey;
+    this.whole = whole;
+  }
+
+  private static ColorMatrix component(int channel) {
+    double[][] matrix = new double[3][3];
+    for (double[] row : matrix) {
+      row[channel] = 1;
+    }
+    return new ColorMatrix(matrix, new int[]{RED, GREEN, BLUE});
+  }
+
+  /**
+   * Returns the matrix that builds a grey from the given component, or null if that component
+   * is not a weighted sum of the channels.
+   *
+   * @param type the component, either luma, value, intensity, red, green or blue
+   * @return the matrix, or null for value, intensity and unknown components
+   */
+  static ColorMatrix component(String type) {
+    if (type.equalsIgnoreCase("red")) {
+      return RED_COMPONENT;
+    } else if (type.equalsIgnoreCase("green")) {
+      return GREEN_COMPONENT;
+    } else if (type.equalsIgnoreCase("blue")) {
+      return BLUE_COMPONENT;
+    } else if (type.equalsIgnoreCase("luma")) {
+      return LUMA;
+    }
+    return null;
+  }
+
+  /**
+   * Applies the matrix to the packed 0xRRGGBB pixels in the given range.
+   *
+   * @param pixels the pixels
+   * @param from   the first pixel
+   * @param to     one past the last pixel
+   */
+  void apply(int[] pixels, int from, int to) {
+    new ColorTransform(this).apply(pixels, from, to);
+  }
+
+  /**
+   * Applies the matrix to the pixels in the given range of three planes, one byte per channel,
+   * writing the result to three other planes. The result planes may be the input planes, and
+   * for a matrix whose rows are all the same they may all be the same plane.
+   *
+   * @param src  the red, green and blue planes to read
+   * @param dst  the red, green and blue planes to write
+   * @param from the first pixel
+   * @param to   one past the last pixel
+   */
+  void apply(byte[][] src, byte[][] dst, int from, int to) {
+    new ColorTransform(this).apply(src, dst, from, to);
+  }
+
+  /**
+   * Returns whether the rows of the matrix are all the same, so that it makes pixels grey.
+   *
+   * @return true if the matrix makes pixels grey
+   */
+  @Override
+  public boolean isGrey() {
+    return this.grey;
+  }
+
+  /**
+   * Computes the output channels of one block, returning the arrays that hold them. A matrix
+   * whose rows are all the same computes one channel and returns it three times. A matrix of
+   * whole weights, like a single component, has whole sums that fixed-point arithmetic gets
+   * exactly right, so it always uses the faster fixed-point loop.
+   */
+  @Override
+  public int[][] computeBlock(int[][] channels, int[][] results, int count, boolean fixed) {
+    int rows = this.grey ? 1 : 3;
+    for (int row = 0; row < rows; row++) {
+      if (fixed || this.whole) {
+        computeFixedRow(channels, this.fixed[row], results[row], count);
+      } else {
+        computeRow(channels, this.matrix[row], results[row], count);
+      }
+    }
+    return this.grey ? new int[][]{results[0], results[0], results[0]} : results;
+  }
+
+  private void computeRow(int[][] channels, double[] weights, int[] result, int count) {
+    int[] first = channels[this.order[0]];
+    int[] second = channels[this.order[1]];
+    int[] third = channels[this.order[2]];
+    double firstWeight = weights[this.order[0]];
+    double secondWeight = weights[this.order[1]];
+    double thirdWeight = weights[this.order[2]];
+    for (int i = 0; i < count; i++) {
+      double sum = first[i] * firstWeight + second[i] * secondWeight + third[i] * thirdWeight;
+      result[i] = sum <= 0 ? 0 : sum >= 255 ? 255 : (int) sum;
+    }
+  }
+
+  private static void computeFixedRow(int[][] channels, int[] weights, int[] result,
+                                      int count) {
+    int[] red = channels[RED];
+    int[] green = channels[GREEN];
+    int[] blue = channels[BLUE];
+    int redWeight = weights[RED];
+    int greenWeight = weights[GREEN];
+    int blueWeight = weights[BLUE];
+    for (int i = 0; i < count; i++) {
+      result[i] = FixedPoint.toChannel(red[i] * redWeight + green[i] * greenWeight
+              + blue[i] * blueWeight);
+    }
+  }
+}
@@ -0,0 +1,300 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * This class represents a chain of colour operations, colour matrices such as sepia,
+ * greyscale and the components and channel tables such as brighten, applied one after
+ * another in a single pass over the pixels.
+ *
+ * <p>Each step truncates and clamps its result before the next step reads it, exactly as if
+ * the steps were applied to the image one at a time, so the matrices are not multiplied
+ * together: the product would skip that rounding and change the results. Instead a block of
+ * pixels is unpacked once, every step runs on the block while it is in the cache, and the
+ * block is packed once. Consecutive channel tables compose into one table. Once a step makes
+ * the pixels grey, everything after it depends only on the grey level, so those steps are
+ * worked out once for all 256 levels and looked up.
+ *
+ * <p>Each step keeps the {@link FixedPoint} mode that was set when it was added to the chain,
+ * so a chain that waits to be applied gives the same result as applying each step when it
+ * was given, whatever the mode is by the time the pixels are read.
+ */
+final class ColorTransform {
+  private static final int BLOCK = 512;
+
+  private final Step[] steps;
+  private final boolean[] fixed;
+  private int[] tail;
+
+  /**
+   * One colour operation in a chain, working on a block of unpacked channels.
+   */
+  interface Step {
+    /**
+     * Computes the output channels of one block, returning the arrays that hold them.
+     *
+     * @param channels the red, green and blue values of the block
+     * @param results  arrays the results may be written to, not the same as the inputs
+     * @param count    the number of pixels in the block
+     * @param fixed    whether to use fixed-point arithmetic
+     * @return the red, green and blue results, which may be the same array three times
+     */
+    int[][] computeBlock(int[][] channels, int[][] results, int count, boolean fixed);
+
+    /**
+     * Returns whether the step always makes pixels grey.
+     *
+     * @return true if every output pixel is grey
+     */
+    boolean isGrey();
+  }
+
+  /**
+   * Creates a transform that applies the given steps in order, in the arithmetic mode set
+   * now.
+   *
+   * @param steps the steps, first to last
+   */
+  ColorTransform(Step... steps) {
+    this.steps = steps;
+    this.fixed = new boolean[steps.length];
+    Arrays.fill(this.fixed, FixedPoint.isEnabled());
+  }
+
+  /**
+   * Creates a transform that applies the given step in the given arithmetic mode.
+   *
+   * @param step  the step
+   * @param fixed whether the step uses fixed-point arithmetic
+   */
+  ColorTransform(Step step, boolean fixed) {
+    this(new Step[]{step}, new boolean[]{fixed});
+  }
+
+  private ColorTransform(Step[] steps, boolean[] fixed) {
+    this.steps = steps;
+    this.fixed = fixed;
+  }
+
+  /**
+   * Returns the step that builds a grey from the given component.
+   *
+   * @param type the component, either luma, value, intensity, red, green or blue
+   * @return the step
+   * @throws IllegalArgumentException if the component is not one of the above
+   */
+  static Step component(String type) throws IllegalArgumentException {
+    ColorMatrix matrix = ColorMatrix.component(type);
+    if (matrix != null) {
+      return matrix;
+    } else if (type.equalsIgnoreCase("value")) {
+      return GreyStep.VALUE;
+    } else if (type.equalsIgnoreCase("intensity")) {
+      return GreyStep.INTENSITY;
+    }
+    throw new IllegalArgumentException("Unknown component: " + type);
+  }
+
+  /**
+   * Returns a transform that applies this transform and then the given step, in the
+   * arithmetic mode set now. This transform does not change.
+   *
+   * @param step the step to apply last
+   * @return the longer transform
+   */
+  ColorTransform then(Step step) {
+    return then(step, FixedPoint.isEnabled());
+  }
+
+  /**
+   * Returns a transform that applies this transform and then the given step in the given
+   * arithmetic mode. A table that follows a table is composed with it, since tables work the
+   * same in either mode. This transform does not change.
+   *
+   * @param step  the step to apply last
+   * @param fixed whether the step uses fixed-point arithmetic
+   * @return the longer transform
+   */
+  ColorTransform then(Step step, boolean fixed) {
+    int last = this.steps.length - 1;
+    if (last >= 0 && this.steps[last] instanceof ChannelTable && step instanceof ChannelTable) {
+      Step[] composed = this.steps.clone();
+      composed[last] = ((ChannelTable) this.steps[last]).then((ChannelTable) step);
+      return new ColorTransform(composed, this.fixed);
+    }
+    Step[] longer = Arrays.copyOf(this.steps, this.steps.length + 1);
+    longer[this.steps.length] = step;
+    boolean[] modes = Arrays.copyOf(this.fixed, this.fixed.length + 1);
+    modes[this.fixed.length] = fixed;
+    return new ColorTransform(longer, modes);
+  }
+
+  /**
+   * Returns the table this transform consists of, or null if it is not a single table.
+   *
+   * @return the table, or null
+   */
+  ChannelTable table() {
+    if (this.steps.length == 1 && this.steps[0] instanceof ChannelTable) {
+      return (ChannelTable) this.steps[0];
+    }
+    return null;
+  }
+
+  /**
+   * Returns the number of steps that run on each block: up to and including the first step
+   * that makes the pixels grey, or all of them if none does.
+   */
+  private int blockSteps() {
+    for (int i = 0; i < this.steps.length; i++) {
+      if (this.steps[i].isGrey()) {
+        return i + 1;
+      }
+    }
+    return this.steps.length;
+  }
+
+  /**
+   * Works out the steps after the given ones for every grey level, returning the packed
+   * result for each level, or null if there are no such steps. The table is kept for the
+   * next call, so applying the transform row by row works it out only once.
+   */
+  private synchronized int[] greyTable(int first) {
+    if (first == this.steps.length) {
+      return null;
+    }
+    if (this.tail != null) {
+      return this.tail;
+    }
+    int[][][] buffers = new int[2][3][BLOCK];
+    for (int level = 0; level < 256; level++) {
+      buffers[0][0][level] = level;
+      buffers[0][1][level] = level;
+      buffers[0][2][level] = level;
+    }
+    int[][] out = run(buffers, 256, first, this.steps.length);
+    int[] table = new int[256];
+    for (int level = 0; level < 256; level++) {
+      table[level] = PixelOps.pack(out[0][level], out[1][level], out[2][level]);
+    }
+    this.tail = table;
+    return table;
+  }
+
+  /**
+   * Runs the given steps on the block held in the first set of buffers, using the two sets in
+   * turn, and returns the arrays holding the result.
+   */
+  private int[][] run(int[][][] buffers, int count, int first, int last) {
+    int[][] channels = buffers[0];
+    for (int i = first; i < last; i++) {
+      int[][] results = buffers[(i - first + 1) & 1];
+      channels = this.steps[i].computeBlock(channels, results, count, this.fixed[i]);
+    }
+    return channels;
+  }
+
+  /**
+   * Applies the transform to the packed 0xRRGGBB pixels in the given range.
+   *
+   * @param pixels the pixels
+   * @param from   the first pixel
+   * @param to     one past the last pixel
+   */
+  void apply(int[] pixels, int from, int to) {
+    apply(pixels, pixels, from, to);
+  }
+
+  /**
+   * Applies the transform to the packed 0xRRGGBB pixels in the given range of one array,
+   * writing the results to the same range of another. The arrays may be the same.
+   *
+   * @param src  the pixels to read
+   * @param dst  the array to write
+   * @param from the first pixel
+   * @param to   one past the last pixel
+   */
+  void apply(int[] src, int[] dst, int from, int to) {
+    if (table() != null) {
+      table().apply(src, dst, from, to);
+      return;
+    }
+    int split = blockSteps();
+    int[] tail = greyTable(split);
+    int[][][] buffers = new int[2][3][BLOCK];
+    int[] red = buffers[0][0];
+    int[] green = buffers[0][1];
+    int[] blue = buffers[0][2];
+    for (int start = from; start < to; start += BLOCK) {
+      int count = Math.min(BLOCK, to - start);
+      for (int i = 0; i < count; i++) {
+        int p = src[start + i];
+        red[i] = (p >> 16) & 0xFF;
+        green[i] = (p >> 8) & 0xFF;
+        blue[i] = p & 0xFF;
+      }
+      int[][] out = run(buffers, count, 0, split);
+      if (tail != null) {
+        int[] levels = out[0];
+        for (int i = 0; i < count; i++) {
+          dst[start + i] = tail[levels[i]];
+        }
+      } else {
+        int[] outRed = out[0];
+        int[] outGreen = out[1];
+        int[] outBlue = out[2];
+        for (int i = 0; i < count; i++) {
+          dst[start + i] = (outRed[i] << 16) | (outGreen[i] << 8) | outBlue[i];
+        }
+      }
+    }
+  }
+
+  /**
+   * Applies the transform to the pixels in the given range of three planes, one byte per
+   * channel, writing the result to three other planes. The result planes may be the input
+   * planes, and for a transform that leaves the pixels grey they may all be the same plane.
+   *
+   * @param src  the red, green and blue planes to read
+   * @param dst  the red, green and blue planes to write
+   * @param from the first pixel
+   * @param to   one past the last pixel
+   */
+  void apply(byte[][] src, byte[][] dst, int from, int to) {
+    if (table() != null) {
+      for (int channel = 0; channel < 3; channel++) {
+        table().apply(channel, src[channel], dst[channel], from, to);
+      }
+      return;
+    }
+    int split = blockSteps();
+    int[] tail = greyTable(split);
+    int[][][] buffers = new int[2][3][BLOCK];
+    for (int start = from; start < to; start += BLOCK) {
+      int count = Math.min(BLOCK, to - start);
+      for (int channel = 0; channel < 3; channel++) {
+        byte[] plane = src[channel];
+        int[] values = buffers[0][channel];
+        for (int i = 0; i < count; i++) {
+          values[i] = plane[start + i] & 0xFF;
+        }
+      }
+      int[][] out = run(buffers, count, 0, split);
+      for (int channel = 0; channel < 3; channel++) {
+        byte[] plane = dst[channel];
+        if (tail != null) {
+          int shift = 16 - 8 * channel;
+          int[] levels = out[0];
+          for (int i = 0; i < count; i++) {
+            plane[start + i] = (byte) (tail[levels[i]] >> shift);
+          }
+        } else {
+          int[] values = out[channel];
+          for (int i = 0; i < count; i++) {
+            plane[start + i] = (byte) values[i];
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package model;
+
+/**
+ * This class switches the filters that weigh channels, the kernels and colour matrices, between
+ * double arithmetic and 16.16 fixed-point integer arithmetic, and holds the fixed-point helpers.
+ *
+ * <p>In fixed-point mode every weight is rounded to the nearest multiple of 1/65536 and held as
+ * an int. The products of the weights with the 8-bit channel values are summed exactly in an
+ * int, and the sum is floored to a whole channel value, by shifting right 16 bits, and clamped
+ * to 0 to 255 without branches. Results follow exactly from that rule on every machine. Where
+ * the weights are already multiples of 1/65536, as for the blur and sharpen kernels, the
+ * results are the same as in double mode; the sepia, greyscale and luma weights round and may
+ * land one level lower or higher.
+ */
+public final class FixedPoint {
+  static final int SHIFT = 16;
+  static final int ONE = 1 << SHIFT;
+
+  static final int LUMA_RED = scale(0.2126);
+  static final int LUMA_GREEN = scale(0.7152);
+  static final int LUMA_BLUE = scale(0.0722);
+
+  /**
+   * The sepia matrix, row by row. The first row is also the greyscale weights.
+   */
+  static final int[] SEPIA = {
+      scale(0.393), scale(0.769), scale(0.189),
+      scale(0.349), scale(0.686), scale(0.168),
+      scale(0.272), scale(0.534), scale(0.131)
+  };
+
+  private static volatile boolean enabled;
+
+  private FixedPoint() {
+  }
+
+  /**
+   * Sets whether filters use fixed-point arithmetic.
+   *
+   * @param enabled true for fixed-point arithmetic, false for double arithmetic
+   */
+  public static void setEnabled(boolean enabled) {
+    FixedPoint.enabled = enabled;
+  }
+
+  /**
+   * Returns whether filters use fixed-point arithmetic.
+   *
+   * @return true if filters use fixed-point arithmetic
+   */
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Rounds a weight to the nearest multiple of 1/65536.
+   *
+   * @param weight the weight
+   * @return the weight times 65536, rounded
+   */
+  static int scale(double weight) {
+    return (int) Math.round(weight * ONE);
+  }
+
+  /**
+   * Floors a sum of scaled products to a channel value and clamps it to 0 to 255.
+   *
+   * @param sum the sum of channel values times scaled weights
+   * @return the channel value
+   */
+  static int toChannel(int sum) {
+    int value = sum >> SHIFT;
+    value &= ~(value >> 31);
+    return (value | ((255 - value) >> 31)) & 0xFF;
+  }
+
+  /**
+   * Applies one row of a scaled colour matrix to a pixel, floored but not clamped.
+   *
+   * @param matrix the matrix, row by row
+   * @param row    the row of the matrix
+   * @return the floored weighted sum of the channels
+   */
+  static int dot(int[] matrix, int row, int red, int green, int blue) {
+    int i = 3 * row;
+    return (matrix[i] * red + matrix[i + 1] * green + matrix[i + 2] * blue) >> SHIFT;
+  }
+
+  /**
+   * Returns the luma of a pixel, floored.
+   *
+   * @return the luma, 0 to 255
+   */
+  static int luma(int red, int green, int blue) {
+    return (LUMA_RED * red + LUMA_GREEN * green + LUMA_BLUE * blue) >> SHIFT;
+  }
+}
@@ -0,0 +1,526 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class represents an image in which every pixel has equal red, green and blue values, so
+ * only one byte per pixel is stored, row by row. Greyscale results are built as this type, and
+ * the operations that keep an image grey (flips, brighten, blur, sharpen, components and
+ * greyscale) work on the single plane.
+ *
+ * <p>Reads through {@link #getRGB(int, int)} and {@link #getRow(int, int[])} expand the grey
+ * level into a colour on the fly. An operation or write that would give a pixel different
+ * channel values, such as sepia, first converts the image into a {@link PackedImage} and
+ * works on that from then on.
+ *
+ * <p>Pixels are addressed the same way {@link ImageUtil} builds them: the first index of
+ * {@link #getPixels()} is the x position and the second index is the y position.
+ */
+public class GreyImage implements Image {
+  private final int width;
+  private final int height;
+  private byte[] grey;
+  private AtomicInteger owners = new AtomicInteger(1);
+  private Image colour;
+
+  /**
+   * Creates a black image of the given size.
+   *
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @throws IllegalArgumentException if the width or height is not positive
+   */
+  public GreyImage(int width, int height) throws IllegalArgumentException {
+    this(width, height, new byte[checkSize(width, height)]);
+  }
+
+  /**
+   * Creates an image over the given grey levels. The array is used directly, not copied.
+   *
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @param grey   the grey level of each pixel, row by row
+   * @throws IllegalArgumentException if the size is not positive or the array is too short
+   */
+  public GreyImage(int width, int height, byte[] grey) throws IllegalArgumentException {
+    int size = checkSize(width, height);
+    if (grey == null || grey.length < size) {
+      throw new IllegalArgumentException("Grey levels must hold width * height pixels.");
+    }
+    this.width = width;
+    this.height = height;
+    this.grey = grey;
+  }
+
+  /**
+   * Creates a copy of the given image that shares its grey levels. The images count how many
+   * of them share the levels, and whichever is written to while they are shared takes its own
+   * copy of the levels.
+   *
+   * @param other the image to copy
+   */
+  GreyImage(GreyImage other) {
+    this.width = other.width;
+    this.height = other.height;
+    if (other.colour != null) {
+      this.colour = ImageUtil.cloneImage(other.colour);
+    } else {
+      this.grey = other.grey;
+      this.owners = other.owners;
+      this.owners.incrementAndGet();
+    }
+  }
+
+  private static int checkSize(int width, int height) {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("Width and height must be positive.");
+    }
+    return width * height;
+  }
+
+  /**
+   * Builds a grey image from one component of the given image, without changing the image.
+   *
+   * @param image the image to read
+   * @param type  the desired component, either luma, value, intensity red, green or blue.
+   * @return the grey image
+   * @throws IllegalArgumentException if the image is null or the component is not one of the
+   *                                  above
+   */
+  public static GreyImage component(Image image, String type) throws IllegalArgumentException {
+    return fromRows(image, row -> PixelOps.component(row, 0, row.length, type));
+  }
+
+  /**
+   * Builds a greyscale version of the given image, without changing the image.
+   *
+   * @param image the image to read
+   * @return the grey image
+   * @throws IllegalArgumentException if the image is null
+   */
+  public static GreyImage greyscale(Image image) throws IllegalArgumentException {
+    return fromRows(image, row -> PixelOps.greyscale(row, 0, row.length));
+  }
+
+  /**
+   * Builds a grey image from the given image through a colour operation that makes pixels
+   * grey, in the given arithmetic mode, without changing the image.
+   *
+   * @param image the image to read
+   * @param step  the operation, which must make every pixel grey
+   * @param fixed whether the operation uses fixed-point arithmetic
+   * @return the grey image
+   * @throws IllegalArgumentException if the image is null
+   */
+  static GreyImage recolor(Image image, ColorTransform.Step step, boolean fixed)
+          throws IllegalArgumentException {
+    ColorTransform transform = new ColorTransform(step, fixed);
+    return fromRows(image, row -> transform.apply(row, 0, row.length));
+  }
+
+  /**
+   * An operation that turns one row of packed pixels grey.
+   */
+  private interface RowOperation {
+    void apply(int[] row);
+  }
+
+  private static GreyImage fromRows(Image image, RowOperation operation) {
+    if (image == null) {
+      throw new IllegalArgumentException("Image must be non-null.");
+    }
+    int width = image.getWidth();
+    GreyImage result = new GreyImage(width, image.getHeight());
+    int[] row = new int[width];
+    for (int y = 0; y < result.height; y++) {
+      image.getRow(y, row);
+      operation.apply(row);
+      int start = y * width;
+      for (int x = 0; x < width; x++) {
+        result.grey[start + x] = (byte) row[x];
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the grey levels for writing, copying them first if another image may share them.
+   */
+  private byte[] writableGrey() {
+    if (this.owners.get() > 1) {
+      replaceGrey(this.grey.clone());
+    }
+    return this.grey;
+  }
+
+  /**
+   * Switches the image to the given grey levels, which it alone owns, and stops sharing the
+   * old ones.
+   */
+  private void replaceGrey(byte[] grey) {
+    this.owners.decrementAndGet();
+    this.grey = grey;
+    this.owners = new AtomicInteger(1);
+  }
+
+  /**
+   * Converts the image into a packed colour image, if it has not been already, and returns it.
+   */
+  private Image toColour() {
+    if (this.colour == null) {
+      PackedImage packed = new PackedImage(this.width, this.height);
+      int[] row = new int[this.width];
+      for (int y = 0; y < this.height; y++) {
+        getRow(y, row);
+        packed.setRow(y, row);
+      }
+      this.colour = packed;
+      replaceGrey(null);
+    }
+    return this.colour;
+  }
+
+  /**
+   * Replaces every grey level with the grey level that the given operation makes of it.
+   */
+  private void mapLevels(RowOperation operation) {
+    int[] levels = new int[256];
+    for (int g = 0; g < 256; g++) {
+      levels[g] = g * 0x010101;
+    }
+    operation.apply(levels);
+    byte[] plane = writableGrey();
+    Parallel.forEachStripe(this.width * this.height, (stripe, from, to) -> {
+      for (int i = from; i < to; i++) {
+        plane[i] = (byte) levels[plane[i] & 0xFF];
+      }
+    });
+  }
+
+  /**
+   * Gives up this image's grey levels, so an image still sharing them may write to them in
+   * place, and releases the colour image it was converted into, if any, to the
+   * {@link BufferPool}. The image must not be used afterwards.
+   */
+  void release() {
+    BufferPool.release(this.colour);
+    this.colour = null;
+    if (this.grey != null) {
+      this.owners.decrementAndGet();
+      this.grey = null;
+    }
+  }
+
+  /**
+   * Returns whether this image still stores only grey levels.
+   *
+   * @return true if the image has not been converted to colour
+   */
+  public boolean isGrey() {
+    return this.colour == null;
+  }
+
+  /**
+   * Mirrors the image left to right.
+   */
+  @Override
+  public void flipHorizontal() {
+    if (this.colour != null) {
+      this.colour.flipHorizontal();
+      return;
+    }
+    byte[] plane = writableGrey();
+    for (int y = 0; y < this.height; y++) {
+      int first = y * this.width;
+      int last = first + this.width - 1;
+      while (first < last) {
+        byte temp = plane[first];
+        plane[first] = plane[last];
+        plane[last] = temp;
+        first++;
+        last--;
+      }
+    }
+  }
+
+  /**
+   * Mirrors the image top to bottom.
+   */
+  @Override
+  public void flipVertical() {
+    if (this.colour != null) {
+      this.colour.flipVertical();
+      return;
+    }
+    byte[] plane = writableGrey();
+    byte[] temp = new byte[this.width];
+    int first = 0;
+    int last = this.height - 1;
+    while (first < last) {
+      System.arraycopy(plane, first * this.width, temp, 0, this.width);
+      System.arraycopy(plane, last * this.width, plane, first * this.width, this.width);
+      System.arraycopy(temp, 0, plane, last * this.width, this.width);
+      first++;
+      last--;
+    }
+  }
+
+  /**
+   * Method to brighten or darken and image.
+   *
+   * @param component how much you want the image to be lightened or darkened.
+   */
+  @Override
+  public void brighten(int component) {
+    if (this.colour != null) {
+      this.colour.brighten(component);
+      return;
+    }
+    mapLevels(levels -> PixelOps.brighten(levels, 0, levels.length, component));
+  }
+
+  /**
+   * Method to turn an image into greyscale using an inputted component. Every component of a
+   * grey pixel is its grey level, so the image stays grey.
+   *
+   * @param type the desired component, either luma, value, intensity red, green or blue.
+   * @throws IllegalArgumentException if the component is not one of the above
+   */
+  @Override
+  public void component(String type) throws IllegalArgumentException {
+    if (this.colour != null) {
+      this.colour.component(type);
+      return;
+    }
+    mapLevels(levels -> PixelOps.component(levels, 0, levels.length, type));
+  }
+
+  /**
+   * Returns a copy of the pixels that make up the image, indexed by x and then y.
+   *
+   * @return the pixels that make up the image
+   */
+  @Override
+  public Pixel[][] getPixels() {
+    if (this.colour != null) {
+      return this.colour.getPixels();
+    }
+    Pixel[][] pixels = new Pixel[this.width][this.height];
+    for (int y = 0; y < this.height; y++) {
+      for (int x = 0; x < this.width; x++) {
+        int g = this.grey[y * this.width + x] & 0xFF;
+        pixels[x][y] = new Pixel(g, g, g);
+      }
+    }
+    return pixels;
+  }
+
+  /**
+   * Returns the pixel at the specified position, indexed like {@link #getPixels()}.
+   *
+   * @param row the x position of the pixel
+   * @param col the y position of the pixel
+   * @return the pixel at the specified position
+   * @throws IllegalArgumentException if the position is outside the image
+   */
+  @Override
+  public Pixel getPixelAt(int row, int col) throws IllegalArgumentException {
+    if (this.colour != null) {
+      return this.colour.getPixelAt(row, col);
+    }
+    PixelOps.checkPosition(row, col, this.width, this.height);
+    int g = this.grey[col * this.width + row] & 0xFF;
+    return new Pixel(g, g, g);
+  }
+
+  /**
+   * Returns the pixel at the specified position packed as 0xRRGGBB.
+   *
+   * @param x the x position of the pixel
+   * @param y the y position of the pixel
+   * @return the packed pixel
+   * @throws IllegalArgumentException if the position is outside the image
+   */
+  @Override
+  public int getRGB(int x, int y) throws IllegalArgumentException {
+    if (this.colour != null) {
+      return this.colour.getRGB(x, y);
+    }
+    PixelOps.checkPosition(x, y, this.width, this.height);
+    return (this.grey[y * this.width + x] & 0xFF) * 0x010101;
+  }
+
+  /**
+   * Sets the pixel at the specified position from a packed 0xRRGGBB value. A pixel whose
+   * channels differ converts the image to colour first.
+   *
+   * @param x   the x position of the pixel
+   * @param y   the y position of the pixel
+   * @param rgb the packed pixel
+   * @throws IllegalArgumentException if the position is outside the image
+   */
+  @Override
+  public void setRGB(int x, int y, int rgb) throws IllegalArgumentException {
+    PixelOps.checkPosition(x, y, this.width, this.height);
+    if (this.colour == null && isGreyPixel(rgb)) {
+      writableGrey()[y * this.width + x] = (byte) rgb;
+    } else {
+      toColour().setRGB(x, y, rgb);
+    }
+  }
+
+  /**
+   * Copies one row of the image into the given array as packed 0xRRGGBB values.
+   *
+   * @param y   the row to copy
+   * @param dst the array to copy into
+   * @throws IllegalArgumentException if the row is outside the image or the array is too short
+   */
+  @Override
+  public void getRow(int y, int[] dst) throws IllegalArgumentException {
+    if (this.colour != null) {
+      this.colour.getRow(y, dst);
+      return;
+    }
+    PixelOps.checkRow(y, dst, this.width, this.height);
+    int start = y * this.width;
+    for (int x = 0; x < this.width; x++) {
+      dst[x] = (this.grey[start + x] & 0xFF) * 0x010101;
+    }
+  }
+
+  /**
+   * Sets one row of the image from the given array of packed 0xRRGGBB values. A row holding a
+   * pixel whose channels differ converts the image to colour first.
+   *
+   * @param y   the row to set
+   * @param src the array to copy from
+   * @throws IllegalArgumentException if the row is outside the image or the array is too short
+   */
+  @Override
+  public void setRow(int y, int[] src) throws IllegalArgumentException {
+    PixelOps.checkRow(y, src, this.width, this.height);
+    if (this.colour == null) {
+      boolean allGrey = true;
+      for (int x = 0; x < this.width && allGrey; x++) {
+        allGrey = isGreyPixel(src[x]);
+      }
+      if (allGrey) {
+        byte[] plane = writableGrey();
+        int start = y * this.width;
+        for (int x = 0; x < this.width; x++) {
+          plane[start + x] = (byte) src[x];
+        }
+        return;
+      }
+    }
+    toColour().setRow(y, src);
+  }
+
+  private static boolean isGreyPixel(int rgb) {
+    int b = rgb & 0xFF;
+    return ((rgb >> 16) & 0xFF) == b && ((rgb >> 8) & 0xFF) == b;
+  }
+
+  /**
+   * Returns the width of the image.
+   *
+   * @return the width of the image
+   */
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * Returns the height of the image.
+   *
+   * @return the height of the image
+   */
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  /**
+   * Method to add a blur filter to an image.
+   */
+  @Override
+  public void blur() {
+    if (this.colour != null) {
+      this.colour.blur();
+      return;
+    }
+    replaceGrey(Kernel.BLUR.convolvePlane(this.grey, this.width, this.height));
+  }
+
+  /**
+   * Method to blur an image by the given radius.
+   *
+   * @param radius the radius of the blur, about its standard deviation in pixels
+   * @throws IllegalArgumentException if the radius is negative
+   */
+  @Override
+  public void blur(int radius) throws IllegalArgumentException {
+    if (this.colour != null) {
+      this.colour.blur(radius);
+      return;
+    }
+    BoxBlur.apply(this, radius);
+  }
+
+  /**
+   * Method to add sharpen filter to an image.
+   */
+  @Override
+  public void sharpen() {
+    if (this.colour != null) {
+      this.colour.sharpen();
+      return;
+    }
+    replaceGrey(Kernel.SHARPEN.convolvePlane(this.grey, this.width, this.height));
+  }
+
+  /**
+   * Method to add a sepia filter to an image. Sepia tints the pixels, so the image is converted
+   * to colour first.
+   */
+  @Override
+  public void sepia() {
+    toColour().sepia();
+  }
+
+  /**
+   * Method to convert a color image into a greyscale image.
+   */
+  @Override
+  public void greyscale() {
+    if (this.colour != null) {
+      this.colour.greyscale();
+      return;
+    }
+    mapLevels(levels -> PixelOps.greyscale(levels, 0, levels.length));
+  }
+
+  /**
+   * Creates a 2D array of the RGB value components and how frequently they occur. Every
+   * channel of a grey image has the same counts.
+   *
+   * @return a 2D array that represents the histogram.
+   */
+  @Override
+  public int[][] histogram() {
+    if (this.colour != null) {
+      return this.colour.histogram();
+    }
+    int[][] h = Parallel.histogram(this.width * this.height, (from, to, counts) -> {
+      for (int i = from; i < to; i++) {
+        counts[0][this.grey[i] & 0xFF] += 1;
+      }
+    });
+    for (int channel = 1; channel < 4; channel++) {
+      h[channel] = h[0].clone();
+    }
+    return h;
+  }
+}
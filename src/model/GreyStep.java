@@ -0,0 +1,47 @@
+package model;
+
+/**
+ * This class represents the components that are not weighted sums of the channels, value and
+ * intensity, as steps of a {@link ColorTransform}. Value is the largest channel and intensity
+ * the average of the channels, rounded down.
+ */
+final class GreyStep implements ColorTransform.Step {
+  static final GreyStep VALUE = new GreyStep(true);
+  static final GreyStep INTENSITY = new GreyStep(false);
+
+  private final boolean largest;
+
+  private GreyStep(boolean largest) {
+    this.largest = largest;
+  }
+
+  /**
+   * Computes the grey level of each pixel of the block into one array and returns it for all
+   * three channels.
+   */
+  @Override
+  public int[][] computeBlock(int[][] channels, int[][] results, int count, boolean fixed) {
+    int[] red = channels[0];
+    int[] green = channels[1];
+    int[] blue = channels[2];
+    int[] grey = results[0];
+    if (this.largest) {
+      for (int i = 0; i < count; i++) {
+        grey[i] = Math.max(Math.max(red[i], green[i]), blue[i]);
+      }
+    } else {
+      for (int i = 0; i < count; i++) {
+        grey[i] = (red[i] + green[i] + blue[i]) / 3;
+      }
+    }
+    return new int[][]{grey, grey, grey};
+  }
+
+  /**
+   * Value and intensity always make pixels grey.
+   */
+  @Override
+  public boolean isGrey() {
+    return true;
+  }
+}
@@ -43,6 +43,41 @@ public interface Image {
    */
   public Pixel getPixelAt(int row, int col);
 
+  /**
+   * Returns the pixel at the specified position packed as 0xRRGGBB, without creating a pixel.
+   * @param x the x position of the pixel
+   * @param y the y position of the pixel
+   * @return the packed pixel
+   * @throws IllegalArgumentException if the position is outside the image
+   */
+  public int getRGB(int x, int y);
+
+  /**
+   * Sets the pixel at the specified position from a packed 0xRRGGBB value.
+   * @param x the x position of the pixel
+   * @param y the y position of the pixel
+   * @param rgb the packed pixel
+   * @throws IllegalArgumentException if the position is outside the image
+   */
+  public void setRGB(int x, int y, int rgb);
+
+  /**
+   * Copies one row of the image into the given array as packed 0xRRGGBB values, without
+   * creating any objects.
+   * @param y the row to copy
+   * @param dst the array to copy into, at least as long as the image is wide
+   * @throws IllegalArgumentException if the row is outside the image or the array is too short
+   */
+  public void getRow(int y, int[] dst);
+
+  /**
+   * Sets one row of the image from the given array of packed 0xRRGGBB values.
+   * @param y the row to set
+   * @param src the array to copy from, at least as long as the image is wide
+   * @throws IllegalArgumentException if the row is outside the image or the array is too short
+   */
+  public void setRow(int y, int[] src);
+
   /**
    * Returns the width of the image.
    * @return the width of the image
@@ -60,6 +95,14 @@ public interface Image {
    */
   public void blur();
 
+  /**
+   * Method to blur an image by the given radius. The cost per pixel does not depend on the
+   * radius.
+   * @param radius the radius of the blur, about its standard deviation in pixels
+   * @throws IllegalArgumentException if the radius is negative
+   */
+  public void blur(int radius) throws IllegalArgumentException;
+
   /**
    * Method to add a sepia filter to an image.
    */
@@ -75,18 +75,20 @@ public class ImageImpl implements Image {
   @Override
   public void brighten(int component) {
 
-    for (int col = 0; col < this.width; col++) {
-      for (int row = 0; row < this.height; row++) {
-        int r = this.pixels[row][col].red;
-        int g = this.pixels[row][col].green;
-        int b = this.pixels[row][col].blue;
+    Parallel.forEachStripe(this.height, (stripe, from, to) -> {
+      for (int row = from; row < to; row++) {
+        for (int col = 0; col < this.width; col++) {
+          int r = this.pixels[row][col].red;
+          int g = this.pixels[row][col].green;
+          int b = this.pixels[row][col].blue;
 
 
-        this.pixels[row][col].red = Math.max(0, Math.min(r + component, 255));
-        this.pixels[row][col].blue = Math.max(0, Math.min(b + component, 255));
-        this.pixels[row][col].green = Math.max(0, Math.min(g + component, 255));
+          this.pixels[row][col].red = Math.max(0, Math.min(r + component, 255));
+          this.pixels[row][col].blue = Math.max(0, Math.min(b + component, 255));
+          this.pixels[row][col].green = Math.max(0, Math.min(g + component, 255));
+        }
       }
-    }
+    });
   }
 
   /**
@@ -95,36 +97,41 @@ public class ImageImpl implements Image {
    * @param type the desired component, either luma, value, intensity red, green or blue.
    */
   public void component(String type) {
-    for (int col = 0; col < this.width; col++) {
-      for (int row = 0; row < this.height; row++) {
-        int comp = 0;
-        if (type.equalsIgnoreCase("red")) {
-          comp = pixels[row][col].getRed();
-        } else if (type.equalsIgnoreCase("green")) {
-          comp = pixels[row][col].getGreen();
-        } else if (type.equalsIgnoreCase("blue")) {
-          comp = pixels[row][col].getBlue();
-        } else if (type.equalsIgnoreCase("luma")) {
-          comp = (int) (this.pixels[row][col].blue * 0.0722
-                  + this.pixels[row][col].red * 0.2126
-                  + this.pixels[row][col].green * 0.7152);
-        } else if (type.equalsIgnoreCase("intensity")) {
-          int average = 0;
-          average += this.pixels[row][col].getRed();
-          average += this.pixels[row][col].getBlue();
-          average += this.pixels[row][col].getGreen();
-
-          comp = Math.round(average / 3);
-        } else if (type.equalsIgnoreCase("value")) {
-          int temp = Math.max(this.pixels[row][col].blue,
-                  this.pixels[row][col].red);
-          comp = Math.max(temp, this.pixels[row][col].green);
+    Parallel.forEachStripe(this.height, (stripe, from, to) -> {
+      for (int row = from; row < to; row++) {
+        for (int col = 0; col < this.width; col++) {
+          int comp = 0;
+          if (type.equalsIgnoreCase("red")) {
+            comp = pixels[row][col].getRed();
+          } else if (type.equalsIgnoreCase("green")) {
+            comp = pixels[row][col].getGreen();
+          } else if (type.equalsIgnoreCase("blue")) {
+            comp = pixels[row][col].getBlue();
+          } else if (type.equalsIgnoreCase("luma") && FixedPoint.isEnabled()) {
+            comp = FixedPoint.luma(this.pixels[row][col].red, this.pixels[row][col].green,
+                    this.pixels[row][col].blue);
+          } else if (type.equalsIgnoreCase("luma")) {
+            comp = (int) (this.pixels[row][col].blue * 0.0722
+                    + this.pixels[row][col].red * 0.2126
+                    + this.pixels[row][col].green * 0.7152);
+          } else if (type.equalsIgnoreCase("intensity")) {
+            int average = 0;
+            average += this.pixels[row][col].getRed();
+            average += this.pixels[row][col].getBlue();
+            average += this.pixels[row][col].getGreen();
+
+            comp = Math.round(average / 3);
+          } else if (type.equalsIgnoreCase("value")) {
+            int temp = Math.max(this.pixels[row][col].blue,
+                    this.pixels[row][col].red);
+            comp = Math.max(temp, this.pixels[row][col].green);
+          }
+          this.pixels[row][col].red = comp;
+          this.pixels[row][col].green = comp;
+          this.pixels[row][col].blue = comp;
         }
-        this.pixels[row][col].red = comp;
-        this.pixels[row][col].green = comp;
-        this.pixels[row][col].blue = comp;
       }
-    }
+    });
   }
 
   /**
@@ -164,23 +171,92 @@ public class ImageImpl implements Image {
   }
 
   /**
-   * Returns the width of the image.
+   * Returns the pixel at the specified position packed as 0xRRGGBB.
+   *
+   * @param x the x position of the pixel
+   * @param y the y position of the pixel
+   * @return the packed pixel
+   * @throws IllegalArgumentException if the position is outside the image
+   */
+  @Override
+  public int getRGB(int x, int y) throws IllegalArgumentException {
+    // the pixels are indexed by x and then y, like getPixels()
+    PixelOps.checkPosition(x, y, getWidth(), getHeight());
+    Pixel p = this.pixels[x][y];
+    return PixelOps.pack(p.red, p.green, p.blue);
+  }
+
+  /**
+   * Sets the pixel at the specified position from a packed 0xRRGGBB value.
+   *
+   * @param x   the x position of the pixel
+   * @param y   the y position of the pixel
+   * @param rgb the packed pixel
+   * @throws IllegalArgumentException if the position is outside the image
+   */
+  @Override
+  public void setRGB(int x, int y, int rgb) throws IllegalArgumentException {
+    PixelOps.checkPosition(x, y, getWidth(), getHeight());
+    Pixel p = this.pixels[x][y];
+    p.red = (rgb >> 16) & 0xFF;
+    p.green = (rgb >> 8) & 0xFF;
+    p.blue = rgb & 0xFF;
+  }
+
+  /**
+   * Copies one row of the image into the given array as packed 0xRRGGBB values.
+   *
+   * @param y   the row to copy
+   * @param dst the array to copy into
+   * @throws IllegalArgumentException if the row is outside the image or the array is too short
+   */
+  @Override
+  public void getRow(int y, int[] dst) throws IllegalArgumentException {
+    PixelOps.checkRow(y, dst, getWidth(), getHeight());
+    for (int x = 0; x < getWidth(); x++) {
+      Pixel p = this.pixels[x][y];
+      dst[x] = PixelOps.pack(p.red, p.green, p.blue);
+    }
+  }
+
+  /**
+   * Sets one row of the image from the given array of packed 0xRRGGBB values.
+   *
+   * @param y   the row to set
+   * @param src the array to copy from
+   * @throws IllegalArgumentException if the row is outside the image or the array is too short
+   */
+  @Override
+  public void setRow(int y, int[] src) throws IllegalArgumentException {
+    PixelOps.checkRow(y, src, getWidth(), getHeight());
+    for (int x = 0; x < getWidth(); x++) {
+      Pixel p = this.pixels[x][y];
+      p.red = (src[x] >> 16) & 0xFF;
+      p.green = (src[x] >> 8) & 0xFF;
+      p.blue = src[x] & 0xFF;
+    }
+  }
+
+  /**
+   * Returns the width of the image. The pixels are indexed by x and then y, like
+   * {@link #getPixels()} and the row accessors, so this is the length of the first index; the
+   * width and height fields count the loops of the operations above the other way round.
    *
    * @return the width of the image
    */
   @Override
   public int getWidth() {
-    return this.width;
+    return this.pixels.length;
   }
 
   /**
-   * Returns the height of the image.
+   * Returns the height of the image, the length of the second index of the pixels.
    *
    * @return the height of the image
    */
   @Override
   public int getHeight() {
-    return this.height;
+    return this.pixels[0].length;
   }
 
   // my attempt at blur
@@ -198,6 +274,17 @@ public class ImageImpl implements Image {
     kernalHelp(values);
   }
 
+  /**
+   * Method to blur an image by the given radius.
+   *
+   * @param radius the radius of the blur, about its standard deviation in pixels
+   * @throws IllegalArgumentException if the radius is negative
+   */
+  @Override
+  public void blur(int radius) throws IllegalArgumentException {
+    BoxBlur.apply(this, getWidth(), getHeight(), radius);
+  }
+
   /**
    * Method to add sharpen filter to an image.
    */
@@ -214,36 +301,77 @@ public class ImageImpl implements Image {
     kernalHelp(sharpen);
   }
 
+  /**
+   * Applies the given kernel to every pixel. Every neighbourhood is read from a packed copy of
+   * the pixels taken before any pixel is written, so no pixel sees another's result, and
+   * stripes of rows can run in parallel and in any order with the same outcome.
+   */
   private void kernalHelp(double[][] values) {
     int kernalSize = values.length;
-    for (int row = 0; row < this.height; row++) {
-      for (int col = 0; col < this.width; col++) {
-        double r = 0;
-        double g = 0;
-        double b = 0;
-        int bounds = (kernalSize / 2);
-
-        for (int j = -bounds; j <= bounds; j++) {
-          for (int k = -bounds; k <= bounds; k++) {
-            if ((row + j > -1 && row + 1 < this.height - 1
-                    && col + k > -1 && col + k < this.width - 1)) {
-
-              r += pixels[row + j][col + k].getRed() * values[j + bounds][k + bounds];
-              g += pixels[row + j][col + k].getGreen() * values[j + bounds][k + bounds];
-              b += pixels[row + j][col + k].getBlue() * values[j + bounds][k + bounds];
+    int bounds = (kernalSize / 2);
+    int[][] fixed = null;
+    if (FixedPoint.isEnabled()) {
+      fixed = new int[kernalSize][kernalSize];
+      for (int j = 0; j < kernalSize; j++) {
+        for (int k = 0; k < kernalSize; k++) {
+          fixed[j][k] = FixedPoint.scale(values[j][k]);
+        }
+      }
+    }
+    int[][] weights = fixed;
+    int[] source = BufferPool.take(this.width * this.height, false);
+    Parallel.forEachStripe(this.height, (stripe, from, to) -> {
+      for (int row = from; row < to; row++) {
+        for (int col = 0; col < this.width; col++) {
+          Pixel p = this.pixels[row][col];
+          source[row * this.width + col] = PixelOps.pack(p.red, p.green, p.blue);
+        }
+      }
+    });
+
+    Parallel.forEachStripe(this.height, (stripe, from, to) -> {
+      for (int row = from; row < to; row++) {
+        for (int col = 0; col < this.width; col++) {
+          double r = 0;
+          double g = 0;
+          double b = 0;
+          int fixedR = 0;
+          int fixedG = 0;
+          int fixedB = 0;
+
+          for (int j = -bounds; j <= bounds; j++) {
+            for (int k = -bounds; k <= bounds; k++) {
+              if ((row + j > -1 && row + 1 < this.height - 1
+                      && col + k > -1 && col + k < this.width - 1)) {
+
+                int p = source[(row + j) * this.width + col + k];
+                if (weights != null) {
+                  int weight = weights[j + bounds][k + bounds];
+                  fixedR += ((p >> 16) & 0xFF) * weight;
+                  fixedG += ((p >> 8) & 0xFF) * weight;
+                  fixedB += (p & 0xFF) * weight;
+                } else {
+                  r += ((p >> 16) & 0xFF) * values[j + bounds][k + bounds];
+                  g += ((p >> 8) & 0xFF) * values[j + bounds][k + bounds];
+                  b += (p & 0xFF) * values[j + bounds][k + bounds];
+                }
+              }
             }
           }
-        }
-
-        int red = truncate(r);
-        int green = truncate(g);
-        int blue = truncate(b);
 
-        this.pixels[row][col].red = red;
-        this.pixels[row][col].green = green;
-        this.pixels[row][col].blue = blue;
+          if (weights != null) {
+            this.pixels[row][col].red = FixedPoint.toChannel(fixedR);
+            this.pixels[row][col].green = FixedPoint.toChannel(fixedG);
+            this.pixels[row][col].blue = FixedPoint.toChannel(fixedB);
+          } else {
+            this.pixels[row][col].red = truncate(r);
+            this.pixels[row][col].green = truncate(g);
+            this.pixels[row][col].blue = truncate(b);
+          }
+        }
       }
-    }
+    });
+    BufferPool.give(source);
   }
 
   private int truncate(double x) {
@@ -260,27 +388,42 @@ public class ImageImpl implements Image {
             {0.349, 0.686, 0.168},
             {0.272, 0.534, 0.131}
     };
-
-    for (int row = 0; row < this.height; row++) {
-      for (int col = 0; col < this.width; col++) {
-        double r = this.pixels[row][col].red;
-        double g = this.pixels[row][col].green;
-        double b = this.pixels[row][col].blue;
-        double red = sepia[0][0] * r + sepia[0][1] * g + sepia[0][2] * b;
-        double green = sepia[1][0] * r + sepia[1][1] * g + sepia[1][2] * b;
-        double blue = sepia[2][0] * r + sepia[2][1] * g + sepia[2][2] * b;
-
-        if (red > 255 || green > 255 || blue > 255) {
-          red = 255;
-          green = 255;
-          blue = 255;
-        } else {
-          this.pixels[row][col].red = (int) red;
-          this.pixels[row][col].green = (int) green;
-          this.pixels[row][col].blue = (int) blue;
+    boolean fixed = FixedPoint.isEnabled();
+
+    Parallel.forEachStripe(this.height, (stripe, from, to) -> {
+      for (int row = from; row < to; row++) {
+        for (int col = 0; col < this.width; col++) {
+          if (fixed) {
+            Pixel p = this.pixels[row][col];
+            int red = FixedPoint.dot(FixedPoint.SEPIA, 0, p.red, p.green, p.blue);
+            int green = FixedPoint.dot(FixedPoint.SEPIA, 1, p.red, p.green, p.blue);
+            int blue = FixedPoint.dot(FixedPoint.SEPIA, 2, p.red, p.green, p.blue);
+            if (red <= 255 && green <= 255 && blue <= 255) {
+              p.red = red;
+              p.green = green;
+              p.blue = blue;
+            }
+            continue;
+          }
+          double r = this.pixels[row][col].red;
+          double g = this.pixels[row][col].green;
+          double b = this.pixels[row][col].blue;
+          double red = sepia[0][0] * r + sepia[0][1] * g + sepia[0][2] * b;
+          double green = sepia[1][0] * r + sepia[1][1] * g + sepia[1][2] * b;
+          double blue = sepia[2][0] * r + sepia[2][1] * g + sepia[2][2] * b;
+
+          if (red > 255 || green > 255 || blue > 255) {
+            red = 255;
+            green = 255;
+            blue = 255;
+          } else {
+            this.pixels[row][col].red = (int) red;
+            this.pixels[row][col].green = (int) green;
+            this.pixels[row][col].blue = (int) blue;
+          }
         }
       }
-    }
+    });
   }
 
 
@@ -294,22 +437,33 @@ public class ImageImpl implements Image {
             {0.393, 0.769, 0.189},
             {0.393, 0.769, 0.189}
     };
+    boolean fixed = FixedPoint.isEnabled();
+
+    Parallel.forEachStripe(this.height, (stripe, from, to) -> {
+      for (int row = from; row < to; row++) {
+        for (int col = 0; col < this.width; col++) {
+          int r = this.pixels[row][col].red;
+          int g = this.pixels[row][col].green;
+          int b = this.pixels[row][col].blue;
+
+          if (fixed) {
+            int grey = Math.min(255, FixedPoint.dot(FixedPoint.SEPIA, 0, r, g, b));
+            this.pixels[row][col].red = grey;
+            this.pixels[row][col].green = grey;
+            this.pixels[row][col].blue = grey;
+            continue;
+          }
 
-    for (int row = 0; row < this.height; row++) {
-      for (int col = 0; col < this.width; col++) {
-        int r = this.pixels[row][col].red;
-        int g = this.pixels[row][col].green;
-        int b = this.pixels[row][col].blue;
-
-        double red = Math.min(255, r * values[0][0] + g * values[0][1] + b * values[0][2]);
-        double green = Math.min(255, r * values[1][0] + g * values[1][1] + b * values[1][2]);
-        double blue = Math.min(255, r * values[1][0] + g * values[1][1] + b * values[1][2]);
+          double red = Math.min(255, r * values[0][0] + g * values[0][1] + b * values[0][2]);
+          double green = Math.min(255, r * values[1][0] + g * values[1][1] + b * values[1][2]);
+          double blue = Math.min(255, r * values[1][0] + g * values[1][1] + b * values[1][2]);
 
-        this.pixels[row][col].red = (int) (red);
-        this.pixels[row][col].green = (int) (green);
-        this.pixels[row][col].blue = (int) (blue);
+          this.pixels[row][col].red = (int) (red);
+          this.pixels[row][col].green = (int) (green);
+          this.pixels[row][col].blue = (int) (blue);
+        }
       }
-    }
+    });
   }
 
 
@@ -339,17 +493,16 @@ public class ImageImpl implements Image {
    * @return a 2D array that represents the histogram.
    */
   public int [][] histogram() {
-    int[][] h = new int[4][256];
-
-    for (Pixel[] row : this.pixels) {
-      for (Pixel p : row) {
-        h[0][p.getRed()] += 1;
-        h[1][p.getGreen()] += 1;
-        h[2][p.getBlue()] += 1;
-        h[3][(int) Math.round( (double) p.getRed() + p.getGreen() + p.getBlue()) / 3] += 1;
+    return Parallel.histogram(this.pixels.length, (from, to, h) -> {
+      for (int row = from; row < to; row++) {
+        for (Pixel p : this.pixels[row]) {
+          h[0][p.getRed()] += 1;
+          h[1][p.getGreen()] += 1;
+          h[2][p.getBlue()] += 1;
+          h[3][(int) Math.round( (double) p.getRed() + p.getGreen() + p.getBlue()) / 3] += 1;
+        }
       }
-    }
-    return h;
+    });
   }
 }
 
@@ -1,12 +1,12 @@
 package model;
 
-import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.Scanner;
-import java.io.FileNotFoundException;
 import java.io.FileInputStream;
 import javax.imageio.ImageIO;
 
@@ -24,7 +24,6 @@ public class ImageUtil {
    */
   public static Image load(String filename) {
     BufferedImage image;
-    Pixel[][] pixels;
 
     if (filename.endsWith(".ppm")) {
       return readPPM(filename);
@@ -36,76 +35,77 @@ public class ImageUtil {
       throw new IllegalArgumentException("Unable to read the file.");
     }
 
+    if (image.getType() == BufferedImage.TYPE_3BYTE_BGR) {
+      // already three bytes per pixel, so kept as planes rather than widened to packed ints
+      return compressIfUniform(PlanarImage.fromBgr(image));
+    }
+
     int width = image.getWidth();
     int height = image.getHeight();
 
-
-    pixels = new Pixel[width][height];
-
-    for (int row = 0; row < height; row++) {
-      for (int col = 0; col < width; col++) {
-        Color color = new Color(image.getRGB(col, row));
-        int red = color.getRed();
-        int green = color.getGreen();
-        int blue = color.getBlue();
-        pixels[col][row] = new Pixel(red, green, blue);
-      }
+    int[] data = image.getRGB(0, 0, width, height,
+            BufferPool.take(width * height, false), 0, width);
+    for (int i = 0; i < width * height; i++) {
+      data[i] &= 0xFFFFFF;
     }
-    return new ImageImpl(pixels);
+    return compressIfUniform(new PackedImage(width, height, data));
   }
 
   /**
-   * Read an image file in the PPM format and print the colors.
+   * Read an image file in the PPM format.
    *
    * @param filename the path of the file.
+   * @return the image
+   * @throws IllegalArgumentException if the file cannot be read or is not a valid PPM file
    */
-  public static Image readPPM(String filename) {
-    Scanner sc;
-
-    try {
-      sc = new Scanner(new FileInputStream(filename));
-    } catch (FileNotFoundException e) {
-      System.out.println("File " + filename + " not found!");
-      return null;
-    }
-    StringBuilder builder = new StringBuilder();
-    //read the file line by line, and populate a string. This will throw away any comment lines
-    while (sc.hasNextLine()) {
-      String s = sc.nextLine();
-      if (s.charAt(0) != '#') {
-        builder.append(s + System.lineSeparator());
-      }
-    }
-
-    //now set up the scanner to read from the string we just built
-    sc = new Scanner(builder.toString());
-
-    String token;
+  public static Image readPPM(String filename) throws IllegalArgumentException {
+    return compressIfUniform(PpmReader.read(filename));
+  }
 
-    token = sc.next();
-    if (!token.equals("P3")) {
-      System.out.println("Invalid PPM file: plain RAW file should begin with P3");
+  /**
+   * Returns the image held as single-colour tiles where possible if at least half of it is
+   * made of such tiles, as with scanned documents or objects shot on a plain background. Other
+   * images, and images kept off the heap, are returned as they are.
+   *
+   * @param image the image just loaded
+   * @return the image to keep
+   */
+  static Image compressIfUniform(Image image) {
+    if ((image instanceof PackedImage || image instanceof PlanarImage)
+            && TiledImage.isMostlyUniform(image)) {
+      TiledImage tiled = TiledImage.compressed(image);
+      BufferPool.release(image);
+      return tiled;
     }
-    int width = sc.nextInt();
-    System.out.println("Width of image: " + width);
-    int height = sc.nextInt();
-    System.out.println("Height of image: " + height);
-    int maxValue = sc.nextInt();
-    System.out.println("Maximum value of a color in this file (usually 255): " + maxValue);
-
-    Pixel[][] pixels = new Pixel[width][height];
+    return image;
+  }
 
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        int r = sc.nextInt();
-        int g = sc.nextInt();
-        int b = sc.nextInt();
-        pixels[j][i] = new Pixel(r, g, b);
-        //System.out.println("Color of pixel ("+j+","+i+"): "+ r+","+g+","+b);
-      }
+  /**
+   * Creates a black image of the given size, kept in a memory-mapped file if it does not fit
+   * on the heap and in a packed array otherwise.
+   *
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @return the new image
+   */
+  static Image createImage(int width, int height) {
+    if (fitsOnHeap(width, height)) {
+      return new PackedImage(width, height);
     }
+    return new MappedImage(width, height);
+  }
 
-    return new ImageImpl(pixels);
+  /**
+   * Decides whether an image of the given size should be kept on the heap. Images that would
+   * take more than a quarter of the maximum heap are kept in a memory-mapped file instead, which
+   * leaves room for the copies that operations make.
+   *
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @return true if the image should be kept on the heap
+   */
+  static boolean fitsOnHeap(int width, int height) {
+    return 4L * width * height <= Runtime.getRuntime().maxMemory() / 4;
   }
 
   /**
@@ -127,24 +127,20 @@ public class ImageUtil {
       return;
     }
 
-    BufferedImage toSave = new BufferedImage(image.getWidth(), image.getHeight(),
-            BufferedImage.TYPE_INT_RGB);
-
-    Pixel[][] pixels = image.getPixels();
-
-    for (int row = 0; row < image.getHeight(); row++) {
-      for (int col = 0; col < image.getWidth(); col++) {
-        // what i had int red = pixels[row][col].getRed();
-        int red = pixels[col][row].getRed();
-        // int green = pixels[row][col].getGreen();
-        int green = pixels[col][row].getGreen();
-        // int blue = pixels[row][col].getBlue();
-        int blue = pixels[col][row].getBlue();//rec
-        int color = (red << 16) + (green << 8) + blue;
-        toSave.setRGB(col, row, color);
-      }
+    if (image instanceof PlanarImage) {
+      write(((PlanarImage) image).toBufferedImage(), type, filename);
+      return;
+    }
+    //the pixels are only needed until they are written, so they can go back to the pool
+    int[] data = BufferPool.take(image.getWidth() * image.getHeight(), false);
+    try {
+      write(toBufferedImage(image, data), type, filename);
+    } finally {
+      BufferPool.give(data);
     }
+  }
 
+  private static void write(BufferedImage toSave, String type, String filename) {
     try {
       ImageIO.write(toSave, type, new File(filename));
     } catch (IOException e) {
@@ -153,70 +149,71 @@ public class ImageUtil {
   }
 
   /**
-   * Write an image file in the PPM format.
+   * Write an image file in the given PPM format.
    *
    * @param fileName the path of the file.
    * @param image    the image to write.
+   * @param format   the format, plain or binary.
+   * @throws IllegalStateException if the file cannot be written
    */
-  public static void writePPM(String fileName, Image image) {
-
-    try {
-      Pixel[][] pixels = image.getPixels();
-      int width = pixels.length;
-      //int width = image.getWidth();
-      int height = pixels[0].length;
-      //int height = image.getHeight();
-
-      FileWriter fwriter = new FileWriter(fileName);
-
-      fwriter.write("P3\n");
-      fwriter.write("# Created by CS3500 students Julia Ouritskaya and Evelyn Robert\n");
-      fwriter.write(String.valueOf(width));
-      fwriter.write(' ');
-      fwriter.write(String.valueOf(height));
-      fwriter.write('\n');
-      fwriter.write(String.valueOf(255));
-      fwriter.write('\n'); // max val
+  public static void writePPM(String fileName, Image image, PpmFormat format)
+          throws IllegalStateException {
+    PpmWriter.write(fileName, image, format);
+  }
 
-      for (int i = 0; i < height; i++) {
-        for (int j = 0; j < width; j++) {
-          fwriter.write(String.valueOf(pixels[j][i].getRed()));
-          fwriter.write('\n');
-          fwriter.write(String.valueOf(pixels[j][i].getGreen()));
-          fwriter.write('\n');
-          fwriter.write(String.valueOf(pixels[j][i].getBlue()));
-          fwriter.write('\n');
-        }
-      }
-      fwriter.close();
-    } catch (IOException e) {
-      System.out.println("An error occurred");
-      throw new IllegalStateException("An file write error occurred");
-    }
+  /**
+   * Write an image file in the plain PPM format.
+   *
+   * @param fileName the path of the file.
+   * @param image    the image to write.
+   * @throws IllegalStateException if the file cannot be written
+   */
+  public static void writePPM(String fileName, Image image) throws IllegalStateException {
+    PpmWriter.write(fileName, image, PpmFormat.PLAIN);
   }
 
   /**
-   * Creates a new copy of the image.
+   * Creates a new copy of the image. Copies of packed, planar, mapped, tiled, grey, remapped and
+   * recoloured images share the original's pixel storage until either image is written, so
+   * copying them is cheap.
    * @param image the image to clone
    * @return the cloned image
    */
   public static Image cloneImage(Image image) {
-    Pixel[][] pixels = image.getPixels();
-    int width = pixels.length;
-    int height = pixels[0].length;
+    if (image instanceof PackedImage) {
+      return new PackedImage((PackedImage) image);
+    }
+    if (image instanceof PlanarImage) {
+      return new PlanarImage((PlanarImage) image);
+    }
+    if (image instanceof MappedImage) {
+      return new MappedImage((MappedImage) image);
+    }
+    if (image instanceof TiledImage) {
+      return new TiledImage((TiledImage) image);
+    }
+    if (image instanceof GreyImage) {
+      return new GreyImage((GreyImage) image);
+    }
+    if (image instanceof RemappedImage) {
+      return ((RemappedImage) image).copy();
+    }
+    if (image instanceof RecoloredImage) {
+      return ((RecoloredImage) image).copy();
+    }
 
-    Pixel[][] pixels2 = new Pixel[width][height];
+    // other images are copied a row at a time, without making a Pixel per pixel
+    int width = image.getWidth();
+    int height = image.getHeight();
+    PackedImage copy = new PackedImage(width, height);
+    int[] row = new int[width];
 
     for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        int r = pixels[j][i].getRed();
-        int g = pixels[j][i].getGreen();
-        int b = pixels[j][i].getBlue();
-        pixels2[j][i] = new Pixel(r, g, b);
-      }
+      image.getRow(i, row);
+      copy.setRow(i, row);
     }
 
-    return new ImageImpl(pixels2);
+    return copy;
   }
 
   /**
@@ -225,21 +222,31 @@ public class ImageUtil {
    * @return a BufferedImage.
    */
   public static BufferedImage image2BufferedImage(Image image) {
-    Pixel[][] pixels = image.getPixels();
-    int width = pixels.length;
-    int height = pixels[0].length;
+    if (image instanceof PlanarImage) {
+      return ((PlanarImage) image).toBufferedImage();
+    }
+    return toBufferedImage(image, new int[image.getWidth() * image.getHeight()]);
+  }
 
-    BufferedImage bImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+  /**
+   * Copies an image into a BufferedImage that keeps its pixels in the given array, as 0xRRGGBB
+   * ints row by row, like one of type TYPE_INT_RGB.
+   */
+  private static BufferedImage toBufferedImage(Image image, int[] data) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int[] row = new int[width];
 
     for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        bImage.setRGB(j, i,
-                (pixels[j][i].getRed() << 16) +
-                        (pixels[j][i].getGreen() << 8) +
-                        pixels[j][i].getBlue());
-      }
+      image.getRow(i, row);
+      System.arraycopy(row, 0, data, i * width, width);
     }
-    return bImage;
+
+    int[] masks = {0xFF0000, 0xFF00, 0xFF};
+    WritableRaster raster = Raster.createPackedRaster(
+            new DataBufferInt(data, width * height), width, height, width, masks, null);
+    return new BufferedImage(new DirectColorModel(24, masks[0], masks[1], masks[2]),
+            raster, false, null);
   }
 
   /**
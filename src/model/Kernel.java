@@ -0,0 +1,318 @@
+package model;
+
+/**
+ * This class represents a square, odd-sized convolution kernel and applies it to rows of
+ * pixels. Neighbours outside the image are skipped, as if the image were surrounded by black.
+ *
+ * <p>When the kernel is the outer product of a column and a row, as the blur kernel is, it is
+ * applied as two one-dimensional passes: a column pass down the source rows and then a row
+ * pass across the result. That costs 2K multiplications per pixel instead of K * K, and gives
+ * the same sums because skipping neighbours outside the image removes whole rows and columns
+ * of the kernel at once.
+ *
+ * <p>In {@link FixedPoint} mode the kernel is applied directly with its weights scaled to
+ * 16.16 fixed point, summing in ints.
+ */
+final class Kernel {
+  static final Kernel BLUR = new Kernel(new double[][]{
+      {1.0 / 16.0, 1.0 / 8.0, 1.0 / 16.0},
+      {1.0 / 8.0, 1.0 / 4.0, 1.0 / 8.0},
+      {1.0 / 16.0, 1.0 / 8.0, 1.0 / 16.0}
+  });
+
+  static final Kernel SHARPEN = new Kernel(new double[][]{
+      {-0.125, -0.125, -0.125, -0.125, -0.125},
+      {-0.125, 0.25, 0.25, 0.25, -0.125},
+      {-0.125, 0.25, 1.0, 0.25, -0.125},
+      {-0.125, 0.25, 0.25, 0.25, -0.125},
+      {-0.125, -0.125, -0.125, -0.125, -0.125}
+  });
+
+  private final double[][] weights;
+  private final double[] column;
+  private final double[] row;
+  private final int[][] fixed;
+
+  /**
+   * Creates a kernel from the given weights, working out whether it can be applied as two
+   * one-dimensional passes.
+   *
+   * @param weights the weights, indexed by row and then column
+   * @throws IllegalArgumentException if the weights are not square with an odd size
+   */
+  Kernel(double[][] weights) throws IllegalArgumentException {
+    if (weights == null || weights.length % 2 == 0) {
+      throw new IllegalArgumentException("Kernel must be square with an odd size.");
+    }
+    for (double[] weightRow : weights) {
+      if (weightRow.length != weights.length) {
+        throw new IllegalArgumentException("Kernel must be square with an odd size.");
+      }
+    }
+    this.weights = weights;
+
+    // a separable kernel is one pivot row scaled by the pivot column
+    int pivotRow = 0;
+    int pivotColumn = 0;
+    for (int i = 0; i < weights.length; i++) {
+      for (int j = 0; j < weights.length; j++) {
+        if (Math.abs(weights[i][j]) > Math.abs(weights[pivotRow][pivotColumn])) {
+          pivotRow = i;
+          pivotColumn = j;
+        }
+      }
+    }
+    double pivot = weights[pivotRow][pivotColumn];
+    double[] column = new double[weights.length];
+    double[] row = weights[pivotRow].clone();
+    boolean separable = pivot != 0;
+    for (int i = 0; i < weights.length && separable; i++) {
+      column[i] = weights[i][pivotColumn] / pivot;
+      for (int j = 0; j < weights.length && separable; j++) {
+        separable = Math.abs(weights[i][j] - column[i] * row[j]) <= 1e-12 * Math.abs(pivot);
+      }
+    }
+    this.column = separable ? column : null;
+    this.row = separable ? row : null;
+
+    // the fixed-point weights are only used when no sum of products can overflow an int
+    int[][] fixed = new int[weights.length][weights.length];
+    long largest = 0;
+    for (int i = 0; i < weights.length; i++) {
+      for (int j = 0; j < weights.length; j++) {
+        fixed[i][j] = FixedPoint.scale(weights[i][j]);
+        largest += 255L * Math.abs((long) fixed[i][j]);
+      }
+    }
+    this.fixed = largest <= Integer.MAX_VALUE ? fixed : null;
+  }
+
+  /**
+   * Creates a separable kernel from its column and row factors.
+   *
+   * @param column the weights down the kernel
+   * @param row    the weights across the kernel
+   * @throws IllegalArgumentException if the factors differ in size or the size is even
+   */
+  static Kernel separable(double[] column, double[] row) throws IllegalArgumentException {
+    if (column.length != row.length) {
+      throw new IllegalArgumentException("Kernel must be square with an odd size.");
+    }
+    double[][] weights = new double[column.length][column.length];
+    for (int i = 0; i < column.length; i++) {
+      for (int j = 0; j < row.length; j++) {
+        weights[i][j] = column[i] * row[j];
+      }
+    }
+    return new Kernel(weights);
+  }
+
+  /**
+   * Returns the width and height of the kernel.
+   *
+   * @return the size of the kernel
+   */
+  int size() {
+    return this.weights.length;
+  }
+
+  /**
+   * Returns whether the kernel is applied as two one-dimensional passes.
+   *
+   * @return true if the kernel is separable
+   */
+  boolean isSeparable() {
+    return this.row != null;
+  }
+
+  /**
+   * Computes one output row of a convolution over packed 0xRRGGBB pixels.
+   *
+   * @param src       the array holding the source rows
+   * @param rowStarts for each kernel row, the offset of the matching source row in src, or -1
+   *                  if that row is outside the image
+   * @param width     the width of a row
+   * @param dst       the array to write the result to
+   * @param dstOffset the offset of the output row in dst
+   * @param scratch   working space of at least three times the width
+   */
+  void convolveRow(int[] src, int[] rowStarts, int width, int[] dst, int dstOffset,
+                   double[] scratch) {
+    if (this.fixed != null && FixedPoint.isEnabled()) {
+      convolveFixedRow(src, rowStarts, width, dst, dstOffset);
+      return;
+    }
+    if (isSeparable()) {
+      convolveSeparableRow(src, rowStarts, width, dst, dstOffset, scratch);
+      return;
+    }
+    int bounds = this.weights.length / 2;
+    for (int x = 0; x < width; x++) {
+      double r = 0;
+      double g = 0;
+      double b = 0;
+
+      for (int j = 0; j < this.weights.length; j++) {
+        int rowStart = rowStarts[j];
+        if (rowStart < 0) {
+          continue;
+        }
+        double[] weights = this.weights[j];
+        for (int k = -bounds; k <= bounds; k++) {
+          int xx = x + k;
+          if (xx < 0 || xx >= width) {
+            continue;
+          }
+          int p = src[rowStart + xx];
+          double weight = weights[k + bounds];
+          r += ((p >> 16) & 0xFF) * weight;
+          g += ((p >> 8) & 0xFF) * weight;
+          b += (p & 0xFF) * weight;
+        }
+      }
+      dst[dstOffset + x] = PixelOps.pack(PixelOps.truncate(r), PixelOps.truncate(g),
+              PixelOps.truncate(b));
+    }
+  }
+
+  private void convolveFixedRow(int[] src, int[] rowStarts, int width, int[] dst,
+                                int dstOffset) {
+    int bounds = this.fixed.length / 2;
+    for (int x = 0; x < width; x++) {
+      int r = 0;
+      int g = 0;
+      int b = 0;
+      int first = Math.max(-bounds, -x);
+      int last = Math.min(bounds, width - 1 - x);
+      for (int j = 0; j < this.fixed.length; j++) {
+        int rowStart = rowStarts[j];
+        if (rowStart < 0) {
+          continue;
+        }
+        int[] weights = this.fixed[j];
+        for (int k = first; k <= last; k++) {
+          int p = src[rowStart + x + k];
+          int weight = weights[k + bounds];
+          r += ((p >> 16) & 0xFF) * weight;
+          g += ((p >> 8) & 0xFF) * weight;
+          b += (p & 0xFF) * weight;
+        }
+      }
+      dst[dstOffset + x] = PixelOps.pack(FixedPoint.toChannel(r), FixedPoint.toChannel(g),
+              FixedPoint.toChannel(b));
+    }
+  }
+
+  private void convolveSeparableRow(int[] src, int[] rowStarts, int width, int[] dst,
+                                    int dstOffset, double[] scratch) {
+    // column pass: each channel of each column of the window, summed down the kernel
+    for (int x = 0; x < width; x++) {
+      double r = 0;
+      double g = 0;
+      double b = 0;
+      for (int j = 0; j < this.column.length; j++) {
+        if (rowStarts[j] < 0) {
+          continue;
+        }
+        int p = src[rowStarts[j] + x];
+        double weight = this.column[j];
+        r += ((p >> 16) & 0xFF) * weight;
+        g += ((p >> 8) & 0xFF) * weight;
+        b += (p & 0xFF) * weight;
+      }
+      scratch[x] = r;
+      scratch[width + x] = g;
+      scratch[2 * width + x] = b;
+    }
+
+    // row pass across the column sums
+    int bounds = this.row.length / 2;
+    for (int x = 0; x < width; x++) {
+      double r = 0;
+      double g = 0;
+      double b = 0;
+      for (int k = Math.max(-bounds, -x); k <= bounds && x + k < width; k++) {
+        double weight = this.row[k + bounds];
+        r += scratch[x + k] * weight;
+        g += scratch[width + x + k] * weight;
+        b += scratch[2 * width + x + k] * weight;
+      }
+      dst[dstOffset + x] = PixelOps.pack(PixelOps.truncate(r), PixelOps.truncate(g),
+              PixelOps.truncate(b));
+    }
+  }
+
+  /**
+   * Applies the kernel to a plane holding one byte per pixel, in parallel stripes of rows.
+   *
+   * @param plane  the plane to read
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @return a new plane holding the result
+   */
+  byte[] convolvePlane(byte[] plane, int width, int height) {
+    byte[] result = new byte[width * height];
+    Parallel.forEachStripe(height, (stripe, from, to) ->
+            convolvePlaneRows(plane, width, height, result, from, to));
+    return result;
+  }
+
+  private void convolvePlaneRows(byte[] plane, int width, int height, byte[] result, int from,
+                                 int to) {
+    int bounds = this.weights.length / 2;
+    double[] sums = isSeparable() ? new double[width] : null;
+    boolean fixed = this.fixed != null && FixedPoint.isEnabled();
+
+    for (int y = from; y < to; y++) {
+      if (fixed) {
+        for (int x = 0; x < width; x++) {
+          int sum = 0;
+          for (int j = Math.max(-bounds, -y); j <= bounds && y + j < height; j++) {
+            int[] weights = this.fixed[j + bounds];
+            int rowStart = (y + j) * width;
+            for (int k = Math.max(-bounds, -x); k <= bounds && x + k < width; k++) {
+              sum += (plane[rowStart + x + k] & 0xFF) * weights[k + bounds];
+            }
+          }
+          result[y * width + x] = (byte) FixedPoint.toChannel(sum);
+        }
+        continue;
+      }
+      if (isSeparable()) {
+        for (int x = 0; x < width; x++) {
+          double sum = 0;
+          for (int j = Math.max(-bounds, -y); j <= bounds && y + j < height; j++) {
+            sum += (plane[(y + j) * width + x] & 0xFF) * this.column[j + bounds];
+          }
+          sums[x] = sum;
+        }
+        for (int x = 0; x < width; x++) {
+          double sum = 0;
+          for (int k = Math.max(-bounds, -x); k <= bounds && x + k < width; k++) {
+            sum += sums[x + k] * this.row[k + bounds];
+          }
+          result[y * width + x] = (byte) PixelOps.truncate(sum);
+        }
+        continue;
+      }
+      for (int x = 0; x < width; x++) {
+        double sum = 0;
+        for (int j = -bounds; j <= bounds; j++) {
+          int yy = y + j;
+          if (yy < 0 || yy >= height) {
+            continue;
+          }
+          double[] weights = this.weights[j + bounds];
+          int rowStart = yy * width;
+          for (int k = -bounds; k <= bounds; k++) {
+            int xx = x + k;
+            if (xx >= 0 && xx < width) {
+              sum += (plane[rowStart + xx] & 0xFF) * weights[k + bounds];
+            }
+          }
+        }
+        result[y * width + x] = (byte) PixelOps.truncate(sum);
+      }
+    }
+  }
+}
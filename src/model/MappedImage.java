@@ -0,0 +1,504 @@
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class represents an image whose pixels live in a memory-mapped file instead of on the
+ * heap. Each pixel takes three bytes (red, green, blue) and the pixels are laid out row by row.
+ * The operating system pages the file in and out as needed, so an image can be much larger
+ * than the heap; operations only keep a few rows on the heap at a time.
+ *
+ * <p>A mapping is limited to 2 GB, so the rows are split into bands that are mapped
+ * separately. The backing file is a temporary file, deleted when the last image sharing it is
+ * released, or, for an image loaded from a binary PPM file, the PPM file itself, mapped
+ * read-only: its pixels are laid out the same way, so loading reads nothing, and the first
+ * write copies the pixels into a temporary file.
+ *
+ * <p>Pixels are addressed the same way {@link ImageUtil} builds them: the first index of
+ * {@link #getPixels()} is the x position and the second index is the y position.
+ */
+public class MappedImage implements Image {
+  private static final long MAX_BAND_BYTES = 1L << 30;
+
+  private final int width;
+  private final int height;
+  private final int rowsPerBand;
+  private MappedByteBuffer[] bands;
+  private File file;
+  private AtomicInteger owners;
+
+  /**
+   * Creates a black image of the given size backed by a new temporary file.
+   *
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @throws IllegalArgumentException if the width or height is not positive
+   * @throws IllegalStateException    if the backing file cannot be created or mapped
+   */
+  public MappedImage(int width, int height)
+          throws IllegalArgumentException, IllegalStateException {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("Width and height must be positive.");
+    }
+    this.width = width;
+    this.height = height;
+    this.rowsPerBand = (int) Math.max(1, Math.min(height, MAX_BAND_BYTES / (3L * width)));
+    mapNewFile();
+  }
+
+  /**
+   * Creates an image whose pixels are the bytes of the given file from the given offset on,
+   * three per pixel, row by row. The file is mapped read-only and is not the image's own, so
+   * it is never written or deleted: the first write copies the pixels into a file of the
+   * image's own.
+   *
+   * @param width   the width of the image
+   * @param height  the height of the image
+   * @param channel the file, open for reading, which may be closed once the image is made
+   * @param offset  where in the file the first pixel starts
+   * @throws IllegalStateException if the file cannot be mapped
+   */
+  MappedImage(int width, int height, FileChannel channel, long offset)
+          throws IllegalStateException {
+    this.width = width;
+    this.height = height;
+    this.rowsPerBand = (int) Math.max(1, Math.min(height, MAX_BAND_BYTES / (3L * width)));
+    try {
+      this.bands = mapBands(channel, FileChannel.MapMode.READ_ONLY, offset);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to map image storage: " + e.getMessage());
+    }
+    this.file = null;
+    this.owners = new AtomicInteger(1);
+  }
+
+  /**
+   * Creates a copy of the given image that shares its backing file. The images count how
+   * many of them share the file, and whichever is written to while it is shared copies the
+   * pixels into a file of its own.
+   *
+   * @param other the image to copy
+   */
+  MappedImage(MappedImage other) {
+    this.width = other.width;
+    this.height = other.height;
+    this.rowsPerBand = other.rowsPerBand;
+    this.bands = other.bands;
+    this.file = other.file;
+    this.owners = other.owners;
+    this.owners.incrementAndGet();
+  }
+
+  /**
+   * Maps a new temporary file big enough for this image, one band of rows at a time, as the
+   * image's own storage. The channel is closed once the bands are mapped; the mappings stay
+   * valid without it.
+   *
+   * @throws IllegalStateException if the file cannot be created or mapped
+   */
+  private void mapNewFile() throws IllegalStateException {
+    try {
+      File created = File.createTempFile("image", ".rgb");
+      try (RandomAccessFile raf = new RandomAccessFile(created, "rw")) {
+        this.bands = mapBands(raf.getChannel(), FileChannel.MapMode.READ_WRITE, 0);
+      } catch (IOException e) {
+        deleteFile(created);
+        throw e;
+      }
+      // released images delete their file; this only catches images never released
+      created.deleteOnExit();
+      this.file = created;
+      this.owners = new AtomicInteger(1);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to map image storage: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Maps the pixels of this image, one band of rows at a time, from the given offset of the
+   * file open in the given channel.
+   *
+   * @return the mapped bands
+   * @throws IOException if the file cannot be mapped
+   */
+  private MappedByteBuffer[] mapBands(FileChannel channel, FileChannel.MapMode mode,
+                                      long offset) throws IOException {
+    MappedByteBuffer[] mapped =
+            new MappedByteBuffer[(this.height + this.rowsPerBand - 1) / this.rowsPerBand];
+    long rowLength = 3L * this.width;
+    for (int band = 0; band < mapped.length; band++) {
+      int rows = Math.min(this.rowsPerBand, this.height - band * this.rowsPerBand);
+      mapped[band] = channel.map(mode, offset + band * this.rowsPerBand * rowLength,
+              rows * rowLength);
+    }
+    return mapped;
+  }
+
+  /**
+   * Copies the pixels into a file of this image's own before they are written, if another
+   * image shares the current file or the file is not the image's own. The old file is
+   * deleted if no image shares it any more.
+   */
+  private void ensureWritable() {
+    if (this.file == null || this.owners.get() > 1) {
+      MappedByteBuffer[] old = this.bands;
+      File oldFile = this.file;
+      AtomicInteger oldOwners = this.owners;
+      mapNewFile();
+      for (int band = 0; band < old.length; band++) {
+        ByteBuffer src = old[band].duplicate();
+        src.clear();
+        this.bands[band].duplicate().put(src);
+      }
+      if (oldOwners.decrementAndGet() == 0) {
+        deleteFile(oldFile);
+      }
+    }
+  }
+
+  /**
+   * Gives up this image's backing file, dropping its mappings and deleting the file unless
+   * another image still shares it. A file the image was loaded from is never deleted. The
+   * image must not be used afterwards.
+   */
+  void release() {
+    if (this.bands != null) {
+      if (this.owners.decrementAndGet() == 0) {
+        deleteFile(this.file);
+      }
+      this.bands = null;
+      this.file = null;
+    }
+  }
+
+  /**
+   * Deletes a temporary file, leaving it to be deleted on exit if the system will not delete
+   * it while it is mapped.
+   */
+  private static void deleteFile(File file) {
+    if (file != null && !file.delete()) {
+      file.deleteOnExit();
+    }
+  }
+
+  /**
+   * Reads one row of pixels as packed 0xRRGGBB ints. The bytes are read at absolute positions,
+   * so no buffer views are created and several threads may read at once.
+   *
+   * @param y      the row to read
+   * @param dst    the array to read into
+   * @param offset where in the array the row starts
+   */
+  void readRow(int y, int[] dst, int offset) {
+    MappedByteBuffer band = this.bands[y / this.rowsPerBand];
+    int index = (y % this.rowsPerBand) * 3 * this.width;
+    for (int x = 0; x < this.width; x++, index += 3) {
+      dst[offset + x] = PixelOps.pack(band.get(index) & 0xFF,
+              band.get(index + 1) & 0xFF, band.get(index + 2) & 0xFF);
+    }
+  }
+
+  /**
+   * Writes one row of pixels given as packed 0xRRGGBB ints.
+   *
+   * @param y      the row to write
+   * @param src    the array to write from
+   * @param offset where in the array the row starts
+   */
+  void writeRow(int y, int[] src, int offset) {
+    ensureWritable();
+    MappedByteBuffer band = this.bands[y / this.rowsPerBand];
+    int index = (y % this.rowsPerBand) * 3 * this.width;
+    for (int x = 0; x < this.width; x++, index += 3) {
+      int p = src[offset + x];
+      band.put(index, (byte) (p >> 16));
+      band.put(index + 1, (byte) (p >> 8));
+      band.put(index + 2, (byte) p);
+    }
+  }
+
+  /**
+   * An operation on one row of packed pixels.
+   */
+  private interface RowOperation {
+    void apply(int[] row, int from, int to);
+  }
+
+  private void forEachRow(RowOperation operation) {
+    // copy shared bands before the stripes start writing to them
+    ensureWritable();
+    Parallel.forEachStripe(this.height, (stripe, from, to) -> {
+      int[] row = new int[this.width];
+      for (int y = from; y < to; y++) {
+        readRow(y, row, 0);
+        operation.apply(row, 0, this.width);
+        writeRow(y, row, 0);
+      }
+    });
+  }
+
+  /**
+   * Mirrors the image left to right.
+   */
+  @Override
+  public void flipHorizontal() {
+    forEachRow(PixelOps::reverse);
+  }
+
+  /**
+   * Mirrors the image top to bottom.
+   */
+  @Override
+  public void flipVertical() {
+    int[] top = new int[this.width];
+    int[] bottom = new int[this.width];
+    int first = 0;
+    int last = this.height - 1;
+    while (first < last) {
+      readRow(first, top, 0);
+      readRow(last, bottom, 0);
+      writeRow(first, bottom, 0);
+      writeRow(last, top, 0);
+      first++;
+      last--;
+    }
+  }
+
+  /**
+   * Method to brighten or darken and image.
+   *
+   * @param component how much you want the image to be lightened or darkened.
+   */
+  @Override
+  public void brighten(int component) {
+    forEachRow((row, from, to) -> PixelOps.brighten(row, from, to, component));
+  }
+
+  /**
+   * Method to turn an image into greyscale using an inputted component.
+   *
+   * @param type the desired component, either luma, value, intensity red, green or blue.
+   * @throws IllegalArgumentException if the component is not one of the above
+   */
+  @Override
+  public void component(String type) throws IllegalArgumentException {
+    forEachRow((row, from, to) -> PixelOps.component(row, from, to, type));
+  }
+
+  /**
+   * Returns a copy of the pixels that make up the image, indexed by x and then y. This puts
+   * the whole image on the heap, so it should be avoided for very large images.
+   *
+   * @return the pixels that make up the image
+   */
+  @Override
+  public Pixel[][] getPixels() {
+    Pixel[][] pixels = new Pixel[this.width][this.height];
+    int[] row = new int[this.width];
+    for (int y = 0; y < this.height; y++) {
+      readRow(y, row, 0);
+      for (int x = 0; x < this.width; x++) {
+        int p = row[x];
+        pixels[x][y] = new Pixel((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF);
+      }
+    }
+    return pixels;
+  }
+
+  /**
+   * Returns the pixel at the specified position, indexed like {@link #getPixels()}.
+   *
+   * @param row the x position of the pixel
+   * @param col the y position of the pixel
+   * @return the pixel at the specified position
+   * @throws IllegalArgumentException if the position is outside the image
+   */
+  @Override
+  public Pixel getPixelAt(int row, int col) throws IllegalArgumentException {
+    if (row < 0 || row >= this.width || col < 0 || col >= this.height) {
+      throw new IllegalArgumentException("Invalid pixel.");
+    }
+    MappedByteBuffer band = this.bands[col / this.rowsPerBand];
+    int index = ((col % this.rowsPerBand) * this.width + row) * 3;
+    return new Pixel(band.get(index) & 0xFF, band.get(index + 1) & 0xFF,
+            band.get(index + 2) & 0xFF);
+  }
+
+  /**
+   * Returns the pixel at the specified position packed as 0xRRGGBB.
+   *
+   * @param x the x position of the pixel
+   * @param y the y position of the pixel
+   * @return the packed pixel
+   * @throws IllegalArgumentException if the position is outside the image
+   */
+  @Override
+  public int getRGB(int x, int y) throws IllegalArgumentException {
+    PixelOps.checkPosition(x, y, this.width, this.height);
+    MappedByteBuffer band = this.bands[y / this.rowsPerBand];
+    int index = ((y % this.rowsPerBand) * this.width + x) * 3;
+    return PixelOps.pack(band.get(index) & 0xFF, band.get(index + 1) & 0xFF,
+            band.get(index + 2) & 0xFF);
+  }
+
+  /**
+   * Sets the pixel at the specified position from a packed 0xRRGGBB value.
+   *
+   * @param x   the x position of the pixel
+   * @param y   the y position of the pixel
+   * @param rgb the packed pixel
+   * @throws IllegalArgumentException if the position is outside the image
+   */
+  @Override
+  public void setRGB(int x, int y, int rgb) throws IllegalArgumentException {
+    PixelOps.checkPosition(x, y, this.width, this.height);
+    ensureWritable();
+    MappedByteBuffer band = this.bands[y / this.rowsPerBand];
+    int index = ((y % this.rowsPerBand) * this.width + x) * 3;
+    band.put(index, (byte) (rgb >> 16));
+    band.put(index + 1, (byte) (rgb >> 8));
+    band.put(index + 2, (byte) rgb);
+  }
+
+  /**
+   * Copies one row of the image into the given array as packed 0xRRGGBB values.
+   *
+   * @param y   the row to copy
+   * @param dst the array to copy into
+   * @throws IllegalArgumentException if the row is outside the image or the array is too short
+   */
+  @Override
+  public void getRow(int y, int[] dst) throws IllegalArgumentException {
+    PixelOps.checkRow(y, dst, this.width, this.height);
+    readRow(y, dst, 0);
+  }
+
+  /**
+   * Sets one row of the image from the given array of packed 0xRRGGBB values.
+   *
+   * @param y   the row to set
+   * @param src the array to copy from
+   * @throws IllegalArgumentException if the row is outside the image or the array is too short
+   */
+  @Override
+  public void setRow(int y, int[] src) throws IllegalArgumentException {
+    PixelOps.checkRow(y, src, this.width, this.height);
+    writeRow(y, src, 0);
+  }
+
+  /**
+   * Returns the width of the image.
+   *
+   * @return the width of the image
+   */
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * Returns the height of the image.
+   *
+   * @return the height of the image
+   */
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  /**
+   * Method to add a blur filter to an image.
+   */
+  @Override
+  public void blur() {
+    convolve(Kernel.BLUR);
+  }
+
+  /**
+   * Method to blur an image by the given radius.
+   *
+   * @param radius the radius of the blur, about its standard deviation in pixels
+   * @throws IllegalArgumentException if the radius is negative
+   */
+  @Override
+  public void blur(int radius) throws IllegalArgumentException {
+    BoxBlur.apply(this, radius);
+  }
+
+  /**
+   * Method to add sharpen filter to an image.
+   */
+  @Override
+  public void sharpen() {
+    convolve(Kernel.SHARPEN);
+  }
+
+  /**
+   * Applies the given kernel to every pixel. Only a window of kernel-height source rows is kept
+   * on the heap; a source row is loaded before any row it contributes to is overwritten.
+   *
+   * @param kernel the kernel to apply
+   */
+  private void convolve(Kernel kernel) {
+    int size = kernel.size();
+    int bounds = size / 2;
+    int[] window = new int[size * this.width];
+    int[] rowStarts = new int[size];
+    int[] result = new int[this.width];
+    double[] scratch = new double[3 * this.width];
+
+    for (int y = 0; y < Math.min(bounds, this.height); y++) {
+      readRow(y, window, (y % size) * this.width);
+    }
+    for (int y = 0; y < this.height; y++) {
+      int next = y + bounds;
+      if (next < this.height) {
+        readRow(next, window, (next % size) * this.width);
+      }
+      for (int j = 0; j < size; j++) {
+        int yy = y + j - bounds;
+        rowStarts[j] = yy < 0 || yy >= this.height ? -1 : (yy % size) * this.width;
+      }
+      kernel.convolveRow(window, rowStarts, this.width, result, 0, scratch);
+      writeRow(y, result, 0);
+    }
+  }
+
+  /**
+   * Method to add a sepia filter to an image.
+   */
+  @Override
+  public void sepia() {
+    forEachRow(PixelOps::sepia);
+  }
+
+  /**
+   * Method to convert a color image into a greyscale image.
+   */
+  @Override
+  public void greyscale() {
+    forEachRow(PixelOps::greyscale);
+  }
+
+  /**
+   * Creates a 2D array of the RGB value components and how frequently they occur.
+   *
+   * @return a 2D array that represents the histogram.
+   */
+  @Override
+  public int[][] histogram() {
+    return Parallel.histogram(this.height, (from, to, h) -> {
+      int[] row = new int[this.width];
+      for (int y = from; y < to; y++) {
+        readRow(y, row, 0);
+        PixelOps.histogram(row, 0, this.width, h);
+      }
+    });
+  }
+}
@@ -0,0 +1,414 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class represents an image whose pixels are packed into a single int array. Each pixel
+ * is stored as 0xRRGGBB and the pixels are laid out row by row, so the whole image is one
+ * contiguous block of memory instead of one object per pixel.
+ *
+ * <p>Pixels are addressed the same way {@link ImageUtil} builds them: the first index of
+ * {@link #getPixels()} is the x position and the second index is the y position.
+ */
+public class PackedImage implements Image {
+  private int[] data;
+  private AtomicInteger owners;
+  private final int width;
+  private final int height;
+
+  /**
+   * Creates a black image of the given size. The pixel array may come from the
+   * {@link BufferPool}.
+   *
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @throws IllegalArgumentException if the width or height is not positive
+   */
+  public PackedImage(int width, int height) throws IllegalArgumentException {
+    this(width, height, BufferPool.take(checkSize(width, height), true));
+  }
+
+  /**
+   * Creates an image over the given packed pixel data. The array is used directly, not copied.
+   *
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @param data   the pixels as 0xRRGGBB values, row by row
+   * @throws IllegalArgumentException if the size is not positive or the data is too short
+   */
+  public PackedImage(int width, int height, int[] data) throws IllegalArgumentException {
+    int size = checkSize(width, height);
+    if (data == null || data.length < size) {
+      throw new IllegalArgumentException("Pixel data must hold width * height pixels.");
+    }
+    this.width = width;
+    this.height = height;
+    this.data = data;
+    this.owners = new AtomicInteger(1);
+  }
+
+  /**
+   * Creates an image from a 2D array of pixels indexed by x and then y.
+   *
+   * @param pixels the 2D array representing the pixels that make up the image
+   * @throws IllegalArgumentException if the pixels are null, empty or not rectangular
+   */
+  public PackedImage(Pixel[][] pixels) throws IllegalArgumentException {
+    if (pixels == null || pixels.length < 1 || pixels[0].length < 1) {
+      throw new IllegalArgumentException("Pixels must be non-null and contain elements.");
+    }
+    this.width = pixels.length;
+    this.height = pixels[0].length;
+    this.data = new int[this.width * this.height];
+    this.owners = new AtomicInteger(1);
+    for (int x = 0; x < this.width; x++) {
+      if (pixels[x].length != this.height) {
+        throw new IllegalArgumentException("Number of pixels in each row is not the same.");
+      }
+      for (int y = 0; y < this.height; y++) {
+        Pixel p = pixels[x][y];
+        this.data[y * this.width + x] = PixelOps.pack(p.getRed(), p.getGreen(), p.getBlue());
+      }
+    }
+  }
+
+  /**
+   * Creates a copy of the given image that shares its pixel data. The images count how many
+   * of them share the data, and whichever is written to while it is shared takes its own copy.
+   *
+   * @param other the image to copy
+   */
+  PackedImage(PackedImage other) {
+    this.width = other.width;
+    this.height = other.height;
+    this.data = other.data;
+    this.owners = other.owners;
+    this.owners.incrementAndGet();
+  }
+
+  private static int checkSize(int width, int height) {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("Width and height must be positive.");
+    }
+    return width * height;
+  }
+
+  /**
+   * Returns the pixel data for writing, copying it first if another image shares it.
+   */
+  private int[] writableData() {
+    if (this.owners.get() > 1) {
+      int[] copy = BufferPool.take(this.width * this.height, false);
+      System.arraycopy(this.data, 0, copy, 0, this.width * this.height);
+      replaceData(copy);
+    }
+    return this.data;
+  }
+
+  /**
+   * Switches the image to the given pixel data, which it alone owns. The old data goes back to
+   * the {@link BufferPool} unless another image still shares it.
+   */
+  private void replaceData(int[] newData) {
+    if (this.owners.decrementAndGet() == 0) {
+      BufferPool.give(this.data);
+    }
+    this.data = newData;
+    this.owners = new AtomicInteger(1);
+  }
+
+  /**
+   * Gives up this image's pixel data, returning it to the {@link BufferPool} unless another
+   * image still shares it. The image must not be used afterwards.
+   */
+  void release() {
+    if (this.data != null) {
+      if (this.owners.decrementAndGet() == 0) {
+        BufferPool.give(this.data);
+      }
+      this.data = null;
+    }
+  }
+
+  /**
+   * Mirrors the image left to right.
+   */
+  @Override
+  public void flipHorizontal() {
+    int[] pixels = writableData();
+    for (int y = 0; y < this.height; y++) {
+      PixelOps.reverse(pixels, y * this.width, (y + 1) * this.width);
+    }
+  }
+
+  /**
+   * Mirrors the image top to bottom.
+   */
+  @Override
+  public void flipVertical() {
+    int[] pixels = writableData();
+    int[] temp = new int[this.width];
+    int first = 0;
+    int last = this.height - 1;
+    while (first < last) {
+      System.arraycopy(pixels, first * this.width, temp, 0, this.width);
+      System.arraycopy(pixels, last * this.width, pixels, first * this.width, this.width);
+      System.arraycopy(temp, 0, pixels, last * this.width, this.width);
+      first++;
+      last--;
+    }
+  }
+
+  /**
+   * Method to brighten or darken and image.
+   *
+   * @param component how much you want the image to be lightened or darkened.
+   */
+  @Override
+  public void brighten(int component) {
+    int[] pixels = writableData();
+    Parallel.forEachStripe(this.height, (stripe, from, to) ->
+            PixelOps.brighten(pixels, from * this.width, to * this.width, component));
+  }
+
+  /**
+   * Method to turn an image into greyscale using an inputted component.
+   *
+   * @param type the desired component, either luma, value, intensity red, green or blue.
+   * @throws IllegalArgumentException if the component is not one of the above
+   */
+  @Override
+  public void component(String type) throws IllegalArgumentException {
+    int[] pixels = writableData();
+    Parallel.forEachStripe(this.height, (stripe, from, to) ->
+            PixelOps.component(pixels, from * this.width, to * this.width, type));
+  }
+
+  /**
+   * Returns a copy of the pixels that make up the image, indexed by x and then y.
+   *
+   * @return the pixels that make up the image
+   */
+  @Override
+  public Pixel[][] getPixels() {
+    Pixel[][] pixels = new Pixel[this.width][this.height];
+    for (int y = 0; y < this.height; y++) {
+      for (int x = 0; x < this.width; x++) {
+        int p = this.data[y * this.width + x];
+        pixels[x][y] = new Pixel((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF);
+      }
+    }
+    return pixels;
+  }
+
+  /**
+   * Returns the pixel at the specified position, indexed like {@link #getPixels()}.
+   *
+   * @param row the x position of the pixel
+   * @param col the y position of the pixel
+   * @return the pixel at the specified position
+   * @throws IllegalArgumentException if the position is outside the image
+   */
+  @Override
+  public Pixel getPixelAt(int row, int col) throws IllegalArgumentException {
+    if (row < 0 || row >= this.width || col < 0 || col >= this.height) {
+      throw new IllegalArgumentException("Invalid pixel.");
+    }
+    int p = this.data[col * this.width + row];
+    return new Pixel((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF);
+  }
+
+  /**
+   * Returns the pixel at the specified position packed as 0xRRGGBB.
+   *
+   * @param x the x position of the pixel
+   * @param y the y position of the pixel
+   * @return the packed pixel
+   * @throws IllegalArgumentException if the position is outside the image
+   */
+  @Override
+  public int getRGB(int x, int y) throws IllegalArgumentException {
+    PixelOps.checkPosition(x, y, this.width, this.height);
+    return this.data[y * this.width + x];
+  }
+
+  /**
+   * Sets the pixel at the specified position from a packed 0xRRGGBB value.
+   *
+   * @param x   the x position of the pixel
+   * @param y   the y position of the pixel
+   * @param rgb the packed pixel
+   * @throws IllegalArgumentException if the position is outside the image
+   */
+  @Override
+  public void setRGB(int x, int y, int rgb) throws IllegalArgumentException {
+    PixelOps.checkPosition(x, y, this.width, this.height);
+    writableData()[y * this.width + x] = rgb;
+  }
+
+  /**
+   * Copies one row of the image into the given array as packed 0xRRGGBB values.
+   *
+   * @param y   the row to copy
+   * @param dst the array to copy into
+   * @throws IllegalArgumentException if the row is outside the image or the array is too short
+   */
+  @Override
+  public void getRow(int y, int[] dst) throws IllegalArgumentException {
+    PixelOps.checkRow(y, dst, this.width, this.height);
+    System.arraycopy(this.data, y * this.width, dst, 0, this.width);
+  }
+
+  /**
+   * Sets one row of the image from the given array of packed 0xRRGGBB values.
+   *
+   * @param y   the row to set
+   * @param src the array to copy from
+   * @throws IllegalArgumentException if the row is outside the image or the array is too short
+   */
+  @Override
+  public void setRow(int y, int[] src) throws IllegalArgumentException {
+    PixelOps.checkRow(y, src, this.width, this.height);
+    System.arraycopy(src, 0, writableData(), y * this.width, this.width);
+  }
+
+  /**
+   * Returns the width of the image.
+   *
+   * @return the width of the image
+   */
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * Returns the height of the image.
+   *
+   * @return the height of the image
+   */
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  /**
+   * Method to add a blur filter to an image.
+   */
+  @Override
+  public void blur() {
+    convolve(Kernel.BLUR);
+  }
+
+  /**
+   * Method to blur an image by the given radius.
+   *
+   * @param radius the radius of the blur, about its standard deviation in pixels
+   * @throws IllegalArgumentException if the radius is negative
+   */
+  @Override
+  public void blur(int radius) throws IllegalArgumentException {
+    BoxBlur.apply(this, radius);
+  }
+
+  /**
+   * Method to add sharpen filter to an image.
+   */
+  @Override
+  public void sharpen() {
+    convolve(Kernel.SHARPEN);
+  }
+
+  /**
+   * Applies the given kernel to every pixel. Neighbours outside the image are skipped, and
+   * the result is written to a second array so every pixel reads the unfiltered neighbourhood.
+   * Stripes of rows run in parallel, each reading the rows around it from the source.
+   *
+   * @param kernel the kernel to apply
+   */
+  private void convolve(Kernel kernel) {
+    int bounds = kernel.size() / 2;
+    int[] result = BufferPool.take(this.width * this.height, false);
+
+    Parallel.forEachStripe(this.height, (stripe, from, to) -> {
+      int[] rowStarts = new int[kernel.size()];
+      double[] scratch = new double[3 * this.width];
+      for (int y = from; y < to; y++) {
+        for (int j = 0; j < kernel.size(); j++) {
+          int yy = y + j - bounds;
+          rowStarts[j] = yy < 0 || yy >= this.height ? -1 : yy * this.width;
+        }
+        kernel.convolveRow(this.data, rowStarts, this.width, result, y * this.width, scratch);
+      }
+    });
+    replaceData(result);
+  }
+
+  /**
+   * Method to add a sepia filter to an image.
+   */
+  @Override
+  public void sepia() {
+    int[] pixels = writableData();
+    Parallel.forEachStripe(this.height, (stripe, from, to) ->
+            PixelOps.sepia(pixels, from * this.width, to * this.width));
+  }
+
+  /**
+   * Method to convert a color image into a greyscale image.
+   */
+  @Override
+  public void greyscale() {
+    int[] pixels = writableData();
+    Parallel.forEachStripe(this.height, (stripe, from, to) ->
+            PixelOps.greyscale(pixels, from * this.width, to * this.width));
+  }
+
+  /**
+   * Applies a chain of colour matrices in one pass. While the pixel data is shared, the
+   * results go straight into a new array instead of into a copy made first.
+   *
+   * @param transform the colour matrices to apply
+   */
+  void recolor(ColorTransform transform) {
+    int[] src = this.data;
+    int[] dst = this.owners.get() > 1 ? BufferPool.take(this.width * this.height, false) : src;
+    Parallel.forEachStripe(this.height, (stripe, from, to) ->
+            transform.apply(src, dst, from * this.width, to * this.width));
+    if (dst != src) {
+      replaceData(dst);
+    }
+  }
+
+  /**
+   * Creates a 2D array of the RGB value components and how frequently they occur.
+   *
+   * @return a 2D array that represents the histogram.
+   */
+  @Override
+  public int[][] histogram() {
+    return Parallel.histogram(this.height, (from, to, h) ->
+            PixelOps.histogram(this.data, from * this.width, to * this.width, h));
+  }
+
+  /**
+   * Return a string that represents the current state of the image, one row per line.
+   *
+   * @return the image state as a string
+   */
+  @Override
+  public String toString() {
+    StringBuilder stringBuilder = new StringBuilder();
+    stringBuilder.append(this.width + " ");
+    stringBuilder.append(this.height + "\n");
+    for (int y = 0; y < this.height; y++) {
+      for (int x = 0; x < this.width; x++) {
+        int p = this.data[y * this.width + x];
+        stringBuilder.append("(R:" + ((p >> 16) & 0xFF) + ", G:" + ((p >> 8) & 0xFF)
+                + ", B:" + (p & 0xFF) + ")");
+        stringBuilder.append(x < this.width - 1 ? " " : "\n");
+      }
+    }
+    return stringBuilder.toString();
+  }
+}
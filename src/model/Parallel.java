@@ -0,0 +1,165 @@
+package model;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class runs image operations on a shared pool of threads. An operation is split into
+ * stripes, ranges of rows or tiles that one task handles, and the stripes run in parallel.
+ *
+ * <p>Stripe boundaries depend only on the number of items and the thread count, so an operation
+ * that keeps one partial result per stripe, like a histogram, adds them up in the same order
+ * every time. Convolutions write into a separate array and read the rows around their stripe,
+ * its halo, from the unchanged source, so stripes can run in any order.
+ */
+public final class Parallel {
+  private static final int STRIPES_PER_THREAD = 4;
+
+  private static ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+  private Parallel() {
+  }
+
+  /**
+   * Work on one stripe of items.
+   */
+  interface StripeTask {
+    /**
+     * Handles the items of one stripe.
+     *
+     * @param stripe the index of the stripe
+     * @param from   the first item of the stripe
+     * @param to     one past the last item of the stripe
+     */
+    void apply(int stripe, int from, int to);
+  }
+
+  /**
+   * Counting of one stripe of items into a histogram.
+   */
+  interface HistogramTask {
+    /**
+     * Counts the items of one stripe.
+     *
+     * @param from the first item of the stripe
+     * @param to   one past the last item of the stripe
+     * @param h    the histogram of the stripe, indexed by channel and then value
+     */
+    void count(int from, int to, int[][] h);
+  }
+
+  /**
+   * Sets the number of threads that image operations run on. Operations already running
+   * finish on the old threads, which then stop once they have been idle for a while.
+   *
+   * @param threads the number of threads
+   * @throws IllegalArgumentException if the number of threads is not positive
+   */
+  public static synchronized void setThreads(int threads) throws IllegalArgumentException {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Number of threads must be positive.");
+    }
+    if (threads != pool.getParallelism()) {
+      pool = new ForkJoinPool(threads);
+    }
+  }
+
+  /**
+   * Returns the number of threads that image operations run on.
+   *
+   * @return the number of threads
+   */
+  public static synchronized int getThreads() {
+    return pool.getParallelism();
+  }
+
+  /**
+   * Returns the number of stripes that the given number of items is split into.
+   *
+   * @param items the number of items
+   * @return the number of stripes
+   */
+  static int stripeCount(int items) {
+    int threads = getThreads();
+    return Math.max(1, Math.min(items, threads == 1 ? 1 : threads * STRIPES_PER_THREAD));
+  }
+
+  /**
+   * Runs the task on every stripe of the given number of items and waits for all of them.
+   *
+   * @param items the number of items
+   * @param task  the work to do on each stripe
+   */
+  static void forEachStripe(int items, StripeTask task) {
+    forEachStripe(items, stripeCount(items), task);
+  }
+
+  private static void forEachStripe(int items, int stripes, StripeTask task) {
+    if (stripes == 1) {
+      task.apply(0, 0, items);
+      return;
+    }
+    ForkJoinPool current;
+    synchronized (Parallel.class) {
+      current = pool;
+    }
+    current.invoke(new Stripes(task, items, stripes, 0, stripes));
+  }
+
+  /**
+   * Splits a range of stripes in half until each task has one stripe.
+   */
+  private static final class Stripes extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final StripeTask task;
+    private final int items;
+    private final int stripes;
+    private final int first;
+    private final int last;
+
+    Stripes(StripeTask task, int items, int stripes, int first, int last) {
+      this.task = task;
+      this.items = items;
+      this.stripes = stripes;
+      this.first = first;
+      this.last = last;
+    }
+
+    @Override
+    protected void compute() {
+      if (this.last - this.first == 1) {
+        int from = (int) ((long) this.items * this.first / this.stripes);
+        int to = (int) ((long) this.items * this.last / this.stripes);
+        this.task.apply(this.first, from, to);
+        return;
+      }
+      int middle = (this.first + this.last) >>> 1;
+      invokeAll(new Stripes(this.task, this.items, this.stripes, this.first, middle),
+              new Stripes(this.task, this.items, this.stripes, middle, this.last));
+    }
+  }
+
+  /**
+   * Builds a histogram by counting each stripe of items into its own histogram in parallel
+   * and then adding those up.
+   *
+   * @param items the number of items
+   * @param task  the counting to do on each stripe
+   * @return the histogram
+   */
+  static int[][] histogram(int items, HistogramTask task) {
+    int stripes = stripeCount(items);
+    int[][][] partials = new int[stripes][4][256];
+    forEachStripe(items, stripes, (stripe, from, to) -> task.count(from, to, partials[stripe]));
+    int[][] total = partials[0];
+    for (int s = 1; s < stripes; s++) {
+      for (int channel = 0; channel < 4; channel++) {
+        for (int value = 0; value < 256; value++) {
+          total[channel][value] += partials[s][channel][value];
+        }
+      }
+    }
+    return total;
+  }
+}
@@ -0,0 +1,361 @@
+package model;
+
+import java.util.List;
+
+import operations.ImageOperationCommand;
+
+/**
+ * This class runs a list of operations on one image as a pipeline: each operation works on the
+ * result of the one before, whatever image names the operations were created with. It serves
+ * as the model the operations are executed against, so every operation in the
+ * {@code operations} package can be a step.
+ *
+ * <p>Steps that work on each pixel alone, the colour matrices, channel tables, components and
+ * flips, are not applied one by one. Flips only move pixels and colour steps only change them,
+ * so any run of them is one mirroring followed by one {@link ColorTransform}, and the pipeline
+ * collects the run and applies it in a single pass over the pixels when it meets a step that
+ * reads a pixel's neighbours, such as blur or sharpen, or when the result is needed. Those
+ * steps then work in place on the pipeline's own copy.
+ *
+ * <p>Colour steps are collected in the {@link FixedPoint} mode of the pipeline, which is the
+ * mode it was created with, or the mode {@link #setFixed(boolean)} last set.
+ *
+ * <p>A pipeline made without an image only collects flips and colour steps, for
+ * {@link PpmStream} to apply a row at a time as it copies a file.
+ */
+final class Pipeline implements ProcessingModel {
+  private Image image;
+  private boolean mirrored;
+  private boolean upsideDown;
+  private ColorTransform colour;
+  private boolean fixed;
+
+  /**
+   * Creates a pipeline that starts from a copy of the given image, which it does not change,
+   * and collects its colour steps in the given arithmetic mode.
+   *
+   * @param source the image to start from
+   * @param fixed  whether the colour steps use fixed-point arithmetic
+   * @throws IllegalArgumentException if the image is null
+   */
+  Pipeline(Image source, boolean fixed) throws IllegalArgumentException {
+    if (source == null) {
+      throw new IllegalArgumentException("Image must be non-null.");
+    }
+    this.image = ImageUtil.cloneImage(source);
+    this.fixed = fixed;
+  }
+
+  /**
+   * Creates a pipeline without an image, which only collects the flips and colour steps it is
+   * given, in floating-point arithmetic until {@link #setFixed(boolean)} says otherwise.
+   */
+  Pipeline() {
+    this.image = null;
+  }
+
+  /**
+   * Sets the arithmetic mode of the colour steps given from now on.
+   *
+   * @param fixed whether the colour steps use fixed-point arithmetic
+   */
+  void setFixed(boolean fixed) {
+    this.fixed = fixed;
+  }
+
+  /**
+   * Returns whether the steps collected mirror the image left to right.
+   *
+   * @return true if the image is mirrored
+   */
+  boolean isMirrored() {
+    return this.mirrored;
+  }
+
+  /**
+   * Returns whether the steps collected mirror the image top to bottom.
+   *
+   * @return true if the image is upside down
+   */
+  boolean isUpsideDown() {
+    return this.upsideDown;
+  }
+
+  /**
+   * Returns the colour steps collected, as one transform.
+   *
+   * @return the transform, or null if there are no colour steps
+   */
+  ColorTransform getColour() {
+    return this.colour;
+  }
+
+  /**
+   * Applies the steps still waiting and returns the result of the pipeline.
+   *
+   * @return the result
+   * @throws IllegalStateException if the pipeline has no image
+   */
+  Image result() throws IllegalStateException {
+    if (this.image == null) {
+      throw new IllegalStateException("The pipeline has no image.");
+    }
+    flush();
+    return this.image;
+  }
+
+  private void recolor(ColorTransform.Step step) {
+    this.colour = this.colour == null
+            ? new ColorTransform(step, this.fixed) : this.colour.then(step, this.fixed);
+  }
+
+  /**
+   * Applies the waiting flips and colour steps in one pass, reading each row of the image
+   * from where the flips move it, and replaces the image with the result.
+   */
+  private void flush() {
+    if (!this.mirrored && !this.upsideDown && this.colour == null) {
+      return;
+    }
+    Image source = this.image;
+    int width = source.getWidth();
+    int height = source.getHeight();
+    boolean mirrored = this.mirrored;
+    boolean upsideDown = this.upsideDown;
+    ColorTransform colour = this.colour;
+    Image result = ImageUtil.fitsOnHeap(width, height)
+            ? new PackedImage(width, height, BufferPool.take(width * height, false))
+            : ImageUtil.createImage(width, height);
+    Parallel.StripeTask task = (stripe, from, to) -> {
+      int[] row = new int[width];
+      for (int y = from; y < to; y++) {
+        source.getRow(upsideDown ? height - 1 - y : y, row);
+        if (mirrored) {
+          PixelOps.reverse(row, 0, width);
+        }
+        if (colour != null) {
+          colour.apply(row, 0, width);
+        }
+        result.setRow(y, row);
+      }
+    };
+    if (result instanceof PackedImage && (source instanceof PackedImage
+            || source instanceof PlanarImage || source instanceof GreyImage)) {
+      Parallel.forEachStripe(height, task);
+    } else {
+      task.apply(0, 0, height);
+    }
+    BufferPool.release(source);
+    this.image = result;
+    this.mirrored = false;
+    this.upsideDown = false;
+    this.colour = null;
+  }
+
+  /**
+   * Returns a copy of the current result of the pipeline, whatever the name.
+   *
+   * @param imageName ignored
+   * @return the current result
+   */
+  @Override
+  public Image getImage(String imageName) {
+    return ImageUtil.cloneImage(result());
+  }
+
+  /**
+   * Images cannot be added to a pipeline.
+   *
+   * @throws IllegalStateException always
+   */
+  @Override
+  public void addImage(Image image, String imageName) throws IllegalStateException {
+    throw new IllegalStateException("Images cannot be added inside a pipeline.");
+  }
+
+  /**
+   * Mirrors the image left to right, by reading it mirrored when the pass runs.
+   */
+  @Override
+  public void flipHorizontal(String imageName, String destImageName) {
+    this.mirrored = !this.mirrored;
+  }
+
+  /**
+   * Mirrors the image top to bottom, by reading it mirrored when the pass runs.
+   */
+  @Override
+  public void flipVertical(String imageName, String destImageName) {
+    this.upsideDown = !this.upsideDown;
+  }
+
+  /**
+   * Adds brightening to the waiting colour steps.
+   */
+  @Override
+  public void brighten(int component, String imageName, String destImageName) {
+    recolor(ChannelTable.brighten(component));
+  }
+
+  /**
+   * Adds the intensity component to the waiting colour steps.
+   */
+  @Override
+  public void intensity(String imageName, String destImageName) {
+    recolor(GreyStep.INTENSITY);
+  }
+
+  /**
+   * Adds the red component to the waiting colour steps.
+   */
+  @Override
+  public void redComponent(String imageName, String destImageName) {
+    recolor(ColorMatrix.RED_COMPONENT);
+  }
+
+  /**
+   * Adds the green component to the waiting colour steps.
+   */
+  @Override
+  public void greenComponent(String imageName, String destImageName) {
+    recolor(ColorMatrix.GREEN_COMPONENT);
+  }
+
+  /**
+   * Adds the blue component to the waiting colour steps.
+   */
+  @Override
+  public void blueComponent(String imageName, String destImageName) {
+    recolor(ColorMatrix.BLUE_COMPONENT);
+  }
+
+  /**
+   * Adds the luma component to the waiting colour steps.
+   */
+  @Override
+  public void luma(String imageName, String destImageName) {
+    recolor(ColorMatrix.LUMA);
+  }
+
+  /**
+   * Adds the value component to the waiting colour steps.
+   */
+  @Override
+  public void value(String imageName, String destImageName) {
+    recolor(GreyStep.VALUE);
+  }
+
+  /**
+   * Adds sepia to the waiting colour steps.
+   */
+  @Override
+  public void sepia(String imageName, String destImageName) {
+    recolor(ColorMatrix.SEPIA);
+  }
+
+  /**
+   * Adds greyscale to the waiting colour steps.
+   */
+  @Override
+  public void greyscale(String imageName, String destImageName) {
+    recolor(ColorMatrix.GREYSCALE);
+  }
+
+  /**
+   * Applies the waiting steps and blurs the result in place.
+   */
+  @Override
+  public void blur(String imageName, String destImageName) {
+    result().blur();
+  }
+
+  /**
+   * Applies the waiting steps and blurs the result in place by the given radius.
+   */
+  @Override
+  public void blur(int radius, String imageName, String destImageName) {
+    result().blur(radius);
+  }
+
+  /**
+   * Applies the waiting steps and sharpens the result in place.
+   */
+  @Override
+  public void sharpen(String imageName, String destImageName) {
+    result().sharpen();
+  }
+
+  /**
+   * Adds a levels adjustment to the waiting colour steps.
+   */
+  @Override
+  public void levels(int black, int mid, int white, String imageName, String destImageName) {
+    recolor(ChannelTable.levels(black, mid, white));
+  }
+
+  /**
+   * Adds gamma correction to the waiting colour steps.
+   */
+  @Override
+  public void gamma(double gamma, String imageName, String destImageName) {
+    recolor(ChannelTable.gamma(gamma));
+  }
+
+  /**
+   * Adds inversion to the waiting colour steps.
+   */
+  @Override
+  public void invert(String imageName, String destImageName) {
+    recolor(ChannelTable.invert());
+  }
+
+  /**
+   * Adds a threshold to the waiting colour steps.
+   */
+  @Override
+  public void threshold(int level, String imageName, String destImageName) {
+    recolor(ChannelTable.threshold(level));
+  }
+
+  /**
+   * Runs the given operations as further steps of this pipeline.
+   */
+  @Override
+  public void apply(String imageName, String destImageName,
+                    List<ImageOperationCommand> commands) {
+    for (ImageOperationCommand command : commands) {
+      command.execute(this);
+    }
+  }
+
+  /**
+   * Files cannot be loaded inside a pipeline.
+   *
+   * @throws IllegalStateException always
+   */
+  @Override
+  public void load(String imagePath, String imageName) throws IllegalStateException {
+    throw new IllegalStateException("Files cannot be loaded inside a pipeline.");
+  }
+
+  /**
+   * Files cannot be saved inside a pipeline.
+   *
+   * @throws IllegalStateException always
+   */
+  @Override
+  public void save(String imagePath, String imageName) throws IllegalStateException {
+    throw new IllegalStateException("Files cannot be saved inside a pipeline.");
+  }
+
+  /**
+   * Files cannot be saved inside a pipeline.
+   *
+   * @throws IllegalStateException always
+   */
+  @Override
+  public void save(String imagePath, String imageName, PpmFormat format)
+          throws IllegalStateException {
+    throw new IllegalStateException("Files cannot be saved inside a pipeline.");
+  }
+}
@@ -0,0 +1,153 @@
+package model;
+
+/**
+ * This class holds the per-pixel operations shared by the images that store pixels as packed
+ * 0xRRGGBB ints. Each method works on a range of an int array, so the same code serves a whole
+ * image held in one array and an image that is processed one row at a time.
+ */
+final class PixelOps {
+  private PixelOps() {
+  }
+
+  /**
+   * Packs the given channel values into a single 0xRRGGBB int.
+   *
+   * @param red   the red value, 0 to 255
+   * @param green the green value, 0 to 255
+   * @param blue  the blue value, 0 to 255
+   * @return the packed pixel
+   */
+  static int pack(int red, int green, int blue) {
+    return (red << 16) | (green << 8) | blue;
+  }
+
+  /**
+   * Checks that the given position is inside an image of the given size.
+   *
+   * @throws IllegalArgumentException if the position is outside the image
+   */
+  static void checkPosition(int x, int y, int width, int height)
+          throws IllegalArgumentException {
+    if (x < 0 || x >= width || y < 0 || y >= height) {
+      throw new IllegalArgumentException("Invalid pixel.");
+    }
+  }
+
+  /**
+   * Checks that the given row is inside an image of the given size and that the given array
+   * can hold it.
+   *
+   * @throws IllegalArgumentException if the row is outside the image or the array is too short
+   */
+  static void checkRow(int y, int[] row, int width, int height)
+          throws IllegalArgumentException {
+    if (y < 0 || y >= height) {
+      throw new IllegalArgumentException("Invalid row.");
+    }
+    if (row == null || row.length < width) {
+      throw new IllegalArgumentException("Row array must hold width pixels.");
+    }
+  }
+
+  static int clamp(int value) {
+    return Math.max(0, Math.min(value, 255));
+  }
+
+  static int truncate(double value) {
+    return (int) (Math.min(255, Math.max(0, value)));
+  }
+
+  /**
+   * Reverses the order of the pixels in the given range.
+   */
+  static void reverse(int[] pixels, int from, int to) {
+    int first = from;
+    int last = to - 1;
+    while (first < last) {
+      int temp = pixels[first];
+      pixels[first] = pixels[last];
+      pixels[last] = temp;
+      first++;
+      last--;
+    }
+  }
+
+  /**
+   * Adds the given amount to every channel of the pixels in the given range.
+   */
+  static void brighten(int[] pixels, int from, int to, int amount) {
+    ChannelTable.brighten(amount).apply(pixels, pixels, from, to);
+  }
+
+  /**
+   * Replaces the pixels in the given range with a grey built from one of their components.
+   *
+   * @throws IllegalArgumentException if the component is not luma, value, intensity, red,
+   *                                  green or blue
+   */
+  static void component(int[] pixels, int from, int to, String type)
+          throws IllegalArgumentException {
+    if (type.equalsIgnoreCase("red")) {
+      for (int i = from; i < to; i++) {
+        int comp = (pixels[i] >> 16) & 0xFF;
+        pixels[i] = pack(comp, comp, comp);
+      }
+    } else if (type.equalsIgnoreCase("green")) {
+      for (int i = from; i < to; i++) {
+        int comp = (pixels[i] >> 8) & 0xFF;
+        pixels[i] = pack(comp, comp, comp);
+      }
+    } else if (type.equalsIgnoreCase("blue")) {
+      for (int i = from; i < to; i++) {
+        int comp = pixels[i] & 0xFF;
+        pixels[i] = pack(comp, comp, comp);
+      }
+    } else if (type.equalsIgnoreCase("luma")) {
+      ColorMatrix.LUMA.apply(pixels, from, to);
+    } else if (type.equalsIgnoreCase("intensity")) {
+      for (int i = from; i < to; i++) {
+        int p = pixels[i];
+        int comp = (((p >> 16) & 0xFF) + ((p >> 8) & 0xFF) + (p & 0xFF)) / 3;
+        pixels[i] = pack(comp, comp, comp);
+      }
+    } else if (type.equalsIgnoreCase("value")) {
+      for (int i = from; i < to; i++) {
+        int p = pixels[i];
+        int comp = Math.max(Math.max((p >> 16) & 0xFF, (p >> 8) & 0xFF), p & 0xFF);
+        pixels[i] = pack(comp, comp, comp);
+      }
+    } else {
+      throw new IllegalArgumentException("Unknown component: " + type);
+    }
+  }
+
+  /**
+   * Applies the sepia colour matrix to the pixels in the given range.
+   */
+  static void sepia(int[] pixels, int from, int to) {
+    ColorMatrix.SEPIA.apply(pixels, from, to);
+  }
+
+  /**
+   * Turns the pixels in the given range grey.
+   */
+  static void greyscale(int[] pixels, int from, int to) {
+    ColorMatrix.GREYSCALE.apply(pixels, from, to);
+  }
+
+  /**
+   * Adds the pixels in the given range to a red, green, blue and intensity histogram.
+   */
+  static void histogram(int[] pixels, int from, int to, int[][] h) {
+    for (int i = from; i < to; i++) {
+      int p = pixels[i];
+      int r = (p >> 16) & 0xFF;
+      int g = (p >> 8) & 0xFF;
+      int b = p & 0xFF;
+      h[0][r] += 1;
+      h[1][g] += 1;
+      h[2][b] += 1;
+      h[3][(r + g + b) / 3] += 1;
+    }
+  }
+}
@@ -0,0 +1,564 @@
+package model;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class represents an image whose channels are stored as three separate byte planes,
+ * one each for red, green and blue, laid out row by row. A pixel costs three bytes, and work
+ * on a single channel only has to walk one dense plane.
+ *
+ * <p>Pixels are addressed the same way {@link ImageUtil} builds them: the first index of
+ * {@link #getPixels()} is the x position and the second index is the y position.
+ */
+public class PlanarImage implements Image {
+  private byte[] red;
+  private byte[] green;
+  private byte[] blue;
+  private AtomicInteger owners = new AtomicInteger(1);
+  private final int width;
+  private final int height;
+
+  /**
+   * Creates a black image of the given size.
+   *
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @throws IllegalArgumentException if the width or height is not positive
+   */
+  public PlanarImage(int width, int height) throws IllegalArgumentException {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("Width and height must be positive.");
+    }
+    this.width = width;
+    this.height = height;
+    this.red = new byte[width * height];
+    this.green = new byte[width * height];
+    this.blue = new byte[width * height];
+  }
+
+  /**
+   * Creates an image over the given channel planes. The arrays are used directly, not copied.
+   *
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @param red    the red plane, row by row
+   * @param green  the green plane, row by row
+   * @param blue   the blue plane, row by row
+   * @throws IllegalArgumentException if the size is not positive or a plane is too short
+   */
+  public PlanarImage(int width, int height, byte[] red, byte[] green, byte[] blue)
+          throws IllegalArgumentException {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("Width and height must be positive.");
+    }
+    int size = width * height;
+    if (red == null || green == null || blue == null
+            || red.length < size || green.length < size || blue.length < size) {
+      throw new IllegalArgumentException("Each plane must hold width * height values.");
+    }
+    this.width = width;
+    this.height = height;
+    this.red = red;
+    this.green = green;
+    this.blue = blue;
+  }
+
+  /**
+   * Creates a planar copy of any image.
+   *
+   * @param image the image to copy
+   * @throws IllegalArgumentException if the image is null
+   */
+  public PlanarImage(Image image) throws IllegalArgumentException {
+    this(checkImage(image).getWidth(), image.getHeight());
+    if (image instanceof PlanarImage) {
+      PlanarImage other = (PlanarImage) image;
+      copyPlane(other.red, this.red);
+      copyPlane(other.green, this.green);
+      copyPlane(other.blue, this.blue);
+      return;
+    }
+    int[] row = new int[this.width];
+    for (int y = 0; y < this.height; y++) {
+      image.getRow(y, row);
+      setRow(y, row);
+    }
+  }
+
+  /**
+   * Creates a copy of the given image that shares its planes. The images count how many of
+   * them share the planes, and whichever is written to while they are shared takes its own
+   * copy of the planes.
+   *
+   * @param other the image to copy
+   */
+  PlanarImage(PlanarImage other) {
+    this.width = other.width;
+    this.height = other.height;
+    this.red = other.red;
+    this.green = other.green;
+    this.blue = other.blue;
+    this.owners = other.owners;
+    this.owners.incrementAndGet();
+  }
+
+  private static Image checkImage(Image image) {
+    if (image == null) {
+      throw new IllegalArgumentException("Image must be non-null.");
+    }
+    return image;
+  }
+
+  /**
+   * Returns whether another image shares the planes.
+   */
+  private boolean isShared() {
+    return this.owners.get() > 1;
+  }
+
+  /**
+   * Copies the planes before they are written if another image shares them.
+   */
+  private void ensureWritable() {
+    if (isShared()) {
+      replacePlanes(this.red.clone(), this.green.clone(), this.blue.clone());
+    }
+  }
+
+  /**
+   * Switches the image to the given planes, which it alone owns, and stops sharing the old
+   * ones.
+   */
+  private void replacePlanes(byte[] red, byte[] green, byte[] blue) {
+    this.owners.decrementAndGet();
+    this.red = red;
+    this.green = green;
+    this.blue = blue;
+    this.owners = new AtomicInteger(1);
+  }
+
+  /**
+   * Gives up this image's planes, so an image still sharing them may write to them in place.
+   * The image must not be used afterwards.
+   */
+  void release() {
+    if (this.red != null) {
+      this.owners.decrementAndGet();
+      this.red = null;
+      this.green = null;
+      this.blue = null;
+    }
+  }
+
+  /**
+   * Mirrors the image left to right.
+   */
+  @Override
+  public void flipHorizontal() {
+    ensureWritable();
+    for (byte[] plane : new byte[][]{this.red, this.green, this.blue}) {
+      for (int y = 0; y < this.height; y++) {
+        int first = y * this.width;
+        int last = first + this.width - 1;
+        while (first < last) {
+          byte temp = plane[first];
+          plane[first] = plane[last];
+          plane[last] = temp;
+          first++;
+          last--;
+        }
+      }
+    }
+  }
+
+  /**
+   * Mirrors the image top to bottom.
+   */
+  @Override
+  public void flipVertical() {
+    ensureWritable();
+    byte[] temp = new byte[this.width];
+    for (byte[] plane : new byte[][]{this.red, this.green, this.blue}) {
+      int first = 0;
+      int last = this.height - 1;
+      while (first < last) {
+        System.arraycopy(plane, first * this.width, temp, 0, this.width);
+        System.arraycopy(plane, last * this.width, plane, first * this.width, this.width);
+        System.arraycopy(temp, 0, plane, last * this.width, this.width);
+        first++;
+        last--;
+      }
+    }
+  }
+
+  /**
+   * Method to brighten or darken and image.
+   *
+   * @param component how much you want the image to be lightened or darkened.
+   */
+  @Override
+  public void brighten(int component) {
+    recolor(new ColorTransform(ChannelTable.brighten(component)));
+  }
+
+  /**
+   * Method to turn an image into greyscale using an inputted component. The single-channel
+   * components copy one plane over the other two.
+   *
+   * @param type the desired component, either luma, value, intensity red, green or blue.
+   * @throws IllegalArgumentException if the component is not one of the above
+   */
+  @Override
+  public void component(String type) throws IllegalArgumentException {
+    int size = this.width * this.height;
+    byte[] grey;
+    if (type.equalsIgnoreCase("red")) {
+      grey = this.red;
+    } else if (type.equalsIgnoreCase("green")) {
+      grey = this.green;
+    } else if (type.equalsIgnoreCase("blue")) {
+      grey = this.blue;
+    } else if (type.equalsIgnoreCase("luma")) {
+      grey = new byte[size];
+      applyMatrix(ColorMatrix.LUMA, new byte[][]{grey, grey, grey});
+    } else if (type.equalsIgnoreCase("intensity")) {
+      grey = new byte[size];
+      mapPlane(grey, i -> ((this.red[i] & 0xFF) + (this.green[i] & 0xFF)
+              + (this.blue[i] & 0xFF)) / 3);
+    } else if (type.equalsIgnoreCase("value")) {
+      grey = new byte[size];
+      mapPlane(grey, i -> Math.max(Math.max(this.red[i] & 0xFF, this.green[i] & 0xFF),
+              this.blue[i] & 0xFF));
+    } else {
+      throw new IllegalArgumentException("Unknown component: " + type);
+    }
+    if (isShared()) {
+      // every plane is about to be overwritten with the grey plane, so fresh planes will do
+      replacePlanes(new byte[size], new byte[size], new byte[size]);
+    }
+    copyPlane(grey, this.red);
+    copyPlane(grey, this.green);
+    copyPlane(grey, this.blue);
+  }
+
+  private void copyPlane(byte[] src, byte[] dest) {
+    if (src != dest) {
+      System.arraycopy(src, 0, dest, 0, this.width * this.height);
+    }
+  }
+
+  /**
+   * Returns a copy of the pixels that make up the image, indexed by x and then y.
+   *
+   * @return the pixels that make up the image
+   */
+  @Override
+  public Pixel[][] getPixels() {
+    Pixel[][] pixels = new Pixel[this.width][this.height];
+    for (int y = 0; y < this.height; y++) {
+      for (int x = 0; x < this.width; x++) {
+        int i = y * this.width + x;
+        pixels[x][y] = new Pixel(this.red[i] & 0xFF, this.green[i] & 0xFF, this.blue[i] & 0xFF);
+      }
+    }
+    return pixels;
+  }
+
+  /**
+   * Returns the pixel at the specified position, indexed like {@link #getPixels()}.
+   *
+   * @param row the x position of the pixel
+   * @param col the y position of the pixel
+   * @return the pixel at the specified position
+   * @throws IllegalArgumentException if the position is outside the image
+   */
+  @Override
+  public Pixel getPixelAt(int row, int col) throws IllegalArgumentException {
+    if (row < 0 || row >= this.width || col < 0 || col >= this.height) {
+      throw new IllegalArgumentException("Invalid pixel.");
+    }
+    int i = col * this.width + row;
+    return new Pixel(this.red[i] & 0xFF, this.green[i] & 0xFF, this.blue[i] & 0xFF);
+  }
+
+  /**
+   * Returns the pixel at the specified position packed as 0xRRGGBB.
+   *
+   * @param x the x position of the pixel
+   * @param y the y position of the pixel
+   * @return the packed pixel
+   * @throws IllegalArgumentException if the position is outside the image
+   */
+  @Override
+  public int getRGB(int x, int y) throws IllegalArgumentException {
+    PixelOps.checkPosition(x, y, this.width, this.height);
+    int i = y * this.width + x;
+    return PixelOps.pack(this.red[i] & 0xFF, this.green[i] & 0xFF, this.blue[i] & 0xFF);
+  }
+
+  /**
+   * Sets the pixel at the specified position from a packed 0xRRGGBB value.
+   *
+   * @param x   the x position of the pixel
+   * @param y   the y position of the pixel
+   * @param rgb the packed pixel
+   * @throws IllegalArgumentException if the position is outside the image
+   */
+  @Override
+  public void setRGB(int x, int y, int rgb) throws IllegalArgumentException {
+    PixelOps.checkPosition(x, y, this.width, this.height);
+    ensureWritable();
+    int i = y * this.width + x;
+    this.red[i] = (byte) (rgb >> 16);
+    this.green[i] = (byte) (rgb >> 8);
+    this.blue[i] = (byte) rgb;
+  }
+
+  /**
+   * Copies one row of the image into the given array as packed 0xRRGGBB values.
+   *
+   * @param y   the row to copy
+   * @param dst the array to copy into
+   * @throws IllegalArgumentException if the row is outside the image or the array is too short
+   */
+  @Override
+  public void getRow(int y, int[] dst) throws IllegalArgumentException {
+    PixelOps.checkRow(y, dst, this.width, this.height);
+    int start = y * this.width;
+    for (int x = 0; x < this.width; x++) {
+      dst[x] = PixelOps.pack(this.red[start + x] & 0xFF, this.green[start + x] & 0xFF,
+              this.blue[start + x] & 0xFF);
+    }
+  }
+
+  /**
+   * Sets one row of the image from the given array of packed 0xRRGGBB values.
+   *
+   * @param y   the row to set
+   * @param src the array to copy from
+   * @throws IllegalArgumentException if the row is outside the image or the array is too short
+   */
+  @Override
+  public void setRow(int y, int[] src) throws IllegalArgumentException {
+    PixelOps.checkRow(y, src, this.width, this.height);
+    ensureWritable();
+    int start = y * this.width;
+    for (int x = 0; x < this.width; x++) {
+      int p = src[x];
+      this.red[start + x] = (byte) (p >> 16);
+      this.green[start + x] = (byte) (p >> 8);
+      this.blue[start + x] = (byte) p;
+    }
+  }
+
+  /**
+   * Returns the width of the image.
+   *
+   * @return the width of the image
+   */
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * Returns the height of the image.
+   *
+   * @return the height of the image
+   */
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  /**
+   * Method to add a blur filter to an image.
+   */
+  @Override
+  public void blur() {
+    convolve(Kernel.BLUR);
+  }
+
+  /**
+   * Method to blur an image by the given radius.
+   *
+   * @param radius the radius of the blur, about its standard deviation in pixels
+   * @throws IllegalArgumentException if the radius is negative
+   */
+  @Override
+  public void blur(int radius) throws IllegalArgumentException {
+    BoxBlur.apply(this, radius);
+  }
+
+  /**
+   * Method to add sharpen filter to an image.
+   */
+  @Override
+  public void sharpen() {
+    convolve(Kernel.SHARPEN);
+  }
+
+  private void convolve(Kernel kernel) {
+    replacePlanes(kernel.convolvePlane(this.red, this.width, this.height),
+            kernel.convolvePlane(this.green, this.width, this.height),
+            kernel.convolvePlane(this.blue, this.width, this.height));
+  }
+
+  /**
+   * Method to add a sepia filter to an image.
+   */
+  @Override
+  public void sepia() {
+    ensureWritable();
+    applyMatrix(ColorMatrix.SEPIA, new byte[][]{this.red, this.green, this.blue});
+  }
+
+  /**
+   * Method to convert a color image into a greyscale image.
+   */
+  @Override
+  public void greyscale() {
+    ensureWritable();
+    applyMatrix(ColorMatrix.GREYSCALE, new byte[][]{this.red, this.green, this.blue});
+  }
+
+  /**
+   * Applies a chain of colour matrices in one pass. While the planes are shared, the results
+   * go straight into new planes instead of into copies made first.
+   *
+   * @param transform the colour matrices to apply
+   */
+  void recolor(ColorTransform transform) {
+    int size = this.width * this.height;
+    byte[][] src = {this.red, this.green, this.blue};
+    byte[][] dst = isShared() ? new byte[3][size] : src;
+    Parallel.forEachStripe(size, (stripe, from, to) -> transform.apply(src, dst, from, to));
+    if (dst != src) {
+      replacePlanes(dst[0], dst[1], dst[2]);
+    }
+  }
+
+  /**
+   * Applies a colour matrix to the planes in parallel stripes, writing to the given planes.
+   */
+  private void applyMatrix(ColorMatrix matrix, byte[][] dst) {
+    byte[][] src = {this.red, this.green, this.blue};
+    Parallel.forEachStripe(this.width * this.height, (stripe, from, to) ->
+            matrix.apply(src, dst, from, to));
+  }
+
+  /**
+   * Creates a 2D array of the RGB value components and how frequently they occur. Each
+   * channel count walks only its own plane.
+   *
+   * @return a 2D array that represents the histogram.
+   */
+  @Override
+  public int[][] histogram() {
+    return Parallel.histogram(this.width * this.height, (from, to, h) -> {
+      countPlane(this.red, from, to, h[0]);
+      countPlane(this.green, from, to, h[1]);
+      countPlane(this.blue, from, to, h[2]);
+      for (int i = from; i < to; i++) {
+        h[3][((this.red[i] & 0xFF) + (this.green[i] & 0xFF) + (this.blue[i] & 0xFF)) / 3] += 1;
+      }
+    });
+  }
+
+  private void countPlane(byte[] plane, int from, int to, int[] counts) {
+    for (int i = from; i < to; i++) {
+      counts[plane[i] & 0xFF] += 1;
+    }
+  }
+
+  /**
+   * Works out one level per pixel.
+   */
+  private interface Level {
+    int at(int i);
+  }
+
+  /**
+   * Fills the given plane with a level for every pixel, in parallel stripes. A level may read
+   * the pixel it replaces, but no other pixel of the plane.
+   */
+  private void mapPlane(byte[] plane, Level level) {
+    Parallel.forEachStripe(this.width * this.height, (stripe, from, to) -> {
+      for (int i = from; i < to; i++) {
+        plane[i] = (byte) level.at(i);
+      }
+    });
+  }
+
+  /**
+   * Creates an image from a buffered image that stores three bytes per pixel, such as a
+   * decoded JPEG or BMP file, reading its samples a row at a time rather than converting each
+   * pixel through its colour model.
+   *
+   * @param image a buffered image of type {@link BufferedImage#TYPE_3BYTE_BGR}
+   * @return the planar image
+   */
+  static PlanarImage fromBgr(BufferedImage image) {
+    int width = image.getWidth();
+    PlanarImage result = new PlanarImage(width, image.getHeight());
+    Raster raster = image.getRaster();
+    byte[] row = new byte[3 * width];
+    for (int y = 0; y < result.height; y++) {
+      // the samples of each pixel come back in band order: red, green, blue
+      raster.getDataElements(0, y, width, 1, row);
+      int start = y * width;
+      for (int x = 0; x < width; x++) {
+        result.red[start + x] = row[3 * x];
+        result.green[start + x] = row[3 * x + 1];
+        result.blue[start + x] = row[3 * x + 2];
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Copies the planes into a 3-byte BGR buffered image, one plane at a time.
+   *
+   * @return a buffered image holding this image
+   */
+  BufferedImage toBufferedImage() {
+    BufferedImage image = new BufferedImage(this.width, this.height,
+            BufferedImage.TYPE_3BYTE_BGR);
+    byte[] bgr = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+    int size = this.width * this.height;
+    for (int i = 0; i < size; i++) {
+      bgr[3 * i] = this.blue[i];
+    }
+    for (int i = 0; i < size; i++) {
+      bgr[3 * i + 1] = this.green[i];
+    }
+    for (int i = 0; i < size; i++) {
+      bgr[3 * i + 2] = this.red[i];
+    }
+    return image;
+  }
+
+  /**
+   * Return a string that represents the current state of the image, one row per line.
+   *
+   * @return the image state as a string
+   */
+  @Override
+  public String toString() {
+    StringBuilder stringBuilder = new StringBuilder();
+    stringBuilder.append(this.width + " ");
+    stringBuilder.append(this.height + "\n");
+    for (int y = 0; y < this.height; y++) {
+      for (int x = 0; x < this.width; x++) {
+        int i = y * this.width + x;
+        stringBuilder.append("(R:" + (this.red[i] & 0xFF) + ", G:" + (this.green[i] & 0xFF)
+                + ", B:" + (this.blue[i] & 0xFF) + ")");
+        stringBuilder.append(x < this.width - 1 ? " " : "\n");
+      }
+    }
+    return stringBuilder.toString();
+  }
+}
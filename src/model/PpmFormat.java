@@ -0,0 +1,55 @@
+package model;
+
+/**
+ * This enum represents the ways an image can be written as a PPM file: as plain text, P3, or
+ * as binary, P6, with one or two bytes per sample. Binary files are three to four times
+ * smaller and much faster to read and write, so they suit images passed between programs.
+ */
+public enum PpmFormat {
+  PLAIN("p3", 255),
+  BINARY("p6", 255),
+  BINARY_16("p6-16", 65535);
+
+  private final String name;
+  private final int maxValue;
+
+  PpmFormat(String name, int maxValue) {
+    this.name = name;
+    this.maxValue = maxValue;
+  }
+
+  /**
+   * Returns the format with the given name, p3, p6 or p6-16, in any case.
+   *
+   * @param name the name of the format
+   * @return the format
+   * @throws IllegalArgumentException if no format has the name
+   */
+  public static PpmFormat fromName(String name) throws IllegalArgumentException {
+    for (PpmFormat format : values()) {
+      if (format.name.equalsIgnoreCase(name)) {
+        return format;
+      }
+    }
+    throw new IllegalArgumentException("Unknown PPM format: " + name);
+  }
+
+  /**
+   * Returns the largest sample value the format writes.
+   *
+   * @return 255, or 65535 for two bytes per sample
+   */
+  int getMaxValue() {
+    return this.maxValue;
+  }
+
+  /**
+   * Returns the name of the format, as {@link #fromName(String)} accepts it.
+   *
+   * @return the name
+   */
+  @Override
+  public String toString() {
+    return this.name;
+  }
+}
@@ -0,0 +1,443 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class reads PPM files, plain (P3) or binary (P6), picking the format from the file's
+ * first bytes. It reads the file through a channel into a buffer of bytes and decodes the
+ * numbers from the bytes itself, so no text is made and no number is boxed, and it writes the
+ * pixels straight into the array the image keeps. Binary files with one byte per sample hold
+ * their pixels the way a {@link MappedImage} does, so they are not read at all: the file is
+ * mapped as the image's storage. Other binary pixels are read a band of rows at a time into a
+ * direct buffer, which the channel fills without copying.
+ *
+ * <p>A reader can also hand out the image a row at a time, for processing a file without
+ * holding all of it. The rows of a plain file come in order; those of a binary file in any
+ * order, since each row starts at a known place in the file.
+ *
+ * <p>Comments, from a '#' to the end of the line, may come anywhere whitespace may in a plain
+ * file and in the header of a binary one. Samples are scaled from the file's maximum value to
+ * 0 to 255; binary files with a maximum above 255 hold two bytes per sample, most significant
+ * first.
+ */
+final class PpmReader implements Closeable {
+  private static final int BUFFER = 1 << 16;
+  private static final int BAND = 1 << 20;
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER);
+  private final byte[] bytes = this.buffer.array();
+  private long start;
+  private int position;
+  private int limit;
+
+  private final String format;
+  private final int width;
+  private final int height;
+  private final int maxValue;
+  private final long dataStart;
+  private int nextRow;
+
+  private ByteBuffer band;
+  private int rowBytes;
+  private int bandFirst;
+  private int bandCount;
+
+  /**
+   * Opens the given file and reads its header.
+   *
+   * @param filename the path of the file
+   * @throws IllegalArgumentException if the file cannot be read or its header is not valid
+   */
+  private PpmReader(String filename) throws IllegalArgumentException {
+    try {
+      this.channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+    } catch (IOException | RuntimeException e) {
+      throw new IllegalArgumentException("Unable to read the file.");
+    }
+    try {
+      if (read() != 'P') {
+        throw new IllegalArgumentException("Invalid PPM file: it should begin with P3 or P6.");
+      }
+      this.format = "P" + (char) read();
+      if (!this.format.equals("P3") && !this.format.equals("P6")) {
+        throw new IllegalArgumentException("Unsupported PPM format: " + this.format);
+      }
+      this.width = nextInt();
+      this.height = nextInt();
+      this.maxValue = nextInt();
+      if (this.width <= 0 || this.height <= 0) {
+        throw new IllegalArgumentException("Invalid PPM file: the size must be positive.");
+      }
+      if (this.maxValue <= 0 || this.maxValue > 65535) {
+        throw new IllegalArgumentException(
+                "Invalid PPM file: the maximum value must be from 1 to 65535.");
+      }
+      this.dataStart = this.start + this.position;
+    } catch (IllegalArgumentException e) {
+      close();
+      throw e;
+    }
+  }
+
+  /**
+   * Opens the given PPM file and reads its header, leaving the pixels to be read later. The
+   * file stays open until the reader is closed, so the pixels read are those of the file
+   * opened even if another file is later saved under its name.
+   *
+   * @param filename the path of the file
+   * @return the reader
+   * @throws IllegalArgumentException if the file cannot be read or its header is not valid
+   */
+  static PpmReader open(String filename) throws IllegalArgumentException {
+    return new PpmReader(filename);
+  }
+
+  /**
+   * Reads the PPM image in the given file.
+   *
+   * @param filename the path of the file
+   * @return the image
+   * @throws IllegalArgumentException if the file cannot be read or is not a valid PPM file
+   * @see #readImage()
+   */
+  static Image read(String filename) throws IllegalArgumentException {
+    try (PpmReader reader = new PpmReader(filename)) {
+      return reader.readImage();
+    }
+  }
+
+  /**
+   * Returns the width of the image in the file.
+   *
+   * @return the width
+   */
+  int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * Returns the height of the image in the file.
+   *
+   * @return the height
+   */
+  int getHeight() {
+    return this.height;
+  }
+
+  /**
+   * Returns whether the rows of the file can be read in any order, which is the case for
+   * binary files.
+   *
+   * @return true if rows can be read in any order
+   */
+  boolean readsInAnyOrder() {
+    return this.format.equals("P6");
+  }
+
+  /**
+   * Reads the whole image. Binary files with one byte per sample are mapped; other images that
+   * fit on the heap are read into a packed array taken from the {@link BufferPool}, and the
+   * rest into a memory-mapped image, a row at a time.
+   *
+   * @return the image
+   * @throws IllegalArgumentException if the file cannot be read or is not a valid PPM file
+   */
+  Image readImage() throws IllegalArgumentException {
+    if (this.format.equals("P3")) {
+      return readPlain();
+    }
+    return this.maxValue == 255 ? mapBinary() : readBinary();
+  }
+
+  /**
+   * Reads one row of the image as packed 0xRRGGBB values. Rows of a plain file must be read
+   * in order, from the first or from the row after the one read last.
+   *
+   * @param y   the row to read
+   * @param row the array to read into
+   * @throws IllegalArgumentException if the file cannot be read or is not a valid PPM file
+   * @throws IllegalStateException    if a row of a plain file is read out of order
+   */
+  void readRow(int y, int[] row) throws IllegalArgumentException, IllegalStateException {
+    if (readsInAnyOrder()) {
+      int at = loadBand(y);
+      readBinary(this.band, at, row, 0);
+      return;
+    }
+    if (y == 0 && this.nextRow != 0) {
+      rewind();
+    } else if (y != this.nextRow) {
+      throw new IllegalStateException("The rows of a plain PPM file can only be read in order.");
+    }
+    readPlain(row, 0, this.width);
+    this.nextRow++;
+  }
+
+  /**
+   * Goes back to the first pixel of a plain file.
+   */
+  private void rewind() throws IllegalArgumentException {
+    try {
+      this.channel.position(this.dataStart);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Unable to read the file.");
+    }
+    this.start = this.dataStart;
+    this.position = 0;
+    this.limit = 0;
+    this.nextRow = 0;
+  }
+
+  /**
+   * Reads the pixels of a plain, ASCII, PPM file.
+   */
+  private Image readPlain() throws IllegalArgumentException {
+    if (this.nextRow != 0) {
+      rewind();
+    }
+    this.nextRow = this.height;
+    if (!ImageUtil.fitsOnHeap(this.width, this.height)) {
+      Image image = ImageUtil.createImage(this.width, this.height);
+      int[] row = new int[this.width];
+      for (int y = 0; y < this.height; y++) {
+        readPlain(row, 0, this.width);
+        image.setRow(y, row);
+      }
+      return image;
+    }
+    int[] data = BufferPool.take(this.width * this.height, false);
+    try {
+      readPlain(data, 0, this.width * this.height);
+    } catch (IllegalArgumentException e) {
+      BufferPool.give(data);
+      throw e;
+    }
+    return new PackedImage(this.width, this.height, data);
+  }
+
+  /**
+   * Reads the given number of pixels of a plain PPM file into the given range as packed
+   * 0xRRGGBB values.
+   */
+  private void readPlain(int[] pixels, int from, int to) throws IllegalArgumentException {
+    for (int i = from; i < to; i++) {
+      int red = nextSample();
+      int green = nextSample();
+      int blue = nextSample();
+      pixels[i] = (red << 16) | (green << 8) | blue;
+    }
+  }
+
+  /**
+   * Maps the pixels of a binary PPM file with one byte per sample, which start right after
+   * the header, as the storage of a read-only {@link MappedImage}.
+   */
+  private Image mapBinary() throws IllegalArgumentException {
+    try {
+      if (this.channel.size() - this.dataStart < 3L * this.width * this.height) {
+        throw new IllegalArgumentException("Invalid PPM file: it ends too early.");
+      }
+      return new MappedImage(this.width, this.height, this.channel, this.dataStart);
+    } catch (IOException | IllegalStateException e) {
+      throw new IllegalArgumentException("Unable to read the file.");
+    }
+  }
+
+  /**
+   * Reads the pixels of a binary PPM file, a band of rows at a time.
+   */
+  private Image readBinary() throws IllegalArgumentException {
+    boolean packed = ImageUtil.fitsOnHeap(this.width, this.height);
+    int[] data = packed ? BufferPool.take(this.width * this.height, false) : null;
+    Image image = packed ? null : ImageUtil.createImage(this.width, this.height);
+    int[] row = packed ? null : new int[this.width];
+    try {
+      for (int y = 0; y < this.height; y++) {
+        int at = loadBand(y);
+        if (packed) {
+          readBinary(this.band, at, data, y * this.width);
+        } else {
+          readBinary(this.band, at, row, 0);
+          image.setRow(y, row);
+        }
+      }
+    } catch (IllegalArgumentException e) {
+      if (packed) {
+        BufferPool.give(data);
+      }
+      throw e;
+    }
+    return packed ? new PackedImage(this.width, this.height, data) : image;
+  }
+
+  /**
+   * Makes sure the band holds the given row of a binary file and returns where in the band
+   * the row starts. A row outside the band is read with the band of rows after it, or before
+   * it when the rows are being read backwards, straight from its place in the file.
+   */
+  private int loadBand(int y) throws IllegalArgumentException {
+    if (this.band == null) {
+      long rowLength = this.width * (this.maxValue > 255 ? 6L : 3L);
+      if (rowLength > Integer.MAX_VALUE - 8) {
+        throw new IllegalArgumentException("Invalid PPM file: the rows are too long.");
+      }
+      this.rowBytes = (int) rowLength;
+      int rows = Math.max(1, Math.min(BAND / this.rowBytes, this.height));
+      this.band = ByteBuffer.allocateDirect(rows * this.rowBytes);
+    }
+    if (y < this.bandFirst || y >= this.bandFirst + this.bandCount) {
+      int rows = this.band.capacity() / this.rowBytes;
+      int first = y < this.bandFirst ? Math.max(0, y - rows + 1) : y;
+      int count = Math.min(rows, this.height - first);
+      long at = this.dataStart + (long) first * this.rowBytes;
+      this.band.clear();
+      this.band.limit(count * this.rowBytes);
+      try {
+        while (this.band.hasRemaining()) {
+          if (this.channel.read(this.band, at + this.band.position()) < 0) {
+            throw new IllegalArgumentException("Invalid PPM file: it ends too early.");
+          }
+        }
+      } catch (IOException e) {
+        throw new IllegalArgumentException("Unable to read the file.");
+      }
+      this.bandFirst = first;
+      this.bandCount = count;
+    }
+    return (y - this.bandFirst) * this.rowBytes;
+  }
+
+  /**
+   * Decodes one row of binary pixels, starting at the given byte of the band, into packed
+   * 0xRRGGBB values from the given index on.
+   */
+  private void readBinary(ByteBuffer band, int at, int[] pixels, int from)
+          throws IllegalArgumentException {
+    int to = from + this.width;
+    if (this.maxValue > 255) {
+      for (int i = from; i < to; i++, at += 6) {
+        int red = sample(band.getShort(at) & 0xFFFF);
+        int green = sample(band.getShort(at + 2) & 0xFFFF);
+        int blue = sample(band.getShort(at + 4) & 0xFFFF);
+        pixels[i] = (red << 16) | (green << 8) | blue;
+      }
+    } else if (this.maxValue == 255) {
+      for (int i = from; i < to; i++, at += 3) {
+        pixels[i] = ((band.get(at) & 0xFF) << 16) | ((band.get(at + 1) & 0xFF) << 8)
+                | (band.get(at + 2) & 0xFF);
+      }
+    } else {
+      for (int i = from; i < to; i++, at += 3) {
+        int red = sample(band.get(at) & 0xFF);
+        int green = sample(band.get(at + 1) & 0xFF);
+        int blue = sample(band.get(at + 2) & 0xFF);
+        pixels[i] = (red << 16) | (green << 8) | blue;
+      }
+    }
+  }
+
+  /**
+   * Reads the next sample and scales it to 0 to 255.
+   */
+  private int nextSample() throws IllegalArgumentException {
+    return sample(nextInt());
+  }
+
+  /**
+   * Scales a sample from 0 to the file's maximum value to 0 to 255, rounding to nearest.
+   */
+  private int sample(int sample) throws IllegalArgumentException {
+    if (sample > this.maxValue) {
+      throw new IllegalArgumentException("Invalid PPM file: a sample is above the maximum.");
+    }
+    return this.maxValue == 255 ? sample : (sample * 255 + this.maxValue / 2) / this.maxValue;
+  }
+
+  /**
+   * Returns the next byte of the file, or -1 at the end.
+   */
+  private int read() throws IllegalArgumentException {
+    if (this.position == this.limit) {
+      this.start += this.limit;
+      this.buffer.clear();
+      int count;
+      try {
+        count = this.channel.read(this.buffer);
+      } catch (IOException e) {
+        throw new IllegalArgumentException("Unable to read the file.");
+      }
+      if (count <= 0) {
+        return -1;
+      }
+      this.position = 0;
+      this.limit = count;
+    }
+    return this.bytes[this.position++] & 0xFF;
+  }
+
+  /**
+   * Reads the next number, skipping whitespace and comments before it. The byte that ends the
+   * number is read too, along with the rest of the line if it starts a comment.
+   */
+  private int nextInt() throws IllegalArgumentException {
+    int c = read();
+    while (c == '#' || isSpace(c)) {
+      if (c == '#') {
+        c = skipComment();
+      }
+      c = read();
+    }
+    if (c < '0' || c > '9') {
+      throw new IllegalArgumentException(c < 0 ? "Invalid PPM file: it ends too early."
+              : "Invalid PPM file: expected a number.");
+    }
+    int value = 0;
+    do {
+      if (value > (Integer.MAX_VALUE - 9) / 10) {
+        throw new IllegalArgumentException("Invalid PPM file: a number is too large.");
+      }
+      value = value * 10 + (c - '0');
+      c = read();
+    }
+    while (c >= '0' && c <= '9');
+    if (c == '#') {
+      skipComment();
+    } else if (c >= 0 && !isSpace(c)) {
+      throw new IllegalArgumentException("Invalid PPM file: expected a number.");
+    }
+    return value;
+  }
+
+  /**
+   * Skips to the end of a comment, returning the byte that ends it.
+   */
+  private int skipComment() throws IllegalArgumentException {
+    int c = read();
+    while (c >= 0 && c != '\n' && c != '\r') {
+      c = read();
+    }
+    return c;
+  }
+
+  private static boolean isSpace(int c) {
+    return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == 0x0B || c == '\f';
+  }
+
+  /**
+   * Closes the file.
+   */
+  @Override
+  public void close() {
+    try {
+      this.channel.close();
+    } catch (IOException e) {
+      //nothing was written, so there is nothing to lose
+    }
+  }
+}
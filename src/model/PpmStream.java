@@ -0,0 +1,86 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class saves an image that is made from a PPM file, or from an image already made, by
+ * operations that each work on a pixel alone: flips, brighten, the components, sepia,
+ * greyscale, levels, gamma, invert and threshold. Such a chain is one mirroring and one
+ * {@link ColorTransform}, so the file is written a row at a time, each row read from where
+ * the flips move it, recoloured and written out, and the images of the chain are never made.
+ * Beyond the image it starts from, saving takes memory for a few rows and the buffers of the
+ * reader and writer, whatever the size of the image.
+ *
+ * <p>Each step is collected in the {@link FixedPoint} mode its recipe recorded, so the file
+ * written is the same as the made image, whatever the mode is when it is saved.
+ *
+ * <p>Only binary files are streamed straight from the file. A plain file must be parsed
+ * again each time it is read, and a script often saves several images made from one file,
+ * so a plain file is made into its recipe's image once and the chain is streamed from that.
+ */
+final class PpmStream {
+  private PpmStream() {
+  }
+
+  /**
+   * Saves the image of the given recipe by streaming it, if its recipes allow it.
+   *
+   * @param recipe   the recipe of the image to save
+   * @param filename the path of the file
+   * @param format   the format to write
+   * @return true if the image was saved, false if it must be made to be saved
+   * @throws IllegalArgumentException if the file the image is read from is not valid
+   * @throws IllegalStateException    if the file cannot be written
+   */
+  static boolean save(Recipe recipe, String filename, PpmFormat format)
+          throws IllegalArgumentException, IllegalStateException {
+    if (recipe.isMade()) {
+      return false;
+    }
+    List<Recipe> chain = new ArrayList<>();
+    Recipe origin = recipe.origin(chain);
+    if (origin == null) {
+      return false;
+    }
+    PpmReader reader = origin.reader();
+    if (reader != null && !reader.readsInAnyOrder()) {
+      // parsed once into the recipe's image, which later saves stream from
+      reader = null;
+    }
+    Image image = reader == null ? origin.image() : null;
+    if (reader == null && image == null) {
+      return false;
+    }
+    Pipeline pipeline = new Pipeline();
+    for (Recipe step : chain) {
+      pipeline.setFixed(step.isFixed());
+      step.step().execute(pipeline);
+    }
+    boolean upsideDown = pipeline.isUpsideDown();
+    boolean mirrored = pipeline.isMirrored();
+    ColorTransform colour = pipeline.getColour();
+    int width = reader != null ? reader.getWidth() : image.getWidth();
+    int height = reader != null ? reader.getHeight() : image.getHeight();
+    try (PpmWriter writer = new PpmWriter(filename, width, height, format)) {
+      int[] row = new int[width];
+      for (int y = 0; y < height; y++) {
+        int from = upsideDown ? height - 1 - y : y;
+        if (reader != null) {
+          reader.readRow(from, row);
+        } else {
+          image.getRow(from, row);
+        }
+        if (mirrored) {
+          PixelOps.reverse(row, 0, width);
+        }
+        if (colour != null) {
+          colour.apply(row, 0, width);
+        }
+        writer.writeRow(row);
+      }
+      writer.finish();
+    }
+    return true;
+  }
+}
@@ -0,0 +1,212 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class writes images as PPM files, plain (P3) or binary (P6). The image is given a row
+ * at a time, from an image or from rows worked out as they are written, and the row's bytes
+ * are put in a buffer of about a megabyte, which goes to the file through a channel whenever
+ * it fills, so the image never has to be held whole and the file is written in a few large
+ * pieces.
+ *
+ * <p>Plain files are written from a table holding the text of every value from 0 to 255, so
+ * writing a sample copies at most four bytes and makes no text. Binary rows are packed into a
+ * direct buffer, which the channel writes without copying.
+ *
+ * <p>The file is written under a name of its own next to the destination and then moved over
+ * it. An image loaded from the old file may still be reading it, through a mapping or a
+ * reader kept open, and the move leaves that file whole for it instead of cutting it short.
+ */
+final class PpmWriter implements Closeable {
+  private static final int BUFFER = 1 << 20;
+
+  /**
+   * The text of each value from 0 to 255 followed by a new line, four bytes per value, and
+   * the length of each.
+   */
+  private static final byte[] TEXT = new byte[256 * 4];
+  private static final byte[] LENGTH = new byte[256];
+
+  static {
+    for (int value = 0; value < 256; value++) {
+      byte[] text = (value + "\n").getBytes(StandardCharsets.US_ASCII);
+      System.arraycopy(text, 0, TEXT, value * 4, text.length);
+      LENGTH[value] = (byte) text.length;
+    }
+  }
+
+  private final Path target;
+  private final Path part;
+  private final FileChannel channel;
+  private final PpmFormat format;
+  private final int width;
+  private final int rowBytes;
+  private final ByteBuffer buffer;
+  private boolean finished;
+
+  /**
+   * Starts a PPM file of the given size and format, to be given its rows in order with
+   * {@link #writeRow(int[])} and completed with {@link #finish()}. Until then the file is
+   * written under a name of its own, so closing the writer without finishing leaves the
+   * destination as it was.
+   *
+   * @param filename the path of the file
+   * @param width    the width of the image
+   * @param height   the height of the image
+   * @param format   the format
+   * @throws IllegalStateException if the file cannot be written
+   */
+  PpmWriter(String filename, int width, int height, PpmFormat format)
+          throws IllegalStateException {
+    this.target = Paths.get(filename);
+    this.part = Paths.get(filename + ".part");
+    this.format = format;
+    this.width = width;
+    //a plain sample takes at most four bytes with its new line
+    this.rowBytes = width * (format == PpmFormat.PLAIN ? 12 : format.getMaxValue() > 255 ? 6 : 3);
+    int capacity = Math.max(BUFFER, this.rowBytes);
+    this.buffer = format == PpmFormat.PLAIN ? ByteBuffer.allocate(capacity)
+            : ByteBuffer.allocateDirect(capacity);
+    try {
+      this.channel = FileChannel.open(this.part, StandardOpenOption.WRITE,
+              StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    } catch (IOException e) {
+      throw new IllegalStateException("An file write error occurred");
+    }
+    String header = format == PpmFormat.PLAIN
+            ? "P3\n# Created by CS3500 students Julia Ouritskaya and Evelyn Robert\n"
+            + width + " " + height + "\n255\n"
+            : "P6\n" + width + " " + height + "\n" + format.getMaxValue() + "\n";
+    this.buffer.put(header.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  /**
+   * Writes the image to the given file in the given format. Binary samples are scaled from
+   * 0 to 255 to the format's maximum value.
+   *
+   * @param filename the path of the file
+   * @param image    the image to write
+   * @param format   the format
+   * @throws IllegalStateException if the file cannot be written
+   */
+  static void write(String filename, Image image, PpmFormat format)
+          throws IllegalStateException {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    try (PpmWriter writer = new PpmWriter(filename, width, height, format)) {
+      int[] row = new int[width];
+      for (int y = 0; y < height; y++) {
+        image.getRow(y, row);
+        writer.writeRow(row);
+      }
+      writer.finish();
+    }
+  }
+
+  /**
+   * Writes the next row of the image, given as packed 0xRRGGBB values.
+   *
+   * @param row the row
+   * @throws IllegalStateException if the file cannot be written
+   */
+  void writeRow(int[] row) throws IllegalStateException {
+    if (this.buffer.remaining() < this.rowBytes) {
+      drain();
+    }
+    if (this.format == PpmFormat.PLAIN) {
+      byte[] bytes = this.buffer.array();
+      int at = this.buffer.position();
+      for (int x = 0; x < this.width; x++) {
+        int p = row[x];
+        at = putText(bytes, at, (p >> 16) & 0xFF);
+        at = putText(bytes, at, (p >> 8) & 0xFF);
+        at = putText(bytes, at, p & 0xFF);
+      }
+      this.buffer.position(at);
+    } else if (this.format.getMaxValue() > 255) {
+      for (int x = 0; x < this.width; x++) {
+        int p = row[x];
+        //257 maps 0 to 0 and 255 to 65535, with both bytes of a sample the same
+        this.buffer.putShort((short) (((p >> 16) & 0xFF) * 257));
+        this.buffer.putShort((short) (((p >> 8) & 0xFF) * 257));
+        this.buffer.putShort((short) ((p & 0xFF) * 257));
+      }
+    } else {
+      for (int x = 0; x < this.width; x++) {
+        int p = row[x];
+        this.buffer.put((byte) (p >> 16));
+        this.buffer.put((byte) (p >> 8));
+        this.buffer.put((byte) p);
+      }
+    }
+  }
+
+  /**
+   * Copies the text of the given value and a new line into the array at the given index,
+   * returning the index after it.
+   */
+  private static int putText(byte[] bytes, int at, int value) {
+    int from = value * 4;
+    int length = LENGTH[value];
+    for (int i = 0; i < length; i++) {
+      bytes[at + i] = TEXT[from + i];
+    }
+    return at + length;
+  }
+
+  /**
+   * Writes everything in the buffer to the file and empties the buffer.
+   */
+  private void drain() throws IllegalStateException {
+    this.buffer.flip();
+    try {
+      while (this.buffer.hasRemaining()) {
+        this.channel.write(this.buffer);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("An file write error occurred");
+    }
+    this.buffer.clear();
+  }
+
+  /**
+   * Writes what is left and moves the file over the destination.
+   *
+   * @throws IllegalStateException if the file cannot be written
+   */
+  void finish() throws IllegalStateException {
+    drain();
+    try {
+      this.channel.close();
+      Files.move(this.part, this.target, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new IllegalStateException("An file write error occurred");
+    }
+    this.finished = true;
+  }
+
+  /**
+   * Closes the file, deleting it unless it was finished.
+   */
+  @Override
+  public void close() {
+    if (this.finished) {
+      return;
+    }
+    try {
+      this.channel.close();
+      Files.deleteIfExists(this.part);
+    } catch (IOException ignored) {
+      //the write already failed, which is what gets reported
+    }
+  }
+}
@@ -1,5 +1,8 @@
 package model;
 
+import java.util.List;
+
+import operations.ImageOperationCommand;
 
 /**
  * This interface represents the processing model for images. It stores all the images.
@@ -47,8 +50,52 @@ public interface ProcessingModel {
 
   void blur(String imageName, String destImageName);
 
+  void blur(int radius, String imageName, String destImageName);
+
   void sharpen(String imageName, String destImageName);
 
+  /**
+   * Stretches the channel values of an image so that the black, mid and white points become
+   * 0, 128 and 255.
+   * @param black the value that becomes 0
+   * @param mid the value that becomes 128
+   * @param white the value that becomes 255
+   * @throws IllegalArgumentException unless 0 <= black < mid < white <= 255
+   */
+  void levels(int black, int mid, int white, String imageName, String destImageName);
+
+  /**
+   * Applies gamma correction to an image, raising each channel value, as a fraction of 255,
+   * to the power 1 / gamma.
+   * @param gamma the gamma, above 1 to brighten the mid tones
+   * @throws IllegalArgumentException if the gamma is not positive
+   */
+  void gamma(double gamma, String imageName, String destImageName);
+
+  /**
+   * Inverts every channel of an image.
+   */
+  void invert(String imageName, String destImageName);
+
+  /**
+   * Makes every channel of an image 255 if it is at least the given level and 0 otherwise.
+   * @param level the lowest value that becomes 255
+   */
+  void threshold(int level, String imageName, String destImageName);
+
+  /**
+   * Runs the given operations on an image one after another, each on the result of the one
+   * before, and stores the final result. The image names the operations were created with are
+   * not used. Operations that work on each pixel alone run together in one pass over the
+   * pixels, which only operations that read a pixel's neighbours, like blur and sharpen, break.
+   * @param imageName the name of the image to start from
+   * @param destImageName the name to store the result under
+   * @param commands the operations, first to last
+   * @throws IllegalArgumentException if there is no image of the given name or an operation
+   *                                  fails
+   */
+  void apply(String imageName, String destImageName, List<ImageOperationCommand> commands);
+
   /**
    * Loads a file to an image for the user to implement operations on.
    * @param imagePath the path to the image file
@@ -62,4 +109,13 @@ public interface ProcessingModel {
    * @throws IllegalArgumentException if the image path is null.
    */
   public void save(String imagePath, String imageName);
+
+  /**
+   * Saves an image to a PPM file in the given format.
+   * @param imagePath the path to the image file
+   * @param imageName the name of the image
+   * @param format the format, plain or binary
+   * @throws IllegalArgumentException if the image path is null.
+   */
+  public void save(String imagePath, String imageName, PpmFormat format);
 }
@@ -1,62 +1,135 @@
 package model;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import operations.ImageOperationCommand;
+
 /**
  * This class implements the processing model for images. It stores all the images.
+ *
+ * <p>Images are stored as {@link Recipe}s: an operation only records which image it starts
+ * from and what it does, and the pixels are made when the result is used, by
+ * {@link #getImage(String)} or {@link #save(String, String)}. An image that is replaced before
+ * anything uses it, directly or through an image made from it, is never made, and an image
+ * several others start from is made once. Arguments are still checked when the operation is
+ * given, so a bad one fails there rather than when the result is used.
+ *
+ * <p>Every operation starts from a copy of the source image. Those copies share the source's
+ * pixels until the operation writes to them, so deriving many images from one source does not
+ * pay for a full copy up front. When an image is no longer stored or needed, its storage goes
+ * back to a pool that later operations draw from, so a long script reuses the same few arrays
+ * instead of allocating new ones at every step.
+ *
+ * <p>PPM files are opened when loaded, which reads their header, and read when the image is
+ * made. Operations that work on each pixel alone also record themselves as a step for a
+ * {@link Pipeline}, so an image made from a file or a made image by such operations alone is
+ * saved by {@link PpmStream} a row at a time, without making it or a binary file's image.
+ *
+ * <p>Sepia, brighten, levels, gamma, invert and threshold results, and greyscale and component
+ * results of those, are made as a {@link RecoloredImage} that holds the colour operations
+ * until the result is used. A chain of colour operations then runs as one pass over the pixels
+ * instead of one pass per step.
+ *
+ * <p>Each operation uses the {@link FixedPoint} mode set when it is given, even though its
+ * image is made later, so turning the mode on or off only changes operations given after.
  */
 public class ProcessingModelImpl implements ProcessingModel {
-  protected final Map<String, Image> images;
+  protected final Map<String, Recipe> images;
 
   public ProcessingModelImpl() {
     this.images = new HashMap<>();
   }
 
   /**
-   * Returns the image based on the name of the image the user inputs.
+   * Returns the image based on the name of the image the user inputs, making it first if it
+   * has not been made. The image returned shares the stored image's pixels until either is
+   * written, so it is cheap to hand out and changing it leaves the stored image untouched.
    *
    * @param imageName the name of the image
    * @return the image
    */
   @Override
   public Image getImage(String imageName) {
-    Image image = this.images.get(imageName);
-    Image deepCopy = new ImageImpl(image.getPixels());
-    return deepCopy;
+    Recipe recipe = this.images.get(imageName);
+    return ImageUtil.cloneImage(recipe == null ? null : recipe.image());
   }
 
   /**
-   * Adds an image to the processing model.
+   * Returns the recipe stored under the given name.
+   *
+   * @throws IllegalArgumentException if there is no image of the given name
+   */
+  private Recipe recipe(String imageName) throws IllegalArgumentException {
+    Recipe recipe = this.images.get(imageName);
+    if (recipe == null) {
+      throw new IllegalArgumentException("No image named " + imageName + ".");
+    }
+    return recipe;
+  }
+
+  /**
+   * Stores a recipe under the given name. The recipe it replaces, if nothing else needs it,
+   * hands its pixel storage back to the {@link BufferPool} for the next operation to reuse.
+   *
+   * @param imageName the name to store the recipe under
+   * @param recipe    the recipe to store
+   */
+  private void store(String imageName, Recipe recipe) {
+    recipe.bind();
+    Recipe replaced = this.images.put(imageName, recipe);
+    if (replaced != null) {
+      replaced.unbind();
+    }
+  }
+
+  /**
+   * Stores the recipe that runs the given operation on the named image.
+   */
+  private void derive(String imageName, String destImageName, Recipe.Operation operation) {
+    derive(imageName, destImageName, operation, null);
+  }
+
+  /**
+   * Stores the recipe that runs the given operation on the named image, or the given step when
+   * the result is streamed to a file.
+   */
+  private void derive(String imageName, String destImageName, Recipe.Operation operation,
+                      ImageOperationCommand step) {
+    store(destImageName, recipe(imageName).then(operation, step));
+  }
+
+  /**
+   * Adds an image to the processing model. The model keeps a copy that shares the image's
+   * pixels, so the caller may go on using the image.
    *
    * @param image     the image to add
    * @param imageName the name of the image
    */
   @Override
   public void addImage(Image image, String imageName) {
-    this.images.put(imageName, image);
+    store(imageName, Recipe.of(image == null ? null : ImageUtil.cloneImage(image)));
   }
 
   /**
-   * Flips the image horizontally by flipping its pixel composition.
+   * Flips the image horizontally. The result is a mirrored view of the image, so no pixels
+   * are moved until the result is edited further.
    */
   @Override
   public void flipHorizontal(String imageName, String destImageName) {
-    Image image = this.images.get(imageName);
-    Image deepCopy = ImageUtil.cloneImage(image);
-    deepCopy.flipHorizontal();
-    this.images.put(destImageName, deepCopy);
+    derive(imageName, destImageName, (image, fixed) -> RemappedImage.flipHorizontal(image),
+        model -> model.flipHorizontal(imageName, destImageName));
   }
 
   /**
-   * Flips the image vertically by flipping its pixel composition.
+   * Flips the image vertically. The result is a mirrored view of the image, so no pixels are
+   * moved until the result is edited further.
    */
   @Override
   public void flipVertical(String imageName, String destImageName) {
-    Image image = this.images.get(imageName);
-    Image deepCopy = ImageUtil.cloneImage(image);
-    deepCopy.flipVertical();
-    this.images.put(destImageName, deepCopy);
+    derive(imageName, destImageName, (image, fixed) -> RemappedImage.flipVertical(image),
+        model -> model.flipVertical(imageName, destImageName));
   }
 
   /**
@@ -66,10 +139,9 @@ public class ProcessingModelImpl implements ProcessingModel {
    */
   @Override
   public void brighten(int component, String imageName, String destImageName) {
-    Image image = this.images.get(imageName);
-    Image deepCopy = ImageUtil.cloneImage(image);
-    deepCopy.brighten(component);
-    this.images.put(destImageName, deepCopy);
+    ChannelTable table = ChannelTable.brighten(component);
+    derive(imageName, destImageName, (image, fixed) -> recolor(image, table, fixed),
+        model -> model.brighten(component, imageName, destImageName));
   }
 
   /**
@@ -77,10 +149,9 @@ public class ProcessingModelImpl implements ProcessingModel {
    */
   @Override
   public void intensity(String imageName, String destImageName) {
-    Image image = this.images.get(imageName);
-    Image deepCopy = ImageUtil.cloneImage(image);
-    deepCopy.component("intensity");
-    this.images.put(destImageName, deepCopy);
+    derive(imageName, destImageName,
+        (image, fixed) -> greyComponent(image, ColorTransform.component("intensity"), fixed),
+        model -> model.intensity(imageName, destImageName));
   }
 
   /**
@@ -88,10 +159,9 @@ public class ProcessingModelImpl implements ProcessingModel {
    */
   @Override
   public void redComponent(String imageName, String destImageName) {
-    Image image = this.images.get(imageName);
-    Image deepCopy = ImageUtil.cloneImage(image);
-    deepCopy.component("red");
-    this.images.put(destImageName, deepCopy);
+    derive(imageName, destImageName,
+        (image, fixed) -> greyComponent(image, ColorTransform.component("red"), fixed),
+        model -> model.redComponent(imageName, destImageName));
   }
 
   /**
@@ -99,10 +169,9 @@ public class ProcessingModelImpl implements ProcessingModel {
    */
   @Override
   public void greenComponent(String imageName, String destImageName) {
-    Image image = this.images.get(imageName);
-    Image deepCopy = ImageUtil.cloneImage(image);
-    deepCopy.component("green");
-    this.images.put(destImageName, deepCopy);
+    derive(imageName, destImageName,
+        (image, fixed) -> greyComponent(image, ColorTransform.component("green"), fixed),
+        model -> model.greenComponent(imageName, destImageName));
   }
 
   /**
@@ -110,10 +179,9 @@ public class ProcessingModelImpl implements ProcessingModel {
    */
   @Override
   public void blueComponent(String imageName, String destImageName) {
-    Image image = this.images.get(imageName);
-    Image deepCopy = ImageUtil.cloneImage(image);
-    deepCopy.component("blue");
-    this.images.put(destImageName, deepCopy);
+    derive(imageName, destImageName,
+        (image, fixed) -> greyComponent(image, ColorTransform.component("blue"), fixed),
+        model -> model.blueComponent(imageName, destImageName));
   }
 
   /**
@@ -121,10 +189,9 @@ public class ProcessingModelImpl implements ProcessingModel {
    */
   @Override
   public void luma(String imageName, String destImageName) {
-    Image image = this.images.get(imageName);
-    Image deepCopy = ImageUtil.cloneImage(image);
-    deepCopy.component("luma");
-    this.images.put(destImageName, deepCopy);
+    derive(imageName, destImageName,
+        (image, fixed) -> greyComponent(image, ColorTransform.component("luma"), fixed),
+        model -> model.luma(imageName, destImageName));
   }
 
   /**
@@ -132,10 +199,9 @@ public class ProcessingModelImpl implements ProcessingModel {
    */
   @Override
   public void value(String imageName, String destImageName) {
-    Image image = this.images.get(imageName);
-    Image deepCopy = ImageUtil.cloneImage(image);
-    deepCopy.component("value");
-    this.images.put(destImageName, deepCopy);
+    derive(imageName, destImageName,
+        (image, fixed) -> greyComponent(image, ColorTransform.component("value"), fixed),
+        model -> model.value(imageName, destImageName));
   }
 
   /**
@@ -143,10 +209,8 @@ public class ProcessingModelImpl implements ProcessingModel {
    */
   @Override
   public void sepia(String imageName, String destImageName) {
-    Image image = this.images.get(imageName);
-    Image deepCopy = ImageUtil.cloneImage(image);
-    deepCopy.sepia();
-    this.images.put(destImageName, deepCopy);
+    derive(imageName, destImageName, (image, fixed) -> recolor(image, ColorMatrix.SEPIA, fixed),
+        model -> model.sepia(imageName, destImageName));
   }
 
   /**
@@ -154,10 +218,44 @@ public class ProcessingModelImpl implements ProcessingModel {
    */
   @Override
   public void greyscale(String imageName, String destImageName) {
-    Image image = this.images.get(imageName);
+    derive(imageName, destImageName,
+        (image, fixed) -> greyComponent(image, ColorMatrix.GREYSCALE, fixed),
+        model -> model.greyscale(imageName, destImageName));
+  }
+
+  /**
+   * Builds a greyscale image from the given image through a colour operation that makes it
+   * grey. The result is stored as a single grey level per pixel unless the image is too big
+   * for the heap, or added to the chain of an image with colour operations waiting.
+   */
+  private static Image greyComponent(Image image, ColorTransform.Step step, boolean fixed) {
+    if (RecoloredImage.isPending(image)) {
+      return RecoloredImage.recolor(image, step, fixed);
+    }
+    if (ImageUtil.fitsOnHeap(image.getWidth(), image.getHeight())) {
+      return GreyImage.recolor(image, step, fixed);
+    }
+    return recolor(image, step, fixed);
+  }
+
+  /**
+   * Returns the image through a colour operation, in the arithmetic mode recorded when the
+   * operation was given. Images that can wait in a chain of colour operations get the
+   * operation added to the chain; others are recoloured row by row.
+   */
+  private static Image recolor(Image image, ColorTransform.Step step, boolean fixed) {
+    if (RecoloredImage.canRecolor(image)) {
+      return RecoloredImage.recolor(image, step, fixed);
+    }
+    ColorTransform transform = new ColorTransform(step, fixed);
     Image deepCopy = ImageUtil.cloneImage(image);
-    deepCopy.greyscale();
-    this.images.put(destImageName, deepCopy);
+    int[] row = new int[deepCopy.getWidth()];
+    for (int y = 0; y < deepCopy.getHeight(); y++) {
+      deepCopy.getRow(y, row);
+      transform.apply(row, 0, row.length);
+      deepCopy.setRow(y, row);
+    }
+    return deepCopy;
   }
 
   /**
@@ -165,10 +263,29 @@ public class ProcessingModelImpl implements ProcessingModel {
    */
   @Override
   public void blur(String imageName, String destImageName) {
-    Image image = this.images.get(imageName);
-    Image deepCopy = ImageUtil.cloneImage(image);
-    deepCopy.blur();
-    this.images.put(destImageName, deepCopy);
+    derive(imageName, destImageName, (image, fixed) -> {
+      Image deepCopy = ImageUtil.cloneImage(image);
+      deepCopy.blur();
+      return deepCopy;
+    });
+  }
+
+  /**
+   * Method to blur an image by the given radius.
+   *
+   * @throws IllegalArgumentException if the radius is negative
+   */
+  @Override
+  public void blur(int radius, String imageName, String destImageName)
+          throws IllegalArgumentException {
+    if (radius < 0) {
+      throw new IllegalArgumentException("Radius must not be negative.");
+    }
+    derive(imageName, destImageName, (image, fixed) -> {
+      Image deepCopy = ImageUtil.cloneImage(image);
+      deepCopy.blur(radius);
+      return deepCopy;
+    });
   }
 
   /**
@@ -176,14 +293,79 @@ public class ProcessingModelImpl implements ProcessingModel {
    */
   @Override
   public void sharpen(String imageName, String destImageName) {
-    Image image = this.images.get(imageName);
-    Image deepCopy = ImageUtil.cloneImage(image);
-    deepCopy.sharpen();
-    this.images.put(destImageName, deepCopy);
+    derive(imageName, destImageName, (image, fixed) -> {
+      Image deepCopy = ImageUtil.cloneImage(image);
+      deepCopy.sharpen();
+      return deepCopy;
+    });
+  }
+
+  /**
+   * Method to stretch the levels of an image.
+   */
+  @Override
+  public void levels(int black, int mid, int white, String imageName, String destImageName) {
+    ChannelTable table = ChannelTable.levels(black, mid, white);
+    derive(imageName, destImageName, (image, fixed) -> recolor(image, table, fixed),
+        model -> model.levels(black, mid, white, imageName, destImageName));
+  }
+
+  /**
+   * Method to apply gamma correction to an image.
+   */
+  @Override
+  public void gamma(double gamma, String imageName, String destImageName) {
+    ChannelTable table = ChannelTable.gamma(gamma);
+    derive(imageName, destImageName, (image, fixed) -> recolor(image, table, fixed),
+        model -> model.gamma(gamma, imageName, destImageName));
+  }
+
+  /**
+   * Method to invert an image.
+   */
+  @Override
+  public void invert(String imageName, String destImageName) {
+    derive(imageName, destImageName,
+        (image, fixed) -> recolor(image, ChannelTable.invert(), fixed),
+        model -> model.invert(imageName, destImageName));
   }
 
   /**
-   * Loads a file to an image for the user to implement operations on.
+   * Method to threshold an image.
+   */
+  @Override
+  public void threshold(int level, String imageName, String destImageName) {
+    ChannelTable table = ChannelTable.threshold(level);
+    derive(imageName, destImageName, (image, fixed) -> recolor(image, table, fixed),
+        model -> model.threshold(level, imageName, destImageName));
+  }
+
+  /**
+   * Runs the given operations on an image as a {@link Pipeline}, which starts from a copy of
+   * the image and applies each run of per-pixel operations in one pass. Like every other
+   * operation, the pipeline runs when the result is used, so an operation that fails on its
+   * arguments fails then.
+   *
+   * @param imageName     the name of the image to start from
+   * @param destImageName the name to store the result under
+   * @param commands      the operations, first to last
+   * @throws IllegalArgumentException if there is no image of the given name
+   */
+  @Override
+  public void apply(String imageName, String destImageName,
+                    List<ImageOperationCommand> commands) throws IllegalArgumentException {
+    List<ImageOperationCommand> steps = List.copyOf(commands);
+    derive(imageName, destImageName, (image, fixed) -> {
+      Pipeline pipeline = new Pipeline(image, fixed);
+      pipeline.apply(imageName, destImageName, steps);
+      return pipeline.result();
+    });
+  }
+
+  /**
+   * Loads a file to an image for the user to implement operations on. A PPM file is opened and
+   * its header read straight away, so a missing file or bad header is reported here, and its
+   * pixels are read when the image is used; other files are read straight away.
    *
    * @param imagePath the path to the image file
    * @param imageName the name of the image
@@ -191,20 +373,42 @@ public class ProcessingModelImpl implements ProcessingModel {
    */
   @Override
   public void load(String imagePath, String imageName) {
-    this.images.put(imageName, ImageUtil.load(imagePath));
+    if (imagePath != null && imagePath.endsWith(".ppm")) {
+      store(imageName, Recipe.read(PpmReader.open(imagePath)));
+    } else {
+      store(imageName, Recipe.of(ImageUtil.load(imagePath)));
+    }
   }
 
   /**
-   * Saves an image to a file.
+   * Saves an image to a file, making it first if it has not been made and cannot be streamed.
    *
    * @param imagePath the path to the image file
    * @param imageName the name of the image
-   * @throws IllegalArgumentException if the image path is null.
+   * @throws IllegalArgumentException if the image path is null or there is no image of the
+   *                                  given name.
    */
   @Override
   public void save(String imagePath, String imageName) {
-    Image image = this.images.get(imageName);
-    ImageUtil.writePPM(imagePath, image);
-    //ImageUtil.save(imagePath, image);
+    save(imagePath, imageName, PpmFormat.PLAIN);
+  }
+
+  /**
+   * Saves an image to a PPM file in the given format. An image made by per-pixel operations
+   * from a file or a made image is streamed to the file; others are made first if they have
+   * not been made.
+   *
+   * @param imagePath the path to the image file
+   * @param imageName the name of the image
+   * @param format    the format, plain or binary
+   * @throws IllegalArgumentException if the image path is null or there is no image of the
+   *                                  given name.
+   */
+  @Override
+  public void save(String imagePath, String imageName, PpmFormat format) {
+    Recipe recipe = recipe(imageName);
+    if (!PpmStream.save(recipe, imagePath, format)) {
+      ImageUtil.writePPM(imagePath, recipe.image(), format);
+    }
   }
 }
@@ -0,0 +1,244 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import operations.ImageOperationCommand;
+
+/**
+ * This class represents an image in the processing model as a recipe for making it: an image
+ * already made, a PPM file to read, or an operation to run on the image of another recipe. A
+ * recipe's image is made the first time it is asked for and kept, so the recipes form a graph
+ * in which an image that several recipes start from is made once, and an image nothing asks
+ * for, directly or through a later recipe, is never made at all.
+ *
+ * <p>An operation that works on each pixel alone also carries itself as a step for a
+ * {@link Pipeline}, so a chain of such recipes can be worked out a row at a time, from a file
+ * or a made image, without making any image of the chain; see {@link PpmStream}.
+ *
+ * <p>A recipe records the {@link FixedPoint} mode set when it was created and makes its image
+ * in that mode, so an image made later comes out as it would have when the operation was
+ * given.
+ *
+ * <p>The recipe counts the names it is stored under and the recipes still waiting to start
+ * from its image. Once a recipe's image is made it no longer needs its source, and a recipe
+ * that is neither named nor waited on hands its image's storage back to the
+ * {@link BufferPool} and closes its file.
+ */
+final class Recipe {
+  private Recipe source;
+  private Operation operation;
+  private final ImageOperationCommand step;
+  private final boolean fixed;
+  private PpmReader reader;
+  private Image image;
+  private int names;
+  private int dependents;
+
+  /**
+   * An operation that makes a new image from another, leaving the other unchanged.
+   */
+  interface Operation {
+    /**
+     * Makes the result of the operation.
+     *
+     * @param source the image to start from, which must not change, or null for a recipe
+     *               that reads a file
+     * @param fixed  whether to use fixed-point arithmetic
+     * @return the result
+     */
+    Image apply(Image source, boolean fixed);
+  }
+
+  private Recipe(Recipe source, Operation operation, ImageOperationCommand step, Image image) {
+    this.source = source;
+    this.operation = operation;
+    this.step = step;
+    this.fixed = FixedPoint.isEnabled();
+    this.image = image;
+  }
+
+  /**
+   * Returns a recipe for an image already made.
+   *
+   * @param image the image
+   * @return the recipe
+   */
+  static Recipe of(Image image) {
+    return new Recipe(null, null, null, image);
+  }
+
+  /**
+   * Returns a recipe that reads the image of the given open PPM file when it is made. The
+   * recipe keeps the file open until then.
+   *
+   * @param reader the file, with its header read
+   * @return the recipe
+   */
+  static Recipe read(PpmReader reader) {
+    Recipe recipe = new Recipe(null,
+        (ignored, fixed) -> ImageUtil.compressIfUniform(reader.readImage()), null, null);
+    recipe.reader = reader;
+    return recipe;
+  }
+
+  /**
+   * Returns a recipe that runs the given operation on this recipe's image.
+   *
+   * @param operation the operation
+   * @return the new recipe
+   */
+  Recipe then(Operation operation) {
+    return then(operation, null);
+  }
+
+  /**
+   * Returns a recipe that runs the given operation on this recipe's image, and that may be
+   * worked out a row at a time by running the given step in a {@link Pipeline} instead.
+   *
+   * @param operation the operation
+   * @param step      the operation as a step that only moves and recolours pixels, or null
+   * @return the new recipe
+   */
+  Recipe then(Operation operation, ImageOperationCommand step) {
+    this.dependents++;
+    return new Recipe(this, operation, step, null);
+  }
+
+  /**
+   * Returns whether the image of this recipe has been made.
+   *
+   * @return true if the image is made
+   */
+  boolean isMade() {
+    return this.operation == null;
+  }
+
+  /**
+   * Returns the step this recipe runs on its source's image.
+   *
+   * @return the step, or null if the operation cannot be run as a step
+   */
+  ImageOperationCommand step() {
+    return this.step;
+  }
+
+  /**
+   * Returns whether this recipe makes its image with fixed-point arithmetic.
+   *
+   * @return true if the recipe was created with fixed-point arithmetic enabled
+   */
+  boolean isFixed() {
+    return this.fixed;
+  }
+
+  /**
+   * Returns the file this recipe reads, if its image is not made yet.
+   *
+   * @return the open file, or null if the recipe does not read one
+   */
+  PpmReader reader() {
+    return this.reader;
+  }
+
+  /**
+   * Finds the recipe whose image this one's can be worked out from by steps alone: the first
+   * recipe back from this one that is made or reads a file. The recipes on the way, whose
+   * steps lead from that image to this one, are added to the given list, first to last.
+   *
+   * @param chain the list to add the recipes to
+   * @return the recipe, or null if a recipe on the way has no step
+   */
+  Recipe origin(List<Recipe> chain) {
+    List<Recipe> found = new ArrayList<>();
+    Recipe recipe = this;
+    while (!recipe.isMade() && recipe.source != null) {
+      if (recipe.step == null) {
+        return null;
+      }
+      found.add(recipe);
+      recipe = recipe.source;
+    }
+    Collections.reverse(found);
+    chain.addAll(found);
+    return recipe;
+  }
+
+  /**
+   * Returns the image of this recipe, making it and any image it starts from that is not made
+   * yet. The recipes are worked through from the first one already made, so a long chain does
+   * not nest calls.
+   *
+   * @return the image, which the caller must not change
+   * @throws IllegalArgumentException if a file the recipes read is not a valid image
+   */
+  Image image() throws IllegalArgumentException {
+    List<Recipe> waiting = new ArrayList<>();
+    Recipe recipe = this;
+    while (!recipe.isMade()) {
+      waiting.add(recipe);
+      if (recipe.source == null) {
+        break;
+      }
+      recipe = recipe.source;
+    }
+    for (int i = waiting.size() - 1; i >= 0; i--) {
+      recipe = waiting.get(i);
+      Recipe source = recipe.source;
+      recipe.image = recipe.operation.apply(source == null ? null : source.image, recipe.fixed);
+      recipe.operation = null;
+      recipe.source = null;
+      recipe.closeFile();
+      if (source != null) {
+        source.dependents--;
+        source.releaseIfUnused();
+      }
+    }
+    return this.image;
+  }
+
+  /**
+   * Records that the recipe is stored under one more name.
+   */
+  void bind() {
+    this.names++;
+  }
+
+  /**
+   * Records that the recipe is stored under one name fewer, releasing it if nothing needs it
+   * any more.
+   */
+  void unbind() {
+    this.names--;
+    releaseIfUnused();
+  }
+
+  private void closeFile() {
+    if (this.reader != null) {
+      this.reader.close();
+      this.reader = null;
+    }
+  }
+
+  /**
+   * Releases this recipe if it is neither named nor waited on: a made image goes back to the
+   * pool, a file is closed, and a recipe not made yet stops waiting on its source, which may
+   * then be released in turn.
+   */
+  private void releaseIfUnused() {
+    Recipe recipe = this;
+    while (recipe != null && recipe.names == 0 && recipe.dependents == 0) {
+      Recipe source = recipe.source;
+      BufferPool.release(recipe.image);
+      recipe.image = null;
+      recipe.source = null;
+      recipe.operation = null;
+      recipe.closeFile();
+      if (source != null) {
+        source.dependents--;
+      }
+      recipe = source;
+    }
+  }
+}
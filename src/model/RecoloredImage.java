@@ -0,0 +1,346 @@
+package model;
+
+/**
+ * This class represents another image seen through a chain of colour operations, such as
+ * sepia, greyscale, the components, brighten and the other channel tables, that have not been
+ * applied yet. Creating the image
+ * costs nothing whatever its size.
+ *
+ * <p>Applying another colour operation to an unapplied image only adds it to the chain. The first
+ * read, write or other operation applies the whole chain in one pass over the pixels, so a
+ * chain of five colour operations costs about as much as one. The results are the same as
+ * applying each operation in turn.
+ *
+ * <p>Pixels are addressed the same way {@link ImageUtil} builds them: the first index of
+ * {@link #getPixels()} is the x position and the second index is the y position.
+ */
+public class RecoloredImage implements Image {
+  private final int width;
+  private final int height;
+  private Image parent;
+  private ColorTransform transform;
+  private Image materialized;
+
+  private RecoloredImage(Image parent, ColorTransform transform) {
+    this.parent = parent;
+    this.width = parent.getWidth();
+    this.height = parent.getHeight();
+    this.transform = transform;
+  }
+
+  /**
+   * Returns whether colour operations applied to the given image can wait in a chain. That is
+   * the case for images held in arrays on the heap, whose copies share their pixels, and for
+   * memory-mapped images small enough for the result to be held on the heap, which is then
+   * read from the mapping in one pass.
+   *
+   * @param image the image
+   * @return true if the image can be recoloured lazily
+   */
+  static boolean canRecolor(Image image) {
+    return image instanceof PackedImage || image instanceof PlanarImage
+            || image instanceof GreyImage || image instanceof RecoloredImage
+            || image instanceof MappedImage
+            && ImageUtil.fitsOnHeap(image.getWidth(), image.getHeight());
+  }
+
+  /**
+   * Returns whether the given image is a chain of colour operations that has not been applied.
+   *
+   * @param image the image
+   * @return true if the image has a chain waiting
+   */
+  static boolean isPending(Image image) {
+    return image instanceof RecoloredImage && ((RecoloredImage) image).materialized == null;
+  }
+
+  /**
+   * Returns the given image seen through one more colour operation, without changing the
+   * image. An image with a chain waiting gives a longer chain over the same pixels.
+   *
+   * @param image the image to recolour
+   * @param step  the colour operation to apply
+   * @param fixed whether the operation uses fixed-point arithmetic when the chain runs
+   * @return the recoloured image
+   * @throws IllegalArgumentException if the image is null
+   */
+  static Image recolor(Image image, ColorTransform.Step step, boolean fixed)
+          throws IllegalArgumentException {
+    if (image == null) {
+      throw new IllegalArgumentException("Image must be non-null.");
+    }
+    if (isPending(image)) {
+      RecoloredImage inner = (RecoloredImage) image;
+      return new RecoloredImage(ImageUtil.cloneImage(inner.parent),
+              inner.transform.then(step, fixed));
+    }
+    // the chain reads from a copy so that later changes to the image do not show through
+    return new RecoloredImage(ImageUtil.cloneImage(image), new ColorTransform(step, fixed));
+  }
+
+  /**
+   * Creates a copy of this image. An unapplied chain is copied as the same chain over a copy
+   * of the parent, which shares the parent's pixels.
+   *
+   * @return the copy
+   */
+  Image copy() {
+    if (this.materialized != null) {
+      return ImageUtil.cloneImage(this.materialized);
+    }
+    return new RecoloredImage(ImageUtil.cloneImage(this.parent), this.transform);
+  }
+
+  /**
+   * Releases the storage this image reads from, or the image the chain was applied to, to
+   * the {@link BufferPool}. The image must not be used afterwards.
+   */
+  void release() {
+    BufferPool.release(this.materialized != null ? this.materialized : this.parent);
+    this.materialized = null;
+    this.parent = null;
+  }
+
+  /**
+   * Applies the chain, if it has not been already, and returns the image holding the result.
+   * The parent is this image's own copy, so packed and planar parents are recoloured in place;
+   * other parents are read row by row into a new packed image.
+   */
+  private Image materialize() {
+    if (this.materialized == null) {
+      Image image = this.parent;
+      if (image instanceof PackedImage) {
+        ((PackedImage) image).recolor(this.transform);
+      } else if (image instanceof PlanarImage) {
+        ((PlanarImage) image).recolor(this.transform);
+      } else {
+        image = recolorRows(this.parent);
+        BufferPool.release(this.parent);
+      }
+      this.materialized = image;
+      this.parent = null;
+      this.transform = null;
+    }
+    return this.materialized;
+  }
+
+  private Image recolorRows(Image source) {
+    PackedImage image = new PackedImage(this.width, this.height);
+    Parallel.forEachStripe(this.height, (stripe, from, to) -> {
+      int[] row = new int[this.width];
+      for (int y = from; y < to; y++) {
+        source.getRow(y, row);
+        this.transform.apply(row, 0, this.width);
+        image.setRow(y, row);
+      }
+    });
+    return image;
+  }
+
+  /**
+   * Mirrors the image left to right.
+   */
+  @Override
+  public void flipHorizontal() {
+    materialize().flipHorizontal();
+  }
+
+  /**
+   * Mirrors the image top to bottom.
+   */
+  @Override
+  public void flipVertical() {
+    materialize().flipVertical();
+  }
+
+  /**
+   * Method to brighten or darken and image. An unapplied chain only gets longer.
+   *
+   * @param component how much you want the image to be lightened or darkened.
+   */
+  @Override
+  public void brighten(int component) {
+    if (this.materialized == null) {
+      this.transform = this.transform.then(ChannelTable.brighten(component));
+    } else {
+      this.materialized.brighten(component);
+    }
+  }
+
+  /**
+   * Method to turn an image into greyscale using an inputted component. An unapplied chain
+   * only gets longer.
+   *
+   * @param color the desired component, either luma, value, intensity red, green or blue.
+   * @throws IllegalArgumentException if the component is not one of the above
+   */
+  @Override
+  public void component(String color) throws IllegalArgumentException {
+    if (this.materialized == null) {
+      this.transform = this.transform.then(ColorTransform.component(color));
+    } else {
+      this.materialized.component(color);
+    }
+  }
+
+  /**
+   * Returns a copy of the pixels that make up the image, indexed by x and then y.
+   *
+   * @return the pixels that make up the image
+   */
+  @Override
+  public Pixel[][] getPixels() {
+    return materialize().getPixels();
+  }
+
+  /**
+   * Returns the pixel at the specified position, indexed like {@link #getPixels()}.
+   *
+   * @param row the x position of the pixel
+   * @param col the y position of the pixel
+   * @return the pixel at the specified position
+   * @throws IllegalArgumentException if the position is outside the image
+   */
+  @Override
+  public Pixel getPixelAt(int row, int col) throws IllegalArgumentException {
+    return materialize().getPixelAt(row, col);
+  }
+
+  /**
+   * Returns the pixel at the specified position packed as 0xRRGGBB.
+   *
+   * @param x the x position of the pixel
+   * @param y the y position of the pixel
+   * @return the packed pixel
+   * @throws IllegalArgumentException if the position is outside the image
+   */
+  @Override
+  public int getRGB(int x, int y) throws IllegalArgumentException {
+    return materialize().getRGB(x, y);
+  }
+
+  /**
+   * Sets the pixel at the specified position from a packed 0xRRGGBB value.
+   *
+   * @param x   the x position of the pixel
+   * @param y   the y position of the pixel
+   * @param rgb the packed pixel
+   * @throws IllegalArgumentException if the position is outside the image
+   */
+  @Override
+  public void setRGB(int x, int y, int rgb) throws IllegalArgumentException {
+    materialize().setRGB(x, y, rgb);
+  }
+
+  /**
+   * Copies one row of the image into the given array as packed 0xRRGGBB values.
+   *
+   * @param y   the row to copy
+   * @param dst the array to copy into
+   * @throws IllegalArgumentException if the row is outside the image or the array is too short
+   */
+  @Override
+  public void getRow(int y, int[] dst) throws IllegalArgumentException {
+    materialize().getRow(y, dst);
+  }
+
+  /**
+   * Sets one row of the image from the given array of packed 0xRRGGBB values.
+   *
+   * @param y   the row to set
+   * @param src the array to copy from
+   * @throws IllegalArgumentException if the row is outside the image or the array is too short
+   */
+  @Override
+  public void setRow(int y, int[] src) throws IllegalArgumentException {
+    materialize().setRow(y, src);
+  }
+
+  /**
+   * Returns the width of the image.
+   *
+   * @return the width of the image
+   */
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * Returns the height of the image.
+   *
+   * @return the height of the image
+   */
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  /**
+   * Method to add a blur filter to an image.
+   */
+  @Override
+  public void blur() {
+    materialize().blur();
+  }
+
+  /**
+   * Method to blur an image by the given radius.
+   *
+   * @param radius the radius of the blur, about its standard deviation in pixels
+   * @throws IllegalArgumentException if the radius is negative
+   */
+  @Override
+  public void blur(int radius) throws IllegalArgumentException {
+    materialize().blur(radius);
+  }
+
+  /**
+   * Method to add a sepia filter to an image. An unapplied chain only gets longer.
+   */
+  @Override
+  public void sepia() {
+    if (this.materialized == null) {
+      this.transform = this.transform.then(ColorMatrix.SEPIA);
+    } else {
+      this.materialized.sepia();
+    }
+  }
+
+  /**
+   * Method to add sharpen filter to an image.
+   */
+  @Override
+  public void sharpen() {
+    materialize().sharpen();
+  }
+
+  /**
+   * Method to convert a color image into a greyscale image. An unapplied chain only gets
+   * longer.
+   */
+  @Override
+  public void greyscale() {
+    if (this.materialized == null) {
+      this.transform = this.transform.then(ColorMatrix.GREYSCALE);
+    } else {
+      this.materialized.greyscale();
+    }
+  }
+
+  /**
+   * Creates a 2D array of the RGB value components and how frequently they occur. A single
+   * table over a grey image maps the grey image's counts, without applying the table.
+   *
+   * @return a 2D array that represents the histogram.
+   */
+  @Override
+  public int[][] histogram() {
+    if (this.materialized == null && this.transform.table() != null
+            && this.parent instanceof GreyImage && ((GreyImage) this.parent).isGrey()
+            && this.transform.table().isUniform()) {
+      return this.transform.table().histogram(this.parent.histogram(), true);
+    }
+    return materialize().histogram();
+  }
+}
@@ -0,0 +1,429 @@
+package model;
+
+/**
+ * This class represents a mirrored, transposed or cropped view of another image. It keeps no
+ * pixels of its own: reading a pixel maps its position onto the parent image, so creating a
+ * view costs the same whatever the size of the image.
+ *
+ * <p>Views of views are collapsed into a single mapping onto the original parent. Flipping an
+ * unmaterialized view only changes the mapping. Any other operation that writes pixels first
+ * copies the view into an image of its own and works on that from then on.
+ *
+ * <p>Pixels are addressed the same way {@link ImageUtil} builds them: the first index of
+ * {@link #getPixels()} is the x position and the second index is the y position.
+ */
+public class RemappedImage implements Image {
+  private final int width;
+  private final int height;
+  private Image parent;
+  private Image materialized;
+
+  // parent x = x0 + xx * x + xy * y, parent y = y0 + yx * x + yy * y
+  private int x0;
+  private int xx;
+  private int xy;
+  private int y0;
+  private int yx;
+  private int yy;
+
+  private RemappedImage(Image parent, int width, int height,
+                        int x0, int xx, int xy, int y0, int yx, int yy) {
+    this.parent = parent;
+    this.width = width;
+    this.height = height;
+    this.x0 = x0;
+    this.xx = xx;
+    this.xy = xy;
+    this.y0 = y0;
+    this.yx = yx;
+    this.yy = yy;
+  }
+
+  /**
+   * Creates a view of the given image through the given mapping, where the mapping takes a
+   * position in the new view to a position in the given image.
+   */
+  private static Image view(Image image, int width, int height,
+                            int x0, int xx, int xy, int y0, int yx, int yy) {
+    if (image == null) {
+      throw new IllegalArgumentException("Image must be non-null.");
+    }
+    if (image instanceof RemappedImage && ((RemappedImage) image).materialized == null) {
+      RemappedImage inner = (RemappedImage) image;
+      // a copy of the parent, sharing its pixels, so releasing the inner view leaves them
+      return new RemappedImage(ImageUtil.cloneImage(inner.parent), width, height,
+              inner.x0 + inner.xx * x0 + inner.xy * y0,
+              inner.xx * xx + inner.xy * yx,
+              inner.xx * xy + inner.xy * yy,
+              inner.y0 + inner.yx * x0 + inner.yy * y0,
+              inner.yx * xx + inner.yy * yx,
+              inner.yx * xy + inner.yy * yy);
+    }
+    // the view reads from a copy so that later changes to the image do not show through
+    return new RemappedImage(ImageUtil.cloneImage(image), width, height,
+            x0, xx, xy, y0, yx, yy);
+  }
+
+  /**
+   * Returns a view of the given image mirrored left to right.
+   *
+   * @param image the image to view
+   * @return the mirrored view
+   * @throws IllegalArgumentException if the image is null
+   */
+  public static Image flipHorizontal(Image image) throws IllegalArgumentException {
+    int width = checkImage(image).getWidth();
+    return view(image, width, image.getHeight(), width - 1, -1, 0, 0, 0, 1);
+  }
+
+  /**
+   * Returns a view of the given image mirrored top to bottom.
+   *
+   * @param image the image to view
+   * @return the mirrored view
+   * @throws IllegalArgumentException if the image is null
+   */
+  public static Image flipVertical(Image image) throws IllegalArgumentException {
+    int height = checkImage(image).getHeight();
+    return view(image, image.getWidth(), height, 0, 1, 0, height - 1, 0, -1);
+  }
+
+  /**
+   * Returns a view of the given image with rows and columns swapped.
+   *
+   * @param image the image to view
+   * @return the transposed view
+   * @throws IllegalArgumentException if the image is null
+   */
+  public static Image transpose(Image image) throws IllegalArgumentException {
+    checkImage(image);
+    return view(image, image.getHeight(), image.getWidth(), 0, 0, 1, 0, 1, 0);
+  }
+
+  /**
+   * Returns a view of a rectangular window of the given image.
+   *
+   * @param image  the image to view
+   * @param x      the left edge of the window
+   * @param y      the top edge of the window
+   * @param width  the width of the window
+   * @param height the height of the window
+   * @return the cropped view
+   * @throws IllegalArgumentException if the image is null or the window is empty or not
+   *                                  inside the image
+   */
+  public static Image crop(Image image, int x, int y, int width, int height)
+          throws IllegalArgumentException {
+    checkImage(image);
+    if (x < 0 || y < 0 || width < 1 || height < 1
+            || x + width > image.getWidth() || y + height > image.getHeight()) {
+      throw new IllegalArgumentException("Crop window must be inside the image.");
+    }
+    return view(image, width, height, x, 1, 0, y, 0, 1);
+  }
+
+  private static Image checkImage(Image image) {
+    if (image == null) {
+      throw new IllegalArgumentException("Image must be non-null.");
+    }
+    return image;
+  }
+
+  /**
+   * Creates a copy of this view. An unmaterialized view is copied as the same mapping over a
+   * copy of the parent, which shares the parent's pixels.
+   *
+   * @return the copy
+   */
+  Image copy() {
+    if (this.materialized != null) {
+      return ImageUtil.cloneImage(this.materialized);
+    }
+    return new RemappedImage(ImageUtil.cloneImage(this.parent), this.width, this.height,
+            this.x0, this.xx, this.xy, this.y0, this.yx, this.yy);
+  }
+
+  /**
+   * Releases the storage this view reads from, or the image it was copied into, to the
+   * {@link BufferPool}. The view must not be used afterwards.
+   */
+  void release() {
+    BufferPool.release(this.materialized != null ? this.materialized : this.parent);
+    this.materialized = null;
+    this.parent = null;
+  }
+
+  /**
+   * Returns the packed 0xRRGGBB value of the pixel at the given position of the view.
+   */
+  private int rgb(int x, int y) {
+    return this.parent.getRGB(this.x0 + this.xx * x + this.xy * y,
+            this.y0 + this.yx * x + this.yy * y);
+  }
+
+  /**
+   * Copies the view into an image of its own, if it has not been already, and returns it. The
+   * copy of the parent the view read from is released, so the parent's storage is no longer
+   * counted as shared.
+   */
+  private Image materialize() {
+    if (this.materialized == null) {
+      Image image = ImageUtil.createImage(this.width, this.height);
+      int[] row = new int[this.width];
+      for (int y = 0; y < this.height; y++) {
+        for (int x = 0; x < this.width; x++) {
+          row[x] = rgb(x, y);
+        }
+        image.setRow(y, row);
+      }
+      BufferPool.release(this.parent);
+      this.materialized = image;
+      this.parent = null;
+    }
+    return this.materialized;
+  }
+
+  /**
+   * Mirrors the image left to right. An unmaterialized view only changes its mapping.
+   */
+  @Override
+  public void flipHorizontal() {
+    if (this.materialized != null) {
+      this.materialized.flipHorizontal();
+      return;
+    }
+    this.x0 += this.xx * (this.width - 1);
+    this.y0 += this.yx * (this.width - 1);
+    this.xx = -this.xx;
+    this.yx = -this.yx;
+  }
+
+  /**
+   * Mirrors the image top to bottom. An unmaterialized view only changes its mapping.
+   */
+  @Override
+  public void flipVertical() {
+    if (this.materialized != null) {
+      this.materialized.flipVertical();
+      return;
+    }
+    this.x0 += this.xy * (this.height - 1);
+    this.y0 += this.yy * (this.height - 1);
+    this.xy = -this.xy;
+    this.yy = -this.yy;
+  }
+
+  /**
+   * Method to brighten or darken and image.
+   *
+   * @param component how much you want the image to be lightened or darkened.
+   */
+  @Override
+  public void brighten(int component) {
+    materialize().brighten(component);
+  }
+
+  /**
+   * Method to turn an image into greyscale using an inputted component.
+   *
+   * @param color the desired component, either luma, value, intensity red, green or blue.
+   * @throws IllegalArgumentException if the component is not one of the above
+   */
+  @Override
+  public void component(String color) throws IllegalArgumentException {
+    materialize().component(color);
+  }
+
+  /**
+   * Returns a copy of the pixels that make up the image, indexed by x and then y.
+   *
+   * @return the pixels that make up the image
+   */
+  @Override
+  public Pixel[][] getPixels() {
+    if (this.materialized != null) {
+      return this.materialized.getPixels();
+    }
+    Pixel[][] pixels = new Pixel[this.width][this.height];
+    for (int y = 0; y < this.height; y++) {
+      for (int x = 0; x < this.width; x++) {
+        int p = rgb(x, y);
+        pixels[x][y] = new Pixel((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF);
+      }
+    }
+    return pixels;
+  }
+
+  /**
+   * Returns the pixel at the specified position, indexed like {@link #getPixels()}.
+   *
+   * @param row the x position of the pixel
+   * @param col the y position of the pixel
+   * @return the pixel at the specified position
+   * @throws IllegalArgumentException if the position is outside the image
+   */
+  @Override
+  public Pixel getPixelAt(int row, int col) throws IllegalArgumentException {
+    if (this.materialized != null) {
+      return this.materialized.getPixelAt(row, col);
+    }
+    if (row < 0 || row >= this.width || col < 0 || col >= this.height) {
+      throw new IllegalArgumentException("Invalid pixel.");
+    }
+    int p = rgb(row, col);
+    return new Pixel((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF);
+  }
+
+  /**
+   * Returns the pixel at the specified position packed as 0xRRGGBB.
+   *
+   * @param x the x position of the pixel
+   * @param y the y position of the pixel
+   * @return the packed pixel
+   * @throws IllegalArgumentException if the position is outside the image
+   */
+  @Override
+  public int getRGB(int x, int y) throws IllegalArgumentException {
+    if (this.materialized != null) {
+      return this.materialized.getRGB(x, y);
+    }
+    PixelOps.checkPosition(x, y, this.width, this.height);
+    return rgb(x, y);
+  }
+
+  /**
+   * Sets the pixel at the specified position from a packed 0xRRGGBB value. This copies the
+   * view into an image of its own first.
+   *
+   * @param x   the x position of the pixel
+   * @param y   the y position of the pixel
+   * @param rgb the packed pixel
+   * @throws IllegalArgumentException if the position is outside the image
+   */
+  @Override
+  public void setRGB(int x, int y, int rgb) throws IllegalArgumentException {
+    materialize().setRGB(x, y, rgb);
+  }
+
+  /**
+   * Copies one row of the image into the given array as packed 0xRRGGBB values.
+   *
+   * @param y   the row to copy
+   * @param dst the array to copy into
+   * @throws IllegalArgumentException if the row is outside the image or the array is too short
+   */
+  @Override
+  public void getRow(int y, int[] dst) throws IllegalArgumentException {
+    if (this.materialized != null) {
+      this.materialized.getRow(y, dst);
+      return;
+    }
+    PixelOps.checkRow(y, dst, this.width, this.height);
+    for (int x = 0; x < this.width; x++) {
+      dst[x] = rgb(x, y);
+    }
+  }
+
+  /**
+   * Sets one row of the image from the given array of packed 0xRRGGBB values. This copies the
+   * view into an image of its own first.
+   *
+   * @param y   the row to set
+   * @param src the array to copy from
+   * @throws IllegalArgumentException if the row is outside the image or the array is too short
+   */
+  @Override
+  public void setRow(int y, int[] src) throws IllegalArgumentException {
+    materialize().setRow(y, src);
+  }
+
+  /**
+   * Returns the width of the image.
+   *
+   * @return the width of the image
+   */
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * Returns the height of the image.
+   *
+   * @return the height of the image
+   */
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  /**
+   * Method to add a blur filter to an image.
+   */
+  @Override
+  public void blur() {
+    materialize().blur();
+  }
+
+  /**
+   * Method to blur an image by the given radius.
+   *
+   * @param radius the radius of the blur, about its standard deviation in pixels
+   * @throws IllegalArgumentException if the radius is negative
+   */
+  @Override
+  public void blur(int radius) throws IllegalArgumentException {
+    materialize().blur(radius);
+  }
+
+  /**
+   * Method to add a sepia filter to an image.
+   */
+  @Override
+  public void sepia() {
+    materialize().sepia();
+  }
+
+  /**
+   * Method to add sharpen filter to an image.
+   */
+  @Override
+  public void sharpen() {
+    materialize().sharpen();
+  }
+
+  /**
+   * Method to convert a color image into a greyscale image.
+   */
+  @Override
+  public void greyscale() {
+    materialize().greyscale();
+  }
+
+  /**
+   * Creates a 2D array of the RGB value components and how frequently they occur. Mirroring
+   * and transposing only move pixels around, so a view of the whole parent has the parent's
+   * histogram.
+   *
+   * @return a 2D array that represents the histogram.
+   */
+  @Override
+  public int[][] histogram() {
+    if (this.materialized != null) {
+      return this.materialized.histogram();
+    }
+    if ((long) this.width * this.height
+            == (long) this.parent.getWidth() * this.parent.getHeight()) {
+      return this.parent.histogram();
+    }
+    int[][] h = new int[4][256];
+    int[] row = new int[this.width];
+    for (int y = 0; y < this.height; y++) {
+      for (int x = 0; x < this.width; x++) {
+        row[x] = rgb(x, y);
+      }
+      PixelOps.histogram(row, 0, this.width, h);
+    }
+    return h;
+  }
+}
@@ -0,0 +1,662 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * This class represents an image split into fixed-size square tiles, each held as its own
+ * packed 0xRRGGBB int array laid out row by row. Tiles on the right and bottom edges are cut
+ * down to fit the image.
+ *
+ * <p>A tile is only allocated, or decoded from the source image, the first time something
+ * touches it, so reading part of a large image only pays for the tiles under that part.
+ * Operations run stripes of tiles in parallel on the {@link Parallel} threads, and copies
+ * share tiles until one side writes to a tile, at which point only that tile is copied.
+ *
+ * <p>A tile whose pixels are all one colour is held as an array of length one holding that
+ * colour. Point operations such as brighten and sepia then work on that one value, and the
+ * tile is only expanded when single pixels or rows are written to it, so a mostly blank image
+ * costs memory and time in proportion to its content rather than its size.
+ *
+ * <p>Pixels are addressed the same way {@link ImageUtil} builds them: the first index of
+ * {@link #getPixels()} is the x position and the second index is the y position.
+ */
+public class TiledImage implements Image {
+  /**
+   * The tile size used when none is given.
+   */
+  public static final int DEFAULT_TILE_SIZE = 256;
+
+  private final int width;
+  private final int height;
+  private final int tileSize;
+  private final int tilesAcross;
+  private final int tilesDown;
+  private Image source;
+  private int[][] tiles;
+  private boolean[] owned;
+
+  /**
+   * Creates a black image of the given size with the default tile size.
+   *
+   * @param width  the width of the image
+   * @param height the height of the image
+   * @throws IllegalArgumentException if the width or height is not positive
+   */
+  public TiledImage(int width, int height) throws IllegalArgumentException {
+    this(width, height, DEFAULT_TILE_SIZE, null);
+  }
+
+  /**
+   * Creates a tiled image whose tiles are decoded from the given image when first touched.
+   * The source must not change while this image can still read from it.
+   *
+   * @param source the image to decode tiles from
+   * @throws IllegalArgumentException if the source is null
+   */
+  public TiledImage(Image source) throws IllegalArgumentException {
+    this(source, DEFAULT_TILE_SIZE);
+  }
+
+  /**
+   * Creates a tiled image with the given tile size whose tiles are decoded from the given
+   * image when first touched. The source must not change while this image can still read
+   * from it.
+   *
+   * @param source   the image to decode tiles from
+   * @param tileSize the width and height of a tile
+   * @throws IllegalArgumentException if the source is null or the tile size is not positive
+   */
+  public TiledImage(Image source, int tileSize) throws IllegalArgumentException {
+    this(checkSource(source).getWidth(), source.getHeight(), tileSize, source);
+  }
+
+  private TiledImage(int width, int height, int tileSize, Image source)
+          throws IllegalArgumentException {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("Width and height must be positive.");
+    }
+    if (tileSize < 1) {
+      throw new IllegalArgumentException("Tile size must be positive.");
+    }
+    this.width = width;
+    this.height = height;
+    this.tileSize = tileSize;
+    this.tilesAcross = (width + tileSize - 1) / tileSize;
+    this.tilesDown = (height + tileSize - 1) / tileSize;
+    this.source = source;
+    this.tiles = new int[this.tilesAcross * this.tilesDown][];
+    this.owned = new boolean[this.tiles.length];
+  }
+
+  /**
+   * Creates a copy of the given image that shares its tiles. Neither image owns a shared
+   * tile, so whichever writes to it first takes its own copy.
+   *
+   * @param other the image to copy
+   */
+  TiledImage(TiledImage other) {
+    this.width = other.width;
+    this.height = other.height;
+    this.tileSize = other.tileSize;
+    this.tilesAcross = other.tilesAcross;
+    this.tilesDown = other.tilesDown;
+    this.source = other.source;
+    this.tiles = other.tiles.clone();
+    this.owned = new boolean[this.tiles.length];
+    other.owned = new boolean[other.tiles.length];
+  }
+
+  /**
+   * Creates a tiled copy of the given image with every tile decoded up front, so single-colour
+   * tiles are already held as one value. The copy does not keep a reference to the image.
+   *
+   * @param source the image to copy
+   * @return the tiled copy
+   * @throws IllegalArgumentException if the source is null
+   */
+  public static TiledImage compressed(Image source) throws IllegalArgumentException {
+    TiledImage image = new TiledImage(source);
+    for (int t = 0; t < image.tiles.length; t++) {
+      image.tile(t);
+    }
+    image.source = null;
+    return image;
+  }
+
+  /**
+   * Decides whether at least half of the default-sized tiles of the given image are a single
+   * colour. Each tile is only scanned up to its first pixel of a different colour, so this is
+   * quick for images that are not.
+   *
+   * @param image the image to scan
+   * @return true if at least half of the tiles are a single colour
+   */
+  static boolean isMostlyUniform(Image image) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int tiles = 0;
+    int uniform = 0;
+    for (int y0 = 0; y0 < height; y0 += DEFAULT_TILE_SIZE) {
+      for (int x0 = 0; x0 < width; x0 += DEFAULT_TILE_SIZE) {
+        tiles++;
+        if (isUniform(image, x0, y0, Math.min(width, x0 + DEFAULT_TILE_SIZE),
+                Math.min(height, y0 + DEFAULT_TILE_SIZE))) {
+          uniform++;
+        }
+      }
+    }
+    return 2 * uniform >= tiles;
+  }
+
+  private static boolean isUniform(Image image, int x0, int y0, int x1, int y1) {
+    int colour = image.getRGB(x0, y0);
+    for (int y = y0; y < y1; y++) {
+      for (int x = x0; x < x1; x++) {
+        if (image.getRGB(x, y) != colour) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static Image checkSource(Image source) {
+    if (source == null) {
+      throw new IllegalArgumentException("Source image must be non-null.");
+    }
+    return source;
+  }
+
+  /**
+   * Returns the number of tiles that have been allocated so far.
+   *
+   * @return the number of allocated tiles
+   */
+  public int getLoadedTileCount() {
+    int count = 0;
+    for (int[] tile : this.tiles) {
+      if (tile != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns the number of tiles that are held as a single colour.
+   *
+   * @return the number of single-colour tiles
+   */
+  public int getUniformTileCount() {
+    int count = 0;
+    for (int t = 0; t < this.tiles.length; t++) {
+      if (this.tiles[t] != null && this.tiles[t].length == 1 && tileWidth(t) * tileHeight(t) > 1) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Collapses every loaded tile whose pixels have all been written to the same colour back
+   * into a single value.
+   */
+  public void compact() {
+    for (int t = 0; t < this.tiles.length; t++) {
+      if (this.tiles[t] != null) {
+        this.tiles[t] = compress(this.tiles[t]);
+      }
+    }
+  }
+
+  private int tileX(int t) {
+    return (t % this.tilesAcross) * this.tileSize;
+  }
+
+  private int tileY(int t) {
+    return (t / this.tilesAcross) * this.tileSize;
+  }
+
+  private int tileWidth(int t) {
+    return Math.min(this.tileSize, this.width - tileX(t));
+  }
+
+  private int tileHeight(int t) {
+    return Math.min(this.tileSize, this.height - tileY(t));
+  }
+
+  /**
+   * Returns the given tile for reading, allocating or decoding it if it has not been touched.
+   */
+  private int[] tile(int t) {
+    int[] tile = this.tiles[t];
+    if (tile == null) {
+      int x0 = tileX(t);
+      int y0 = tileY(t);
+      int tw = tileWidth(t);
+      int th = tileHeight(t);
+      if (this.source == null) {
+        tile = new int[1];
+      } else {
+        tile = new int[tw * th];
+        for (int y = 0; y < th; y++) {
+          for (int x = 0; x < tw; x++) {
+            tile[y * tw + x] = this.source.getRGB(x0 + x, y0 + y);
+          }
+        }
+        tile = compress(tile);
+      }
+      this.tiles[t] = tile;
+      this.owned[t] = true;
+    }
+    return tile;
+  }
+
+  /**
+   * Returns the given tile, which may still be a single colour, for writing every value it
+   * holds. It is copied first if it is shared with another image.
+   */
+  private int[] ownedTile(int t) {
+    int[] tile = tile(t);
+    if (!this.owned[t]) {
+      tile = tile.clone();
+      this.tiles[t] = tile;
+      this.owned[t] = true;
+    }
+    return tile;
+  }
+
+  /**
+   * Returns the given tile with one value per pixel for writing single pixels, expanding a
+   * single-colour tile and copying a shared tile first.
+   */
+  private int[] writableTile(int t) {
+    int size = tileWidth(t) * tileHeight(t);
+    int[] tile = tile(t);
+    if (tile.length < size) {
+      int[] expanded = new int[size];
+      Arrays.fill(expanded, tile[0]);
+      this.tiles[t] = expanded;
+      this.owned[t] = true;
+      return expanded;
+    }
+    return ownedTile(t);
+  }
+
+  /**
+   * Returns the given tile as a single colour if all of its pixels are the same colour, or the
+   * tile itself otherwise.
+   */
+  private static int[] compress(int[] tile) {
+    int colour = tile[0];
+    for (int i = 1; i < tile.length; i++) {
+      if (tile[i] != colour) {
+        return tile;
+      }
+    }
+    return tile.length == 1 ? tile : new int[]{colour};
+  }
+
+  private int pixel(int x, int y) {
+    int t = (y / this.tileSize) * this.tilesAcross + x / this.tileSize;
+    int[] tile = tile(t);
+    if (tile.length == 1) {
+      return tile[0];
+    }
+    return tile[(y % this.tileSize) * tileWidth(t) + x % this.tileSize];
+  }
+
+  /**
+   * An operation on the packed pixels of one tile.
+   */
+  private interface TileOperation {
+    void apply(int[] tile, int from, int to);
+  }
+
+  private void forEachTile(TileOperation operation) {
+    Parallel.forEachStripe(this.tiles.length, (stripe, from, to) -> {
+      for (int t = from; t < to; t++) {
+        int[] tile = ownedTile(t);
+        operation.apply(tile, 0, tile.length);
+      }
+    });
+  }
+
+  /**
+   * Builds new tiles where each pixel is copied from the given position of this image.
+   */
+  private interface Remap {
+    int sourceIndex(int x, int y);
+  }
+
+  private void remap(Remap xRemap, Remap yRemap) {
+    // every tile is needed, so load them up front rather than racing to load neighbours
+    for (int t = 0; t < this.tiles.length; t++) {
+      tile(t);
+    }
+    int[][] result = new int[this.tiles.length][];
+    Parallel.forEachStripe(this.tiles.length, (stripe, from, to) -> {
+      for (int t = from; t < to; t++) {
+        int x0 = tileX(t);
+        int y0 = tileY(t);
+        int tw = tileWidth(t);
+        int th = tileHeight(t);
+        int[] tile = new int[tw * th];
+        for (int y = 0; y < th; y++) {
+          for (int x = 0; x < tw; x++) {
+            tile[y * tw + x] = pixel(xRemap.sourceIndex(x0 + x, y0 + y),
+                    yRemap.sourceIndex(x0 + x, y0 + y));
+          }
+        }
+        result[t] = compress(tile);
+      }
+    });
+    this.tiles = result;
+    this.owned = new boolean[result.length];
+    Arrays.fill(this.owned, true);
+  }
+
+  /**
+   * Mirrors the image left to right.
+   */
+  @Override
+  public void flipHorizontal() {
+    remap((x, y) -> this.width - 1 - x, (x, y) -> y);
+  }
+
+  /**
+   * Mirrors the image top to bottom.
+   */
+  @Override
+  public void flipVertical() {
+    remap((x, y) -> x, (x, y) -> this.height - 1 - y);
+  }
+
+  /**
+   * Method to brighten or darken and image.
+   *
+   * @param component how much you want the image to be lightened or darkened.
+   */
+  @Override
+  public void brighten(int component) {
+    forEachTile((tile, from, to) -> PixelOps.brighten(tile, from, to, component));
+  }
+
+  /**
+   * Method to turn an image into greyscale using an inputted component.
+   *
+   * @param type the desired component, either luma, value, intensity red, green or blue.
+   * @throws IllegalArgumentException if the component is not one of the above
+   */
+  @Override
+  public void component(String type) throws IllegalArgumentException {
+    forEachTile((tile, from, to) -> PixelOps.component(tile, from, to, type));
+  }
+
+  /**
+   * Returns a copy of the pixels that make up the image, indexed by x and then y.
+   *
+   * @return the pixels that make up the image
+   */
+  @Override
+  public Pixel[][] getPixels() {
+    Pixel[][] pixels = new Pixel[this.width][this.height];
+    for (int y = 0; y < this.height; y++) {
+      for (int x = 0; x < this.width; x++) {
+        int p = pixel(x, y);
+        pixels[x][y] = new Pixel((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF);
+      }
+    }
+    return pixels;
+  }
+
+  /**
+   * Returns the pixel at the specified position, indexed like {@link #getPixels()}. Only the
+   * tile holding the pixel is loaded.
+   *
+   * @param row the x position of the pixel
+   * @param col the y position of the pixel
+   * @return the pixel at the specified position
+   * @throws IllegalArgumentException if the position is outside the image
+   */
+  @Override
+  public Pixel getPixelAt(int row, int col) throws IllegalArgumentException {
+    if (row < 0 || row >= this.width || col < 0 || col >= this.height) {
+      throw new IllegalArgumentException("Invalid pixel.");
+    }
+    int p = pixel(row, col);
+    return new Pixel((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF);
+  }
+
+  /**
+   * Returns the pixel at the specified position packed as 0xRRGGBB.
+   *
+   * @param x the x position of the pixel
+   * @param y the y position of the pixel
+   * @return the packed pixel
+   * @throws IllegalArgumentException if the position is outside the image
+   */
+  @Override
+  public int getRGB(int x, int y) throws IllegalArgumentException {
+    PixelOps.checkPosition(x, y, this.width, this.height);
+    return pixel(x, y);
+  }
+
+  /**
+   * Sets the pixel at the specified position from a packed 0xRRGGBB value.
+   *
+   * @param x   the x position of the pixel
+   * @param y   the y position of the pixel
+   * @param rgb the packed pixel
+   * @throws IllegalArgumentException if the position is outside the image
+   */
+  @Override
+  public void setRGB(int x, int y, int rgb) throws IllegalArgumentException {
+    PixelOps.checkPosition(x, y, this.width, this.height);
+    int t = (y / this.tileSize) * this.tilesAcross + x / this.tileSize;
+    writableTile(t)[(y % this.tileSize) * tileWidth(t) + x % this.tileSize] = rgb;
+  }
+
+  /**
+   * Copies one row of the image into the given array as packed 0xRRGGBB values.
+   *
+   * @param y   the row to copy
+   * @param dst the array to copy into
+   * @throws IllegalArgumentException if the row is outside the image or the array is too short
+   */
+  @Override
+  public void getRow(int y, int[] dst) throws IllegalArgumentException {
+    PixelOps.checkRow(y, dst, this.width, this.height);
+    getRegion(0, y, this.width, 1, dst, 0);
+  }
+
+  /**
+   * Sets one row of the image from the given array of packed 0xRRGGBB values.
+   *
+   * @param y   the row to set
+   * @param src the array to copy from
+   * @throws IllegalArgumentException if the row is outside the image or the array is too short
+   */
+  @Override
+  public void setRow(int y, int[] src) throws IllegalArgumentException {
+    PixelOps.checkRow(y, src, this.width, this.height);
+    int t = (y / this.tileSize) * this.tilesAcross;
+    for (int x = 0; x < this.width; x += this.tileSize, t++) {
+      int tw = tileWidth(t);
+      System.arraycopy(src, x, writableTile(t), (y % this.tileSize) * tw, tw);
+    }
+  }
+
+  /**
+   * Copies a rectangular region of the image into the given array as packed 0xRRGGBB ints,
+   * row by row. Only the tiles under the region are loaded.
+   *
+   * @param x      the left edge of the region
+   * @param y      the top edge of the region
+   * @param w      the width of the region
+   * @param h      the height of the region
+   * @param dst    the array to copy into
+   * @param offset where in the array the region starts
+   * @throws IllegalArgumentException if the region is not inside the image
+   */
+  public void getRegion(int x, int y, int w, int h, int[] dst, int offset)
+          throws IllegalArgumentException {
+    if (x < 0 || y < 0 || w < 0 || h < 0 || x + w > this.width || y + h > this.height) {
+      throw new IllegalArgumentException("Region must be inside the image.");
+    }
+    for (int yy = y; yy < y + h; yy++) {
+      int xx = x;
+      while (xx < x + w) {
+        int t = (yy / this.tileSize) * this.tilesAcross + xx / this.tileSize;
+        int tw = tileWidth(t);
+        int inTile = xx % this.tileSize;
+        int run = Math.min(tw - inTile, x + w - xx);
+        int[] tile = tile(t);
+        int to = offset + (yy - y) * w + (xx - x);
+        if (tile.length == 1) {
+          Arrays.fill(dst, to, to + run, tile[0]);
+        } else {
+          System.arraycopy(tile, (yy % this.tileSize) * tw + inTile, dst, to, run);
+        }
+        xx += run;
+      }
+    }
+  }
+
+  /**
+   * Returns the width of the image.
+   *
+   * @return the width of the image
+   */
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * Returns the height of the image.
+   *
+   * @return the height of the image
+   */
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  /**
+   * Method to add a blur filter to an image.
+   */
+  @Override
+  public void blur() {
+    convolve(Kernel.BLUR);
+  }
+
+  /**
+   * Method to blur an image by the given radius.
+   *
+   * @param radius the radius of the blur, about its standard deviation in pixels
+   * @throws IllegalArgumentException if the radius is negative
+   */
+  @Override
+  public void blur(int radius) throws IllegalArgumentException {
+    BoxBlur.apply(this, radius);
+    compact();
+  }
+
+  /**
+   * Method to add sharpen filter to an image.
+   */
+  @Override
+  public void sharpen() {
+    convolve(Kernel.SHARPEN);
+  }
+
+  /**
+   * Applies the given kernel to every pixel, in parallel stripes of tiles. Each tile is
+   * computed from a copy of itself plus a halo of neighbouring pixels and written into a new
+   * tile, so tiles never read results that another stripe has already written.
+   *
+   * @param kernel the kernel to apply
+   */
+  private void convolve(Kernel kernel) {
+    int bounds = kernel.size() / 2;
+    for (int t = 0; t < this.tiles.length; t++) {
+      tile(t);
+    }
+    int[][] result = new int[this.tiles.length][];
+    Parallel.forEachStripe(this.tiles.length, (stripe, from, to) -> {
+      for (int t = from; t < to; t++) {
+        int x0 = tileX(t);
+        int y0 = tileY(t);
+        int tw = tileWidth(t);
+        int th = tileHeight(t);
+        int blockX = Math.max(0, x0 - bounds);
+        int blockY = Math.max(0, y0 - bounds);
+        int blockW = Math.min(this.width, x0 + tw + bounds) - blockX;
+        int blockH = Math.min(this.height, y0 + th + bounds) - blockY;
+        int[] block = new int[blockW * blockH];
+        getRegion(blockX, blockY, blockW, blockH, block, 0);
+
+        int[] tile = new int[tw * th];
+        int[] rowStarts = new int[kernel.size()];
+        int[] row = new int[blockW];
+        double[] scratch = new double[3 * blockW];
+        for (int y = 0; y < th; y++) {
+          for (int j = 0; j < kernel.size(); j++) {
+            int yy = y0 + y + j - bounds;
+            rowStarts[j] = yy < 0 || yy >= this.height ? -1 : (yy - blockY) * blockW;
+          }
+          kernel.convolveRow(block, rowStarts, blockW, row, 0, scratch);
+          System.arraycopy(row, x0 - blockX, tile, y * tw, tw);
+        }
+        result[t] = compress(tile);
+      }
+    });
+    this.tiles = result;
+    this.owned = new boolean[result.length];
+    Arrays.fill(this.owned, true);
+  }
+
+  /**
+   * Method to add a sepia filter to an image.
+   */
+  @Override
+  public void sepia() {
+    forEachTile(PixelOps::sepia);
+  }
+
+  /**
+   * Method to convert a color image into a greyscale image.
+   */
+  @Override
+  public void greyscale() {
+    forEachTile(PixelOps::greyscale);
+  }
+
+  /**
+   * Creates a 2D array of the RGB value components and how frequently they occur.
+   *
+   * @return a 2D array that represents the histogram.
+   */
+  @Override
+  public int[][] histogram() {
+    return Parallel.histogram(this.tiles.length, (from, to, h) -> {
+      for (int t = from; t < to; t++) {
+        int[] tile = tile(t);
+        if (tile.length == 1) {
+          int p = tile[0];
+          int r = (p >> 16) & 0xFF;
+          int g = (p >> 8) & 0xFF;
+          int b = p & 0xFF;
+          int count = tileWidth(t) * tileHeight(t);
+          h[0][r] += count;
+          h[1][g] += count;
+          h[2][b] += count;
+          h[3][(r + g + b) / 3] += count;
+        } else {
+          PixelOps.histogram(tile, 0, tile.length, h);
+        }
+      }
+    });
+  }
+}
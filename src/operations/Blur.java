@@ -8,12 +8,24 @@ import model.ProcessingModel;
 public class Blur implements ImageOperationCommand {
   protected String imageName;
   protected String destImageName;
+  protected Integer radius;
 
   public Blur(String imageName, String destImageName) {
     this.imageName = imageName;
     this.destImageName = destImageName;
   }
 
+  /**
+   * Creates an instance of a blur object that blurs by the given radius.
+   * @param radius the radius of the blur
+   * @param imageName the name of the image
+   * @param destImageName the name of the destination image
+   */
+  public Blur(int radius, String imageName, String destImageName) {
+    this(imageName, destImageName);
+    this.radius = radius;
+  }
+
   /**
    * Takes in an image object and executes the flip vertical operation on it.
    *
@@ -21,6 +33,10 @@ public class Blur implements ImageOperationCommand {
    */
   @Override
   public void execute(ProcessingModel image) {
-    image.blur(imageName, destImageName);
+    if (radius == null) {
+      image.blur(imageName, destImageName);
+    } else {
+      image.blur(radius, imageName, destImageName);
+    }
   }
 }
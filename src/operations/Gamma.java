@@ -0,0 +1,34 @@
+package operations;
+
+import model.ProcessingModel;
+
+/**
+ * This class creates a gamma-corrected image.
+ */
+public class Gamma implements ImageOperationCommand {
+  protected String imageName;
+  protected String destImageName;
+  protected double gamma;
+
+  /**
+   * Creates an instance of a gamma correction.
+   * @param gamma the gamma, above 1 to brighten the mid tones
+   * @param imageName the name of the image
+   * @param destImageName the name of the destination image
+   */
+  public Gamma(double gamma, String imageName, String destImageName) {
+    this.gamma = gamma;
+    this.imageName = imageName;
+    this.destImageName = destImageName;
+  }
+
+  /**
+   * Takes in an image object and executes the gamma correction on it.
+   *
+   * @param image the image object passed in
+   */
+  @Override
+  public void execute(ProcessingModel image) {
+    image.gamma(this.gamma, this.imageName, this.destImageName);
+  }
+}
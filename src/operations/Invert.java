@@ -0,0 +1,26 @@
+package operations;
+
+import model.ProcessingModel;
+
+/**
+ * This class creates the negative of an image.
+ */
+public class Invert implements ImageOperationCommand {
+  protected String imageName;
+  protected String destImageName;
+
+  public Invert(String imageName, String destImageName) {
+    this.imageName = imageName;
+    this.destImageName = destImageName;
+  }
+
+  /**
+   * Takes in an image object and executes the invert operation on it.
+   *
+   * @param image the image object passed in
+   */
+  @Override
+  public void execute(ProcessingModel image) {
+    image.invert(imageName, destImageName);
+  }
+}
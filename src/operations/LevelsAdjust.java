@@ -0,0 +1,40 @@
+package operations;
+
+import model.ProcessingModel;
+
+/**
+ * This class creates an image whose levels are stretched between a black, mid and white point.
+ */
+public class LevelsAdjust implements ImageOperationCommand {
+  protected String imageName;
+  protected String destImageName;
+  protected int black;
+  protected int mid;
+  protected int white;
+
+  /**
+   * Creates an instance of a levels adjustment.
+   * @param black the value that becomes 0
+   * @param mid the value that becomes 128
+   * @param white the value that becomes 255
+   * @param imageName the name of the image
+   * @param destImageName the name of the destination image
+   */
+  public LevelsAdjust(int black, int mid, int white, String imageName, String destImageName) {
+    this.black = black;
+    this.mid = mid;
+    this.white = white;
+    this.imageName = imageName;
+    this.destImageName = destImageName;
+  }
+
+  /**
+   * Takes in an image object and executes the levels adjustment on it.
+   *
+   * @param image the image object passed in
+   */
+  @Override
+  public void execute(ProcessingModel image) {
+    image.levels(this.black, this.mid, this.white, this.imageName, this.destImageName);
+  }
+}
@@ -0,0 +1,34 @@
+package operations;
+
+import model.ProcessingModel;
+
+/**
+ * This class creates an image whose channels are either 0 or 255.
+ */
+public class Threshold implements ImageOperationCommand {
+  protected String imageName;
+  protected String destImageName;
+  protected int level;
+
+  /**
+   * Creates an instance of a threshold.
+   * @param level the lowest channel value that becomes 255
+   * @param imageName the name of the image
+   * @param destImageName the name of the destination image
+   */
+  public Threshold(int level, String imageName, String destImageName) {
+    this.level = level;
+    this.imageName = imageName;
+    this.destImageName = destImageName;
+  }
+
+  /**
+   * Takes in an image object and executes the threshold operation on it.
+   *
+   * @param image the image object passed in
+   */
+  @Override
+  public void execute(ProcessingModel image) {
+    image.threshold(this.level, this.imageName, this.destImageName);
+  }
+}
@@ -6,15 +6,12 @@ import java.awt.BorderLayout;
 import java.awt.FlowLayout;
 import java.awt.GridLayout;
 import java.awt.Color;
-import java.awt.image.BufferedImage;
 
 import javax.swing.JFrame;
 import javax.swing.JPanel;
-import javax.swing.JLabel;
 import javax.swing.JButton;
 import javax.swing.JList;
 import javax.swing.DefaultListModel;
-import javax.swing.ImageIcon;
 import javax.swing.JOptionPane;
 import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
@@ -23,7 +20,6 @@ import javax.swing.JScrollPane;
 
 import controller.Features;
 import model.Image;
-import model.Pixel;
 
 /**
  * This is an implementation of the View interface that uses Java Swing to display
@@ -36,7 +32,7 @@ public final class GUIView extends JFrame implements View {
   private JPanel histogramPanel;
   private JPanel histogramGraph;
   private JPanel imagePanel;
-  private JLabel imageLabel;
+  private ImageCanvas imageCanvas;
   private JButton loadButton;
   private JButton saveButton;
   private JButton applyButton;
@@ -99,30 +95,16 @@ public final class GUIView extends JFrame implements View {
   }
 
   /**
-   * Updates the image displayed in the GUI view.
+   * Updates the image displayed in the GUI view. Only the part of the image visible in the
+   * scroll pane is read and drawn.
    *
    * @param imageName      the name of the image being displayed.
    * @param image          the image being displayed.
    */
   @Override
   public void updateImage(String imageName, Image image) {
-    BufferedImage toDisplay = new BufferedImage(image.getWidth(), image.getHeight(),
-            BufferedImage.TYPE_INT_RGB);
-
-    Pixel[][] pixels = image.getPixels();
-
-    for (int row = 0; row < image.getHeight(); row++) {
-      for (int col = 0; col < image.getWidth(); col++) {
-        int red = pixels[col][row].getRed();
-        int green = pixels[col][row].getGreen();
-        int blue = pixels[col][row].getBlue();
-        int color = (red << 16) + (green << 8) + blue;
-        toDisplay.setRGB(col, row, color);
-      }
-    }
-
     try {
-      this.imageLabel.setIcon(new ImageIcon(toDisplay));
+      this.imageCanvas.setImage(image);
       this.updateHistogram(image);
     } catch (Exception e) {
       this.renderMessage("Failed to display image.");
@@ -256,9 +238,8 @@ public final class GUIView extends JFrame implements View {
   private void makeImage() {
     this.imagePanel = new JPanel();
     imagePanel.setBackground(new Color(255, 0, 127));
-    imageLabel = new JLabel();
-    imageLabel.setLayout(new BorderLayout());
-    JScrollPane imagePane = new JScrollPane(imageLabel);
+    imageCanvas = new ImageCanvas();
+    JScrollPane imagePane = new JScrollPane(imageCanvas);
     imagePane.setPreferredSize(new Dimension(550, 420));
     this.imagePanel.add(imagePane);
   }
@@ -0,0 +1,58 @@
+package view;
+
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import javax.swing.JPanel;
+
+import model.Image;
+import model.TiledImage;
+
+/**
+ * Class to draw an image inside a scroll pane. The image is held as a {@link TiledImage}
+ * whose tiles are decoded from the image only when they are first drawn, and each repaint
+ * copies only the part of the image that is visible, so showing a large image costs memory
+ * and time in proportion to the view rather than the image.
+ */
+public class ImageCanvas extends JPanel {
+  private static final long serialVersionUID = 1L;
+
+  private transient TiledImage image;
+
+  /**
+   * Shows the given image. The image must not change while it is shown.
+   * @param image the image to show.
+   */
+  public void setImage(Image image) {
+    this.image = image instanceof TiledImage ? (TiledImage) image : new TiledImage(image);
+    this.setPreferredSize(new Dimension(image.getWidth(), image.getHeight()));
+    this.revalidate();
+    this.repaint();
+  }
+
+  /**
+   * Draws the visible part of the image.
+   * @param g the Graphics to draw on.
+   */
+  @Override
+  protected void paintComponent(Graphics g) {
+    super.paintComponent(g);
+    if (this.image == null) {
+      return;
+    }
+    Rectangle visible = new Rectangle(this.image.getWidth(), this.image.getHeight());
+    if (g.getClipBounds() != null) {
+      visible = visible.intersection(g.getClipBounds());
+    }
+    if (visible.isEmpty()) {
+      return;
+    }
+    int[] region = new int[visible.width * visible.height];
+    this.image.getRegion(visible.x, visible.y, visible.width, visible.height, region, 0);
+    BufferedImage part = new BufferedImage(visible.width, visible.height,
+            BufferedImage.TYPE_INT_RGB);
+    part.getRaster().setDataElements(0, 0, visible.width, visible.height, region);
+    g.drawImage(part, visible.x, visible.y, null);
+  }
+}
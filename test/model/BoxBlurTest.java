@@ -0,0 +1,121 @@
+package model;
+
+import org.junit.Test;
+
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * This class represents tests for blurring an image by an arbitrary radius.
+ */
+public class BoxBlurTest {
+  private static final int WIDTH = 13;
+  private static final int HEIGHT = 8;
+
+  /**
+   * Box blurs one channel the direct way, averaging every window from scratch.
+   */
+  private int[] direct(int[] data, int radius, int shift) {
+    int[] channel = new int[data.length];
+    for (int i = 0; i < data.length; i++) {
+      channel[i] = (data[i] >> shift) & 0xFF;
+    }
+    for (int pass = 0; pass < 6; pass++) {
+      boolean across = pass < 3;
+      int[] result = new int[channel.length];
+      for (int y = 0; y < HEIGHT; y++) {
+        for (int x = 0; x < WIDTH; x++) {
+          int sum = 0;
+          int count = 0;
+          for (int k = -radius; k <= radius; k++) {
+            int xx = across ? x + k : x;
+            int yy = across ? y : y + k;
+            if (xx >= 0 && xx < WIDTH && yy >= 0 && yy < HEIGHT) {
+              sum += channel[yy * WIDTH + xx];
+              count++;
+            }
+          }
+          result[y * WIDTH + x] = (sum + count / 2) / count;
+        }
+      }
+      channel = result;
+    }
+    return channel;
+  }
+
+  private int[] rows(Image image) {
+    int[] data = new int[WIDTH * HEIGHT];
+    int[] row = new int[WIDTH];
+    for (int y = 0; y < HEIGHT; y++) {
+      image.getRow(y, row);
+      System.arraycopy(row, 0, data, y * WIDTH, WIDTH);
+    }
+    return data;
+  }
+
+  @Test
+  public void testMatchesDirectBoxBlurs() {
+    int[] data = TestImages.randomPixels(WIDTH * HEIGHT);
+    for (int radius : new int[]{1, 2, 5, 12, 50}) {
+      PackedImage image = new PackedImage(WIDTH, HEIGHT, data.clone());
+      image.blur(radius);
+      int[] red = direct(data, radius, 16);
+      int[] green = direct(data, radius, 8);
+      int[] blue = direct(data, radius, 0);
+      int[] expected = new int[data.length];
+      for (int i = 0; i < data.length; i++) {
+        expected[i] = PixelOps.pack(red[i], green[i], blue[i]);
+      }
+      assertArrayEquals("radius " + radius, expected, rows(image));
+    }
+  }
+
+  @Test
+  public void testStorageDoesNotChangeResult() {
+    PackedImage packed = TestImages.randomImage(WIDTH, HEIGHT);
+    Image[] images = {
+        new PlanarImage(packed),
+        TiledImage.compressed(packed),
+        new ImageImpl(packed.getPixels()),
+        RemappedImage.flipHorizontal(RemappedImage.flipHorizontal(packed))
+    };
+    packed.blur(4);
+    for (Image image : images) {
+      image.blur(4);
+      assertArrayEquals(image.getClass().getSimpleName(), rows(packed), rows(image));
+    }
+
+    GreyImage grey = GreyImage.component(TestImages.randomImage(WIDTH, HEIGHT), "luma");
+    Image expected = new PackedImage(grey.getPixels());
+    grey.blur(3);
+    expected.blur(3);
+    assertArrayEquals(rows(expected), rows(grey));
+  }
+
+  @Test
+  public void testUniformImageIsUnchanged() {
+    PackedImage image = new PackedImage(WIDTH, HEIGHT);
+    for (int y = 0; y < HEIGHT; y++) {
+      for (int x = 0; x < WIDTH; x++) {
+        image.setRGB(x, y, 0x336699);
+      }
+    }
+    image.blur(6);
+    assertEquals(0x336699, image.getRGB(0, 0));
+    assertEquals(0x336699, image.getRGB(WIDTH - 1, HEIGHT - 1));
+  }
+
+  @Test
+  public void testZeroRadiusDoesNothing() {
+    int[] data = TestImages.randomPixels(WIDTH * HEIGHT);
+    PackedImage image = new PackedImage(WIDTH, HEIGHT, data.clone());
+    image.blur(0);
+    assertArrayEquals(data, rows(image));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeRadius() {
+    new PackedImage(WIDTH, HEIGHT).blur(-1);
+  }
+}
@@ -0,0 +1,62 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * This class represents tests for the pool of reusable pixel arrays.
+ */
+public class BufferPoolTest {
+  // a size that no other test uses, so these tests see only their own pooled arrays
+  private static final int WIDTH = 301;
+  private static final int HEIGHT = 207;
+
+  @Test
+  public void testClassSize() {
+    assertEquals(100, BufferPool.classSize(100));
+    assertEquals(1 << 20, BufferPool.classSize(1 << 20));
+    assertEquals(5 << 18, BufferPool.classSize((1 << 20) + 1));
+    assertEquals(7 << 18, BufferPool.classSize((6 << 18) + 1));
+  }
+
+  @Test
+  public void testTakeReusesGivenArray() {
+    int[] first = BufferPool.take(WIDTH * HEIGHT, false);
+    first[5] = 42;
+    BufferPool.give(first);
+    int[] second = BufferPool.take(WIDTH * HEIGHT, true);
+    assertSame(first, second);
+    assertEquals(0, second[5]);
+  }
+
+  @Test
+  public void testReleaseKeepsSharedData() {
+    PackedImage image = new PackedImage(WIDTH, HEIGHT);
+    image.setRGB(0, 0, 0x123456);
+    Image copy = ImageUtil.cloneImage(image);
+    BufferPool.release(image);
+
+    // the copy still uses the data, so whatever the pool hands out now must be another array
+    int[] taken = BufferPool.take(WIDTH * HEIGHT, false);
+    Arrays.fill(taken, 0x7F7F7F);
+    assertEquals(0x123456, copy.getRGB(0, 0));
+    BufferPool.give(taken);
+
+    BufferPool.release(copy);
+    assertEquals(0x123456, BufferPool.take(WIDTH * HEIGHT, false)[0]);
+  }
+
+  @Test
+  public void testModelReusesReplacedImages() {
+    ProcessingModelImpl model = new ProcessingModelImpl();
+    model.addImage(new PackedImage(WIDTH, HEIGHT), "a");
+    for (int i = 0; i < 10; i++) {
+      model.brighten(1, "a", "a");
+    }
+    assertEquals(new Pixel(10, 10, 10), model.getImage("a").getPixelAt(WIDTH - 1, HEIGHT - 1));
+  }
+}
@@ -0,0 +1,110 @@
+package model;
+
+import org.junit.Test;
+
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class represents tests for per-channel lookup tables.
+ */
+public class ChannelTableTest {
+  private static final int WIDTH = 37;
+  private static final int HEIGHT = 19;
+
+  /**
+   * Maps one grey level through a table.
+   */
+  private int map(ChannelTable table, int value) {
+    int[] pixel = {value * 0x010101};
+    table.apply(pixel, pixel, 0, 1);
+    return pixel[0] & 0xFF;
+  }
+
+  @Test
+  public void testBrightenClamps() {
+    int[] pixels = TestImages.randomPixels(WIDTH * HEIGHT);
+    int[] expected = pixels.clone();
+    ChannelTable.brighten(-90).apply(pixels, pixels, 0, pixels.length);
+    for (int i = 0; i < pixels.length; i++) {
+      int p = expected[i];
+      assertEquals(PixelOps.pack(PixelOps.clamp(((p >> 16) & 0xFF) - 90),
+              PixelOps.clamp(((p >> 8) & 0xFF) - 90), PixelOps.clamp((p & 0xFF) - 90)),
+              pixels[i]);
+    }
+    assertEquals(255, map(ChannelTable.brighten(Integer.MAX_VALUE), 0));
+    assertEquals(0, map(ChannelTable.brighten(Integer.MIN_VALUE), 255));
+  }
+
+  @Test
+  public void testPointOperations() {
+    ChannelTable levels = ChannelTable.levels(20, 100, 220);
+    assertEquals(0, map(levels, 10));
+    assertEquals(0, map(levels, 20));
+    assertEquals(128, map(levels, 100));
+    assertEquals(255, map(levels, 220));
+    assertEquals(255, map(levels, 240));
+    for (int value = 0; value < 256; value++) {
+      assertEquals(value, map(ChannelTable.gamma(1), value));
+      assertEquals(255 - value, map(ChannelTable.invert(), value));
+      assertEquals(value >= 60 ? 255 : 0, map(ChannelTable.threshold(60), value));
+    }
+    assertEquals(186, map(ChannelTable.gamma(2.2), 128));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testLevelsOutOfOrder() {
+    ChannelTable.levels(100, 50, 200);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGammaNotPositive() {
+    ChannelTable.gamma(0);
+  }
+
+  @Test
+  public void testConsecutiveTablesCompose() {
+    ColorTransform transform = new ColorTransform(ChannelTable.brighten(200))
+            .then(ChannelTable.brighten(-150)).then(ChannelTable.invert())
+            .then(ChannelTable.gamma(0.8));
+    assertNotNull(transform.table());
+    assertNull(transform.then(ColorMatrix.SEPIA).table());
+
+    int[] pixels = TestImages.randomPixels(WIDTH * HEIGHT);
+    int[] expected = pixels.clone();
+    for (ChannelTable table : new ChannelTable[]{ChannelTable.brighten(200),
+        ChannelTable.brighten(-150), ChannelTable.invert(), ChannelTable.gamma(0.8)}) {
+      table.apply(expected, expected, 0, expected.length);
+    }
+    transform.apply(pixels, 0, pixels.length);
+    assertArrayEquals(expected, pixels);
+  }
+
+  @Test
+  public void testHistogramFollowsFromHistogramBefore() {
+    ChannelTable table = ChannelTable.levels(10, 90, 200).then(ChannelTable.threshold(70));
+    int[] pixels = TestImages.randomPixels(WIDTH * HEIGHT);
+    int[][] before = new int[4][256];
+    PixelOps.histogram(pixels, 0, pixels.length, before);
+    table.apply(pixels, pixels, 0, pixels.length);
+    int[][] after = new int[4][256];
+    PixelOps.histogram(pixels, 0, pixels.length, after);
+    int[][] derived = table.histogram(before, false);
+    for (int channel = 0; channel < 3; channel++) {
+      assertArrayEquals(after[channel], derived[channel]);
+    }
+    assertNull(derived[3]);
+
+    GreyImage grey = GreyImage.greyscale(TestImages.randomImage(WIDTH, HEIGHT));
+    Image mapped = RecoloredImage.recolor(grey, ChannelTable.gamma(1.7), false);
+    mapped.brighten(12);
+    Image applied = ImageUtil.cloneImage(mapped);
+    applied.getRGB(0, 0);
+    assertArrayEquals(applied.histogram(), mapped.histogram());
+    assertTrue(RecoloredImage.isPending(mapped));
+  }
+}
@@ -0,0 +1,77 @@
+package model;
+
+import org.junit.After;
+import org.junit.Test;
+
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * This class represents tests for applying colour matrices in blocks.
+ */
+public class ColorMatrixTest {
+  private static final int SIZE = 1300;
+
+  @After
+  public void useDoubles() {
+    FixedPoint.setEnabled(false);
+  }
+
+  @Test
+  public void testBlocksMatchPixelByPixel() {
+    int[] original = TestImages.randomPixels(SIZE);
+    int[] pixels = TestImages.randomPixels(SIZE);
+    ColorMatrix.SEPIA.apply(pixels, 0, SIZE);
+    for (int i = 0; i < SIZE; i++) {
+      int r = (original[i] >> 16) & 0xFF;
+      int g = (original[i] >> 8) & 0xFF;
+      int b = original[i] & 0xFF;
+      int red = PixelOps.truncate(r * 0.393 + g * 0.769 + b * 0.189);
+      int green = PixelOps.truncate(r * 0.349 + g * 0.686 + b * 0.168);
+      int blue = PixelOps.truncate(r * 0.272 + g * 0.534 + b * 0.131);
+      assertEquals(PixelOps.pack(red, green, blue), pixels[i]);
+    }
+  }
+
+  @Test
+  public void testRangeLeavesOtherPixels() {
+    int[] original = TestImages.randomPixels(SIZE);
+    int[] pixels = TestImages.randomPixels(SIZE);
+    ColorMatrix.GREYSCALE.apply(pixels, 100, 700);
+    for (int i = 0; i < SIZE; i++) {
+      int p = pixels[i];
+      if (i < 100 || i >= 700) {
+        assertEquals(original[i], p);
+      } else {
+        assertEquals(p & 0xFF, (p >> 8) & 0xFF);
+        assertEquals(p & 0xFF, (p >> 16) & 0xFF);
+      }
+    }
+  }
+
+  @Test
+  public void testPlanesMatchPacked() {
+    for (boolean fixed : new boolean[]{false, true}) {
+      FixedPoint.setEnabled(fixed);
+      for (ColorMatrix matrix : new ColorMatrix[]{ColorMatrix.SEPIA, ColorMatrix.GREYSCALE,
+          ColorMatrix.LUMA}) {
+        int[] pixels = TestImages.randomPixels(SIZE);
+        byte[][] planes = new byte[3][SIZE];
+        for (int i = 0; i < SIZE; i++) {
+          planes[0][i] = (byte) (pixels[i] >> 16);
+          planes[1][i] = (byte) (pixels[i] >> 8);
+          planes[2][i] = (byte) pixels[i];
+        }
+        matrix.apply(pixels, 0, SIZE);
+        matrix.apply(planes, planes, 0, SIZE);
+        int[] packed = new int[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+          packed[i] = PixelOps.pack(planes[0][i] & 0xFF, planes[1][i] & 0xFF,
+                  planes[2][i] & 0xFF);
+        }
+        assertArrayEquals(pixels, packed);
+      }
+    }
+  }
+}
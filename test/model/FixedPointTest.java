@@ -0,0 +1,160 @@
+package model;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * This class represents tests for filters in fixed-point arithmetic.
+ */
+public class FixedPointTest {
+  private static final int WIDTH = 11;
+  private static final int HEIGHT = 7;
+  private static final int SIDE = 64;
+
+  @After
+  public void useDoubles() {
+    FixedPoint.setEnabled(false);
+  }
+
+  /**
+   * Applies the documented rule with plain arithmetic: round each weight to a multiple of
+   * 1/65536, sum the products, floor the sum and clamp it.
+   */
+  private int rule(double[] weights, int red, int green, int blue) {
+    long sum = Math.round(weights[0] * 65536) * red + Math.round(weights[1] * 65536) * green
+            + Math.round(weights[2] * 65536) * blue;
+    return (int) Math.max(0, Math.min(255, Math.floorDiv(sum, 65536L)));
+  }
+
+  @Test
+  public void testToChannelFloorsAndClamps() {
+    assertEquals(0, FixedPoint.toChannel(-1));
+    assertEquals(0, FixedPoint.toChannel(-70000));
+    assertEquals(0, FixedPoint.toChannel(65535));
+    assertEquals(1, FixedPoint.toChannel(65536));
+    assertEquals(254, FixedPoint.toChannel(255 * 65536 - 1));
+    assertEquals(255, FixedPoint.toChannel(255 * 65536));
+    assertEquals(255, FixedPoint.toChannel(300 * 65536));
+  }
+
+  @Test
+  public void testColourMatricesFollowRule() {
+    double[][] sepia = {{0.393, 0.769, 0.189}, {0.349, 0.686, 0.168}, {0.272, 0.534, 0.131}};
+    double[] luma = {0.2126, 0.7152, 0.0722};
+    FixedPoint.setEnabled(true);
+    PackedImage original = TestImages.randomImage(WIDTH, HEIGHT);
+    PackedImage sepiaImage = TestImages.randomImage(WIDTH, HEIGHT);
+    sepiaImage.sepia();
+    PackedImage greyImage = TestImages.randomImage(WIDTH, HEIGHT);
+    greyImage.greyscale();
+    PackedImage lumaImage = TestImages.randomImage(WIDTH, HEIGHT);
+    lumaImage.component("luma");
+    for (int y = 0; y < HEIGHT; y++) {
+      for (int x = 0; x < WIDTH; x++) {
+        int p = original.getRGB(x, y);
+        int r = (p >> 16) & 0xFF;
+        int g = (p >> 8) & 0xFF;
+        int b = p & 0xFF;
+        assertEquals(PixelOps.pack(rule(sepia[0], r, g, b), rule(sepia[1], r, g, b),
+                rule(sepia[2], r, g, b)), sepiaImage.getRGB(x, y));
+        int grey = rule(sepia[0], r, g, b);
+        assertEquals(PixelOps.pack(grey, grey, grey), greyImage.getRGB(x, y));
+        int level = rule(luma, r, g, b);
+        assertEquals(PixelOps.pack(level, level, level), lumaImage.getRGB(x, y));
+      }
+    }
+  }
+
+  @Test
+  public void testExactKernelsMatchDoubles() {
+    PackedImage blurred = TestImages.randomImage(WIDTH, HEIGHT);
+    blurred.blur();
+    PackedImage sharpened = TestImages.randomImage(WIDTH, HEIGHT);
+    sharpened.sharpen();
+
+    FixedPoint.setEnabled(true);
+    PackedImage fixedBlurred = TestImages.randomImage(WIDTH, HEIGHT);
+    fixedBlurred.blur();
+    PackedImage fixedSharpened = TestImages.randomImage(WIDTH, HEIGHT);
+    fixedSharpened.sharpen();
+    assertArrayEquals(blurred.getPixels(), fixedBlurred.getPixels());
+    assertArrayEquals(sharpened.getPixels(), fixedSharpened.getPixels());
+  }
+
+  @Test
+  public void testStorageDoesNotChangeResult() {
+    FixedPoint.setEnabled(true);
+    String[] operations = {"sepia", "greyscale", "luma", "sharpen"};
+    for (String operation : operations) {
+      PackedImage packed = TestImages.randomImage(WIDTH, HEIGHT);
+      PlanarImage planar = new PlanarImage(TestImages.randomImage(WIDTH, HEIGHT));
+      for (Image image : new Image[]{packed, planar}) {
+        switch (operation) {
+          case "sepia":
+            image.sepia();
+            break;
+          case "greyscale":
+            image.greyscale();
+            break;
+          case "sharpen":
+            image.sharpen();
+            break;
+          default:
+            image.component(operation);
+        }
+      }
+      assertArrayEquals(operation, packed.getPixels(), planar.getPixels());
+    }
+  }
+
+  /**
+   * Returns the image of the given operation on a darkened random image, worked out straight
+   * away in the given mode.
+   */
+  private PackedImage eager(String operation, boolean fixed) {
+    boolean enabled = FixedPoint.isEnabled();
+    FixedPoint.setEnabled(fixed);
+    PackedImage image = TestImages.randomImage(SIDE, SIDE);
+    TestImages.apply(image, "darken");
+    TestImages.apply(image, operation);
+    FixedPoint.setEnabled(enabled);
+    return image;
+  }
+
+  @Test
+  public void testModeIsTakenWhenTheOperationIsGiven() throws IOException {
+    String[] operations = {"sepia", "greyscale"};
+    ProcessingModelImpl model = new ProcessingModelImpl();
+    model.addImage(TestImages.randomImage(SIDE, SIDE), "a");
+    model.brighten(-40, "a", "b");
+    model.sepia("b", "sepia");
+    model.greyscale("b", "greyscale");
+
+    FixedPoint.setEnabled(true);
+    model.sepia("b", "fixed");
+    FixedPoint.setEnabled(false);
+    Image fixed = model.getImage("fixed");
+
+    FixedPoint.setEnabled(true);
+    for (String operation : operations) {
+      File file = File.createTempFile("mode", ".ppm");
+      file.deleteOnExit();
+      model.save(file.getPath(), operation);
+      Image expected = eager(operation, false);
+      assertFalse(Arrays.deepEquals(expected.getPixels(),
+              eager(operation, true).getPixels()));
+      assertArrayEquals(operation, expected.getPixels(), model.getImage(operation).getPixels());
+      assertArrayEquals(operation, expected.getPixels(),
+              ImageUtil.load(file.getPath()).getPixels());
+    }
+    assertArrayEquals(eager("sepia", true).getPixels(), fixed.getPixels());
+  }
+}
@@ -0,0 +1,134 @@
+package model;
+
+import org.junit.Test;
+
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class represents tests for an image stored as one grey level per pixel.
+ */
+public class GreyImageTest {
+  private static final int WIDTH = 7;
+  private static final int HEIGHT = 5;
+
+  @Test
+  public void testComponentsMatchPackedImage() {
+    String[] types = {"red", "green", "blue", "luma", "intensity", "value"};
+    for (String type : types) {
+      PackedImage packed = TestImages.randomImage(WIDTH, HEIGHT);
+      GreyImage grey = GreyImage.component(packed, type);
+      packed.component(type);
+      assertArrayEquals(type, packed.getPixels(), grey.getPixels());
+    }
+    PackedImage packed = TestImages.randomImage(WIDTH, HEIGHT);
+    GreyImage grey = GreyImage.greyscale(packed);
+    packed.greyscale();
+    assertArrayEquals(packed.getPixels(), grey.getPixels());
+  }
+
+  @Test
+  public void testOperationsMatchPackedImage() {
+    String[] operations = {"flipHorizontal", "flipVertical", "brighten", "darken", "blur",
+        "sharpen", "greyscale", "luma", "sepia"};
+    for (String operation : operations) {
+      PackedImage packed = TestImages.randomImage(WIDTH, HEIGHT);
+      packed.component("value");
+      GreyImage grey = GreyImage.component(TestImages.randomImage(WIDTH, HEIGHT), "value");
+      for (Image image : new Image[]{packed, grey}) {
+        switch (operation) {
+          case "flipHorizontal":
+            image.flipHorizontal();
+            break;
+          case "flipVertical":
+            image.flipVertical();
+            break;
+          case "brighten":
+            image.brighten(40);
+            break;
+          case "darken":
+            image.brighten(-40);
+            break;
+          case "blur":
+            image.blur();
+            break;
+          case "sharpen":
+            image.sharpen();
+            break;
+          case "greyscale":
+            image.greyscale();
+            break;
+          case "sepia":
+            image.sepia();
+            break;
+          default:
+            image.component(operation);
+        }
+      }
+      assertArrayEquals(operation, packed.getPixels(), grey.getPixels());
+      assertEquals(operation, !operation.equals("sepia"), grey.isGrey());
+    }
+  }
+
+  @Test
+  public void testRowsExpandToColour() {
+    GreyImage grey = new GreyImage(2, 1, new byte[]{10, (byte) 200});
+    int[] row = new int[2];
+    grey.getRow(0, row);
+    assertArrayEquals(new int[]{0x0A0A0A, 0xC8C8C8}, row);
+    assertEquals(0xC8C8C8, grey.getRGB(1, 0));
+
+    grey.setRGB(0, 0, 0x202020);
+    assertTrue(grey.isGrey());
+    grey.setRGB(1, 0, 0x102030);
+    assertFalse(grey.isGrey());
+    assertEquals(new Pixel(32, 32, 32), grey.getPixelAt(0, 0));
+    assertEquals(new Pixel(16, 32, 48), grey.getPixelAt(1, 0));
+  }
+
+  @Test
+  public void testHistogram() {
+    GreyImage grey = GreyImage.component(TestImages.randomImage(WIDTH, HEIGHT), "luma");
+    int[][] expected = new PackedImage(grey.getPixels()).histogram();
+    int[][] actual = grey.histogram();
+    for (int channel = 0; channel < 4; channel++) {
+      assertArrayEquals(expected[channel], actual[channel]);
+    }
+  }
+
+  @Test
+  public void testCopyOnWrite() {
+    GreyImage grey = new GreyImage(2, 1, new byte[]{10, 20});
+    Image copy = ImageUtil.cloneImage(grey);
+    copy.brighten(5);
+    assertEquals(new Pixel(10, 10, 10), grey.getPixelAt(0, 0));
+    assertEquals(new Pixel(15, 15, 15), copy.getPixelAt(0, 0));
+
+    grey.sepia();
+    assertEquals(new Pixel(15, 15, 15), copy.getPixelAt(0, 0));
+  }
+
+  @Test
+  public void testOriginalWritesInPlaceOnceNothingSharesIt() {
+    byte[] levels = new byte[4];
+    Image image = new GreyImage(2, 2, levels);
+    Image copy = ImageUtil.cloneImage(image);
+    copy.brighten(10);
+    image.setRGB(0, 0, 0x404040);
+    assertEquals(0x40, levels[0]);
+
+    Image released = ImageUtil.cloneImage(image);
+    BufferPool.release(released);
+    image.setRGB(1, 0, 0x505050);
+    assertEquals(0x50, levels[1]);
+    assertEquals(0x0A0A0A, copy.getRGB(0, 0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownComponent() {
+    GreyImage.component(TestImages.randomImage(WIDTH, HEIGHT), "alpha");
+  }
+}
@@ -255,7 +255,7 @@ public class ImageImplTest {
   public void testSharpen() {
     image.sharpen();
     assertEquals("3 3\n" +
-            "(R:2, G:4, B:5) (R:5, G:6, B:8) (R:0, G:0, B:0)\n" +
+            "(R:2, G:4, B:5) (R:4, G:6, B:7) (R:0, G:0, B:0)\n" +
             "(R:0, G:0, B:0) (R:0, G:0, B:0) (R:0, G:0, B:0)\n" +
             "(R:0, G:0, B:0) (R:0, G:0, B:0) (R:0, G:0, B:0)\n", image.toString());
   }
@@ -277,4 +277,50 @@ public class ImageImplTest {
             "(R:16, G:16, B:16) (R:20, G:20, B:20) (R:24, G:24, B:24)\n" +
             "(R:29, G:29, B:29) (R:33, G:33, B:33) (R:37, G:37, B:37)\n", image.toString());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testNonSquareImageMatchesItsRows() {
+    // indexed by x and then y: four columns of three rows
+    Pixel[][] wide = {
+        {a, b, c},
+        {d, e, f},
+        {g, h, i},
+        {b, c, d}
+    };
+    Image image = new ImageImpl(wide);
+    assertEquals(4, image.getWidth());
+    assertEquals(3, image.getHeight());
+    int[] row = new int[4];
+    image.getRow(2, row);
+    assertEquals(PixelOps.pack(7, 8, 9), row[0]);
+    assertEquals(PixelOps.pack(11, 12, 13), row[3]);
+
+    Image planar = new PlanarImage(image);
+    assertEquals(image.getRGB(3, 1), planar.getRGB(3, 1));
+    assertEquals(4, ImageUtil.image2BufferedImage(image).getWidth());
+    assertEquals(image.getRGB(1, 2) & 0xFFFFFF,
+        ImageUtil.image2BufferedImage(image).getRGB(1, 2) & 0xFFFFFF);
+  }
+
+  @Test
+  public void testCloneCopiesRowsWithoutPixels() {
+    Pixel[][] tall = {
+        {a, b, c, d},
+        {e, f, g, h}
+    };
+    Image image = new ImageImpl(tall) {
+      @Override
+      public Pixel[][] getPixels() {
+        throw new AssertionError("the copy should not make a Pixel per pixel");
+      }
+    };
+    Image copy = ImageUtil.cloneImage(image);
+    assertEquals(2, copy.getWidth());
+    assertEquals(4, copy.getHeight());
+    for (int y = 0; y < 4; y++) {
+      for (int x = 0; x < 2; x++) {
+        assertEquals(image.getRGB(x, y), copy.getRGB(x, y));
+      }
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package model;
+
+import org.junit.Test;
+
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class represents tests for convolution kernels and their separable passes.
+ */
+public class KernelTest {
+  private static final int WIDTH = 9;
+  private static final int HEIGHT = 6;
+
+  private final double[] binomial = {1 / 16.0, 4 / 16.0, 6 / 16.0, 4 / 16.0, 1 / 16.0};
+
+  /**
+   * Convolves one channel the direct way, skipping neighbours outside the image.
+   */
+  private int direct(int[] data, double[][] weights, int x, int y, int shift) {
+    int bounds = weights.length / 2;
+    double sum = 0;
+    for (int j = -bounds; j <= bounds; j++) {
+      for (int k = -bounds; k <= bounds; k++) {
+        int xx = x + k;
+        int yy = y + j;
+        if (xx >= 0 && xx < WIDTH && yy >= 0 && yy < HEIGHT) {
+          sum += ((data[yy * WIDTH + xx] >> shift) & 0xFF) * weights[j + bounds][k + bounds];
+        }
+      }
+    }
+    return PixelOps.truncate(sum);
+  }
+
+  @Test
+  public void testDetectsSeparableKernels() {
+    assertTrue(Kernel.BLUR.isSeparable());
+    assertFalse(Kernel.SHARPEN.isSeparable());
+    assertTrue(Kernel.separable(binomial, binomial).isSeparable());
+    assertFalse(new Kernel(new double[][]{{0, 1, 0}, {1, 1, 1}, {0, 1, 0}}).isSeparable());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testEvenKernel() {
+    new Kernel(new double[][]{{1, 1}, {1, 1}});
+  }
+
+  @Test
+  public void testSeparablePassesMatchDirectConvolution() {
+    Kernel kernel = Kernel.separable(binomial, binomial);
+    double[][] weights = new double[5][5];
+    for (int i = 0; i < 5; i++) {
+      for (int j = 0; j < 5; j++) {
+        weights[i][j] = binomial[i] * binomial[j];
+      }
+    }
+    int[] data = TestImages.randomPixels(WIDTH * HEIGHT);
+    int[] result = new int[WIDTH * HEIGHT];
+    int[] rowStarts = new int[5];
+    double[] scratch = new double[3 * WIDTH];
+    for (int y = 0; y < HEIGHT; y++) {
+      for (int j = 0; j < 5; j++) {
+        int yy = y + j - 2;
+        rowStarts[j] = yy < 0 || yy >= HEIGHT ? -1 : yy * WIDTH;
+      }
+      kernel.convolveRow(data, rowStarts, WIDTH, result, y * WIDTH, scratch);
+    }
+
+    byte[] blue = new byte[WIDTH * HEIGHT];
+    for (int i = 0; i < blue.length; i++) {
+      blue[i] = (byte) data[i];
+    }
+    byte[] bluePlane = kernel.convolvePlane(blue, WIDTH, HEIGHT);
+
+    for (int y = 0; y < HEIGHT; y++) {
+      for (int x = 0; x < WIDTH; x++) {
+        int expected = PixelOps.pack(direct(data, weights, x, y, 16),
+                direct(data, weights, x, y, 8), direct(data, weights, x, y, 0));
+        assertEquals(expected, result[y * WIDTH + x]);
+        assertEquals(expected & 0xFF, bluePlane[y * WIDTH + x] & 0xFF);
+      }
+    }
+  }
+
+  @Test
+  public void testBlurMatchesDirectConvolution() {
+    int[] data = TestImages.randomPixels(WIDTH * HEIGHT);
+    PackedImage image = new PackedImage(WIDTH, HEIGHT, data.clone());
+    image.blur();
+    double[][] weights = {
+        {1 / 16.0, 1 / 8.0, 1 / 16.0},
+        {1 / 8.0, 1 / 4.0, 1 / 8.0},
+        {1 / 16.0, 1 / 8.0, 1 / 16.0}
+    };
+    int[] row = new int[WIDTH];
+    int[] expected = new int[WIDTH];
+    for (int y = 0; y < HEIGHT; y++) {
+      image.getRow(y, row);
+      for (int x = 0; x < WIDTH; x++) {
+        expected[x] = PixelOps.pack(direct(data, weights, x, y, 16),
+                direct(data, weights, x, y, 8), direct(data, weights, x, y, 0));
+      }
+      assertArrayEquals(expected, row);
+    }
+  }
+}
@@ -0,0 +1,159 @@
+package model;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class represents tests for an image kept in a memory-mapped file.
+ */
+public class MappedImageTest {
+  private static final int WIDTH = 7;
+  private static final int HEIGHT = 6;
+
+  private MappedImage mappedCopy(int[] data) {
+    MappedImage image = new MappedImage(WIDTH, HEIGHT);
+    for (int y = 0; y < HEIGHT; y++) {
+      image.writeRow(y, data, y * WIDTH);
+    }
+    return image;
+  }
+
+  @Test
+  public void testRowsRoundTrip() {
+    int[] data = TestImages.randomPixels(WIDTH * HEIGHT);
+    MappedImage image = mappedCopy(data);
+    int[] row = new int[WIDTH];
+    image.readRow(4, row, 0);
+    for (int x = 0; x < WIDTH; x++) {
+      assertEquals(data[4 * WIDTH + x], row[x]);
+    }
+    int p = data[2 * WIDTH + 5];
+    assertEquals(new Pixel((p >> 16) & 0xFF, (p >> 8) & 0xFF, p & 0xFF),
+            image.getPixelAt(5, 2));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidSize() {
+    new MappedImage(0, 4);
+  }
+
+  @Test
+  public void testOperationsMatchPackedImage() {
+    for (String operation : TestImages.OPERATIONS) {
+      int[] data = TestImages.randomPixels(WIDTH * HEIGHT);
+      Image mapped = mappedCopy(data);
+      Image packed = new PackedImage(WIDTH, HEIGHT, data.clone());
+      TestImages.apply(mapped, operation);
+      TestImages.apply(packed, operation);
+      assertEquals(operation, new PackedImage(packed.getPixels()).toString(),
+              new PackedImage(mapped.getPixels()).toString());
+    }
+  }
+
+  @Test
+  public void testCloneIsIndependent() {
+    Image image = mappedCopy(TestImages.randomPixels(WIDTH * HEIGHT));
+    Image copy = ImageUtil.cloneImage(image);
+    Pixel before = image.getPixelAt(0, 0);
+    copy.brighten(255);
+    assertEquals(before, image.getPixelAt(0, 0));
+    assertEquals(new Pixel(255, 255, 255), copy.getPixelAt(0, 0));
+  }
+
+  /**
+   * Counts the backing files of mapped images in the temporary directory.
+   */
+  private int tempFiles() {
+    File[] files = new File(System.getProperty("java.io.tmpdir")).listFiles(
+        (dir, name) -> name.startsWith("image") && name.endsWith(".rgb"));
+    return files == null ? 0 : files.length;
+  }
+
+  @Test
+  public void testReleasedImagesDeleteTheirFiles() {
+    int before = tempFiles();
+    Image image = mappedCopy(TestImages.randomPixels(WIDTH * HEIGHT));
+    for (int i = 0; i < 8; i++) {
+      Image next = ImageUtil.cloneImage(image);
+      next.brighten(1);
+      BufferPool.release(image);
+      image = next;
+    }
+    assertEquals(before + 1, tempFiles());
+    BufferPool.release(image);
+    assertEquals(before, tempFiles());
+  }
+
+  @Test
+  public void testOriginalStopsSharingOnceTheCopyWrites() {
+    int before = tempFiles();
+    Image image = mappedCopy(TestImages.randomPixels(WIDTH * HEIGHT));
+    Image copy = ImageUtil.cloneImage(image);
+    copy.brighten(1);
+    assertEquals(before + 2, tempFiles());
+    image.brighten(1);
+    assertEquals(before + 2, tempFiles());
+    BufferPool.release(image);
+    BufferPool.release(copy);
+    assertEquals(before, tempFiles());
+  }
+
+  @Test
+  public void testWritePPM() throws IOException {
+    int[] data = TestImages.randomPixels(WIDTH * HEIGHT);
+    File file = File.createTempFile("mapped", ".ppm");
+    file.deleteOnExit();
+    ImageUtil.writePPM(file.getPath(), mappedCopy(data));
+    Image loaded = ImageUtil.readPPM(file.getPath());
+    assertEquals(new PackedImage(WIDTH, HEIGHT, data).toString(),
+            new PackedImage(loaded.getPixels()).toString());
+  }
+
+  /**
+   * Writes the pixels as a binary PPM file, returning its path.
+   */
+  private String binaryFile(int[] data) throws IOException {
+    File file = File.createTempFile("mapped", ".ppm");
+    file.deleteOnExit();
+    ImageUtil.writePPM(file.getPath(), new PackedImage(WIDTH, HEIGHT, data), PpmFormat.BINARY);
+    return file.getPath();
+  }
+
+  @Test
+  public void testBinaryFileIsMappedAndNeverWritten() throws IOException {
+    int[] data = TestImages.randomPixels(WIDTH * HEIGHT);
+    String path = binaryFile(data);
+    byte[] before = Files.readAllBytes(new File(path).toPath());
+
+    Image loaded = ImageUtil.load(path);
+    assertTrue(loaded instanceof MappedImage);
+    assertEquals(new PackedImage(WIDTH, HEIGHT, data).toString(),
+            new PackedImage(loaded.getPixels()).toString());
+    loaded.brighten(40);
+    loaded.setRGB(0, 0, 0x123456);
+    assertEquals(0x123456, loaded.getRGB(0, 0));
+    assertArrayEquals(before, Files.readAllBytes(new File(path).toPath()));
+  }
+
+  @Test
+  public void testSavingOverTheMappedFile() throws IOException {
+    int[] data = TestImages.randomPixels(WIDTH * HEIGHT);
+    String path = binaryFile(data);
+    ProcessingModel model = new ProcessingModelImpl();
+    model.load(path, "a");
+    model.sepia("a", "b");
+    model.save(path, "b", PpmFormat.BINARY);
+
+    Image expected = new PackedImage(WIDTH, HEIGHT, data);
+    assertArrayEquals(expected.getPixels(), model.getImage("a").getPixels());
+    expected.sepia();
+    assertArrayEquals(expected.getPixels(), ImageUtil.load(path).getPixels());
+  }
+}
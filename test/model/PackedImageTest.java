@@ -0,0 +1,187 @@
+package model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * This class represents tests for an image backed by packed int pixels.
+ */
+public class PackedImageTest {
+  private Pixel a = new Pixel(1, 2, 3);
+  private Pixel b = new Pixel(4, 5, 6);
+  private Pixel c = new Pixel(7, 8, 9);
+  private Pixel d = new Pixel(11, 12, 13);
+  private Pixel e = new Pixel(14, 15, 16);
+  private Pixel f = new Pixel(250, 200, 100);
+
+  // indexed by x and then y: the top row is a b c, the bottom row is d e f
+  private Pixel[][] pixels = {
+          {a, d},
+          {b, e},
+          {c, f}
+  };
+
+  Image image = new PackedImage(pixels);
+
+  @Test
+  public void testConstructor() {
+    assertEquals(3, image.getWidth());
+    assertEquals(2, image.getHeight());
+    assertArrayEquals(pixels, image.getPixels());
+    assertEquals(f, image.getPixelAt(2, 1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorNullPixels() {
+    new PackedImage((Pixel[][]) null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorShortData() {
+    new PackedImage(3, 2, new int[5]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetPixelAtOutside() {
+    image.getPixelAt(3, 0);
+  }
+
+  @Test
+  public void testToString() {
+    assertEquals("3 2\n"
+            + "(R:1, G:2, B:3) (R:4, G:5, B:6) (R:7, G:8, B:9)\n"
+            + "(R:11, G:12, B:13) (R:14, G:15, B:16) (R:250, G:200, B:100)\n", image.toString());
+  }
+
+  @Test
+  public void testBrighten() {
+    image.brighten(10);
+    assertEquals("3 2\n"
+            + "(R:11, G:12, B:13) (R:14, G:15, B:16) (R:17, G:18, B:19)\n"
+            + "(R:21, G:22, B:23) (R:24, G:25, B:26) (R:255, G:210, B:110)\n", image.toString());
+  }
+
+  @Test
+  public void testDarken() {
+    image.brighten(-5);
+    assertEquals("3 2\n"
+            + "(R:0, G:0, B:0) (R:0, G:0, B:1) (R:2, G:3, B:4)\n"
+            + "(R:6, G:7, B:8) (R:9, G:10, B:11) (R:245, G:195, B:95)\n", image.toString());
+  }
+
+  @Test
+  public void testFlipHorizontal() {
+    image.flipHorizontal();
+    assertEquals("3 2\n"
+            + "(R:7, G:8, B:9) (R:4, G:5, B:6) (R:1, G:2, B:3)\n"
+            + "(R:250, G:200, B:100) (R:14, G:15, B:16) (R:11, G:12, B:13)\n", image.toString());
+  }
+
+  @Test
+  public void testFlipVertical() {
+    image.flipVertical();
+    assertEquals("3 2\n"
+            + "(R:11, G:12, B:13) (R:14, G:15, B:16) (R:250, G:200, B:100)\n"
+            + "(R:1, G:2, B:3) (R:4, G:5, B:6) (R:7, G:8, B:9)\n", image.toString());
+  }
+
+  @Test
+  public void testComponents() {
+    Image red = new PackedImage(pixels);
+    red.component("red");
+    assertEquals(new Pixel(250, 250, 250), red.getPixelAt(2, 1));
+
+    Image luma = new PackedImage(pixels);
+    luma.component("luma");
+    assertEquals(new Pixel(203, 203, 203), luma.getPixelAt(2, 1));
+
+    Image intensity = new PackedImage(pixels);
+    intensity.component("intensity");
+    assertEquals(new Pixel(183, 183, 183), intensity.getPixelAt(2, 1));
+
+    Image value = new PackedImage(pixels);
+    value.component("value");
+    assertEquals(new Pixel(9, 9, 9), value.getPixelAt(2, 0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownComponent() {
+    image.component("purple");
+  }
+
+  @Test
+  public void testSepiaClampsEachChannel() {
+    image.sepia();
+    assertEquals(new Pixel(2, 2, 1), image.getPixelAt(0, 0));
+    assertEquals(new Pixel(255, 241, 187), image.getPixelAt(2, 1));
+  }
+
+  @Test
+  public void testGreyscale() {
+    image.greyscale();
+    assertEquals(new Pixel(2, 2, 2), image.getPixelAt(0, 0));
+    assertEquals(new Pixel(255, 255, 255), image.getPixelAt(2, 1));
+  }
+
+  @Test
+  public void testBlurReadsOriginalNeighbours() {
+    Image single = new PackedImage(3, 3, new int[]{
+        0, 0, 0,
+        0, 0x404040, 0,
+        0, 0, 0});
+    single.blur();
+    assertEquals("3 3\n"
+            + "(R:4, G:4, B:4) (R:8, G:8, B:8) (R:4, G:4, B:4)\n"
+            + "(R:8, G:8, B:8) (R:16, G:16, B:16) (R:8, G:8, B:8)\n"
+            + "(R:4, G:4, B:4) (R:8, G:8, B:8) (R:4, G:4, B:4)\n", single.toString());
+  }
+
+  @Test
+  public void testHistogram() {
+    int[][] h = image.histogram();
+    assertEquals(1, h[0][250]);
+    assertEquals(1, h[1][200]);
+    assertEquals(1, h[2][100]);
+    assertEquals(1, h[3][183]);
+  }
+
+  @Test
+  public void testCopyOnWrite() {
+    Image copy = ImageUtil.cloneImage(image);
+    copy.brighten(10);
+    assertEquals(a, image.getPixelAt(0, 0));
+    assertEquals(new Pixel(11, 12, 13), copy.getPixelAt(0, 0));
+
+    image.flipHorizontal();
+    assertEquals(c, image.getPixelAt(0, 0));
+    assertEquals(new Pixel(11, 12, 13), copy.getPixelAt(0, 0));
+  }
+
+  @Test
+  public void testPackedAccessors() {
+    assertEquals((250 << 16) | (200 << 8) | 100, image.getRGB(2, 1));
+    int[] row = new int[3];
+    image.getRow(0, row);
+    assertArrayEquals(new int[]{0x010203, 0x040506, 0x070809}, row);
+
+    Image copy = ImageUtil.cloneImage(image);
+    copy.setRGB(0, 0, 0x0A0B0C);
+    copy.setRow(1, new int[]{0xFFFFFF, 0, 0x102030});
+    assertEquals(new Pixel(10, 11, 12), copy.getPixelAt(0, 0));
+    assertEquals(new Pixel(16, 32, 48), copy.getPixelAt(2, 1));
+    assertEquals(a, image.getPixelAt(0, 0));
+    assertEquals(f, image.getPixelAt(2, 1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetRowShortArray() {
+    image.getRow(0, new int[2]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetRGBOutside() {
+    image.getRGB(3, 0);
+  }
+}
@@ -0,0 +1,76 @@
+package model;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * This class represents tests for running image operations in parallel stripes.
+ */
+public class ParallelTest {
+  private static final int WIDTH = 37;
+  private static final int HEIGHT = 29;
+
+  private final int threads = Parallel.getThreads();
+
+  @After
+  public void restoreThreads() {
+    Parallel.setThreads(this.threads);
+  }
+
+  @Test
+  public void testStripesCoverEveryItemOnce() {
+    Parallel.setThreads(3);
+    AtomicIntegerArray visits = new AtomicIntegerArray(HEIGHT);
+    Parallel.forEachStripe(HEIGHT, (stripe, from, to) -> {
+      for (int i = from; i < to; i++) {
+        visits.incrementAndGet(i);
+      }
+    });
+    for (int i = 0; i < HEIGHT; i++) {
+      assertEquals(1, visits.get(i));
+    }
+    assertEquals(12, Parallel.stripeCount(HEIGHT));
+    assertEquals(2, Parallel.stripeCount(2));
+  }
+
+  @Test
+  public void testThreadCountDoesNotChangeResults() {
+    Parallel.setThreads(1);
+    Image[] expected = {TestImages.randomImage(WIDTH, HEIGHT),
+        new PlanarImage(TestImages.randomImage(WIDTH, HEIGHT)),
+        TiledImage.compressed(TestImages.randomImage(WIDTH, HEIGHT)),
+        new ImageImpl(TestImages.randomImage(WIDTH, HEIGHT).getPixels())};
+    for (Image image : expected) {
+      image.sepia();
+      image.sharpen();
+      image.blur();
+    }
+    int[][] histogram = TestImages.randomImage(WIDTH, HEIGHT).histogram();
+
+    Parallel.setThreads(4);
+    Image[] actual = {TestImages.randomImage(WIDTH, HEIGHT),
+        new PlanarImage(TestImages.randomImage(WIDTH, HEIGHT)),
+        TiledImage.compressed(TestImages.randomImage(WIDTH, HEIGHT)),
+        new ImageImpl(TestImages.randomImage(WIDTH, HEIGHT).getPixels())};
+    for (int i = 0; i < actual.length; i++) {
+      actual[i].sepia();
+      actual[i].sharpen();
+      actual[i].blur();
+      assertArrayEquals(expected[i].getPixels(), actual[i].getPixels());
+    }
+    int[][] parallel = TestImages.randomImage(WIDTH, HEIGHT).histogram();
+    for (int channel = 0; channel < 4; channel++) {
+      assertArrayEquals(histogram[channel], parallel[channel]);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNoThreads() {
+    Parallel.setThreads(0);
+  }
+}
@@ -0,0 +1,92 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import operations.Blur;
+import operations.Brighten;
+import operations.FlipHorizontal;
+import operations.FlipVertical;
+import operations.Gamma;
+import operations.Greyscale;
+import operations.ImageOperationCommand;
+import operations.Intensity;
+import operations.Invert;
+import operations.RedComponent;
+import operations.Sepia;
+import operations.Sharpen;
+import operations.Value;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * This class represents tests for running operations as a single-pass pipeline.
+ */
+public class PipelineTest {
+  private static final int WIDTH = 29;
+  private static final int HEIGHT = 17;
+
+  /**
+   * Runs the operations one at a time through the model, each storing its result under the
+   * name the next one reads.
+   */
+  private Image stepByStep(Image source, List<ImageOperationCommand> commands) {
+    ProcessingModel model = new ProcessingModelImpl();
+    model.addImage(source, "step");
+    for (ImageOperationCommand command : commands) {
+      command.execute(model);
+    }
+    return model.getImage("step");
+  }
+
+  @Test
+  public void testPipelineMatchesStepByStep() {
+    List<ImageOperationCommand> recipe = Arrays.asList(
+            new Sepia("step", "step"),
+            new FlipHorizontal("step", "step"),
+            new Brighten(30, "step", "step"),
+            new Gamma(1.4, "step", "step"),
+            new FlipVertical("step", "step"),
+            new Blur("step", "step"),
+            new Value("step", "step"),
+            new Invert("step", "step"),
+            new FlipHorizontal("step", "step"),
+            new Sharpen("step", "step"),
+            new Greyscale("step", "step"),
+            new Blur(3, "step", "step"),
+            new Intensity("step", "step"),
+            new RedComponent("step", "step"),
+            new Brighten(-20, "step", "step"));
+    Image[] sources = {TestImages.randomImage(WIDTH, HEIGHT),
+        new PlanarImage(TestImages.randomImage(WIDTH, HEIGHT)),
+        GreyImage.greyscale(TestImages.randomImage(WIDTH, HEIGHT)),
+        TiledImage.compressed(TestImages.randomImage(WIDTH, HEIGHT))};
+    for (Image source : sources) {
+      for (int length = 1; length <= recipe.size(); length++) {
+        List<ImageOperationCommand> commands = recipe.subList(0, length);
+        ProcessingModel model = new ProcessingModelImpl();
+        model.addImage(source, "a");
+        model.apply("a", "b", commands);
+        assertArrayEquals(stepByStep(source, commands).getPixels(),
+                model.getImage("b").getPixels());
+      }
+    }
+  }
+
+  @Test
+  public void testSourceIsUnchanged() {
+    ProcessingModel model = new ProcessingModelImpl();
+    model.addImage(TestImages.randomImage(WIDTH, HEIGHT), "a");
+    model.apply("a", "a2", Arrays.asList(new Sepia("x", "y"), new FlipVertical("y", "z"),
+            new Sharpen("z", "w")));
+    assertArrayEquals(TestImages.randomImage(WIDTH, HEIGHT).getPixels(),
+            model.getImage("a").getPixels());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingImage() {
+    new ProcessingModelImpl().apply("missing", "b", Arrays.asList(new Sepia("a", "b")));
+  }
+}
@@ -0,0 +1,119 @@
+package model;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class represents tests for an image stored as separate channel planes.
+ */
+public class PlanarImageTest {
+  private Pixel[][] pixels = {
+          {new Pixel(1, 2, 3), new Pixel(11, 12, 13), new Pixel(90, 0, 45)},
+          {new Pixel(4, 5, 6), new Pixel(14, 15, 16), new Pixel(128, 64, 32)},
+          {new Pixel(7, 8, 9), new Pixel(250, 200, 100), new Pixel(255, 255, 255)},
+          {new Pixel(60, 70, 80), new Pixel(0, 0, 0), new Pixel(33, 66, 99)}
+  };
+
+  private void assertSameAsPacked(String operation) {
+    Image planar = new PlanarImage(new PackedImage(pixels));
+    Image packed = new PackedImage(pixels);
+    TestImages.apply(planar, operation);
+    TestImages.apply(packed, operation);
+    assertEquals(operation, packed.toString(), planar.toString());
+  }
+
+  @Test
+  public void testConstructor() {
+    Image image = new PlanarImage(new PackedImage(pixels));
+    assertEquals(4, image.getWidth());
+    assertEquals(3, image.getHeight());
+    assertEquals(new Pixel(250, 200, 100), image.getPixelAt(2, 1));
+    assertEquals(new PackedImage(pixels).toString(), image.toString());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructorShortPlane() {
+    new PlanarImage(2, 2, new byte[4], new byte[3], new byte[4]);
+  }
+
+  @Test
+  public void testOperationsMatchPackedImage() {
+    for (String operation : TestImages.OPERATIONS) {
+      assertSameAsPacked(operation);
+    }
+  }
+
+  @Test
+  public void testHistogram() {
+    Image planar = new PlanarImage(new PackedImage(pixels));
+    int[][] expected = new PackedImage(pixels).histogram();
+    int[][] actual = planar.histogram();
+    for (int channel = 0; channel < 4; channel++) {
+      for (int value = 0; value < 256; value++) {
+        assertEquals(expected[channel][value], actual[channel][value]);
+      }
+    }
+  }
+
+  @Test
+  public void testToBufferedImage() {
+    BufferedImage buffered = new PlanarImage(new PackedImage(pixels)).toBufferedImage();
+    assertEquals(4, buffered.getWidth());
+    assertEquals(3, buffered.getHeight());
+    assertEquals((250 << 16) | (200 << 8) | 100, buffered.getRGB(2, 1) & 0xFFFFFF);
+  }
+
+  @Test
+  public void testCopyOnWrite() {
+    Image image = new PlanarImage(new PackedImage(pixels));
+    Image copy = ImageUtil.cloneImage(image);
+    copy.component("blue");
+    assertEquals(new Pixel(250, 200, 100), image.getPixelAt(2, 1));
+    assertEquals(new Pixel(100, 100, 100), copy.getPixelAt(2, 1));
+
+    image.sepia();
+    assertEquals(new Pixel(100, 100, 100), copy.getPixelAt(2, 1));
+  }
+
+  @Test
+  public void testOriginalWritesInPlaceOnceNothingSharesIt() {
+    byte[] red = new byte[4];
+    Image image = new PlanarImage(2, 2, red, new byte[4], new byte[4]);
+    Image copy = ImageUtil.cloneImage(image);
+    copy.brighten(10);
+    image.setRGB(0, 0, 0x400000);
+    assertEquals(0x40, red[0]);
+
+    Image released = ImageUtil.cloneImage(image);
+    BufferPool.release(released);
+    image.setRGB(1, 0, 0x500000);
+    assertEquals(0x50, red[1]);
+    assertEquals(0x0A0A0A, copy.getRGB(0, 0));
+  }
+
+  @Test
+  public void testThreeByteFilesLoadAsPlanes() throws IOException {
+    PackedImage source = TestImages.randomImage(37, 19);
+    BufferedImage bgr = new BufferedImage(37, 19, BufferedImage.TYPE_3BYTE_BGR);
+    for (int y = 0; y < 19; y++) {
+      for (int x = 0; x < 37; x++) {
+        bgr.setRGB(x, y, source.getRGB(x, y));
+      }
+    }
+    File file = File.createTempFile("planar", ".bmp");
+    file.deleteOnExit();
+    ImageIO.write(bgr, "bmp", file);
+
+    Image loaded = ImageUtil.load(file.getPath());
+    assertTrue(loaded instanceof PlanarImage);
+    assertArrayEquals(source.getPixels(), loaded.getPixels());
+  }
+}
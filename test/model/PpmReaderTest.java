@@ -0,0 +1,116 @@
+package model;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * This class represents tests for reading PPM files.
+ */
+public class PpmReaderTest {
+
+  private String write(String contents) throws IOException {
+    File file = File.createTempFile("reader", ".ppm");
+    file.deleteOnExit();
+    Files.write(file.toPath(), contents.getBytes(StandardCharsets.US_ASCII));
+    return file.getPath();
+  }
+
+  @Test
+  public void testCommentsAnywhere() throws IOException {
+    Image image = ImageUtil.readPPM(write("P3# right after the format\n"
+            + "# on its own line\n2 #between width and height\n1\n255#after max\n"
+            + "1 2 3\n# between pixels\n\t250\r\n251 252#at the end"));
+    assertEquals(2, image.getWidth());
+    assertEquals(1, image.getHeight());
+    assertEquals(0x010203, image.getRGB(0, 0));
+    assertEquals(0xFAFBFC, image.getRGB(1, 0));
+  }
+
+  @Test
+  public void testSamplesAreScaledToTheMaximum() throws IOException {
+    Image image = ImageUtil.readPPM(write("P3 1 1 1000 0 500 1000"));
+    assertEquals(0x0080FF, image.getRGB(0, 0));
+  }
+
+  @Test
+  public void testWrittenImageReadsBack() throws IOException {
+    int[] data = TestImages.randomPixels(31 * 17);
+    File file = File.createTempFile("reader", ".ppm");
+    file.deleteOnExit();
+    ImageUtil.writePPM(file.getPath(), new PackedImage(31, 17, data));
+    Image loaded = ImageUtil.readPPM(file.getPath());
+    int[] row = new int[31];
+    for (int y = 0; y < 17; y++) {
+      loaded.getRow(y, row);
+      assertArrayEquals(Arrays.copyOfRange(data, y * 31, y * 31 + 31), row);
+    }
+  }
+
+  @Test
+  public void testBinaryFormatsReadBack() throws IOException {
+    int[] data = TestImages.randomPixels(301 * 7);
+    for (PpmFormat format : PpmFormat.values()) {
+      File file = File.createTempFile("reader", ".ppm");
+      file.deleteOnExit();
+      ImageUtil.writePPM(file.getPath(), new PackedImage(301, 7, data), format);
+      Image loaded = ImageUtil.load(file.getPath());
+      int[] row = new int[301];
+      for (int y = 0; y < 7; y++) {
+        loaded.getRow(y, row);
+        assertArrayEquals(Arrays.copyOfRange(data, y * 301, y * 301 + 301), row);
+      }
+    }
+  }
+
+  @Test
+  public void testBinaryHeaderAndSamples() throws IOException {
+    File file = File.createTempFile("reader", ".ppm");
+    file.deleteOnExit();
+    byte[] header = "P6 # binary\n2 1\n1000\n".getBytes(StandardCharsets.US_ASCII);
+    byte[] samples = {0, 0, 1, (byte) 0xF4, 3, (byte) 0xE8, 3, (byte) 0xE8, 0, 0, 0, 4};
+    byte[] contents = Arrays.copyOf(header, header.length + samples.length);
+    System.arraycopy(samples, 0, contents, header.length, samples.length);
+    Files.write(file.toPath(), contents);
+    Image image = ImageUtil.readPPM(file.getPath());
+    assertEquals(0x0080FF, image.getRGB(0, 0));
+    assertEquals(0xFF0001, image.getRGB(1, 0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBinaryTooShort() throws IOException {
+    ImageUtil.readPPM(write("P6 2 2 255\nabcdefghi"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingFile() {
+    ImageUtil.readPPM("no such file.ppm");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWrongFormat() throws IOException {
+    ImageUtil.readPPM(write("P2 1 1 255 0"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTooFewSamples() throws IOException {
+    ImageUtil.readPPM(write("P3 2 1 255 1 2 3 4 5"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSampleAboveMaximum() throws IOException {
+    ImageUtil.readPPM(write("P3 1 1 100 1 2 101"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNotANumber() throws IOException {
+    ImageUtil.readPPM(write("P3 1 1 255 1 2x 3"));
+  }
+}
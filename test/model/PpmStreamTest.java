@@ -0,0 +1,156 @@
+package model;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class represents tests for saving images streamed a row at a time from the file they
+ * are made from.
+ */
+public class PpmStreamTest {
+  private static final int WIDTH = 29;
+  private static final int HEIGHT = 13;
+
+  private String tempFile() throws IOException {
+    File file = File.createTempFile("stream", ".ppm");
+    file.deleteOnExit();
+    return file.getPath();
+  }
+
+  /**
+   * Writes random pixels as a PPM file in the given format, returning its path.
+   */
+  private String sourceFile(PpmFormat format) throws IOException {
+    String path = tempFile();
+    ImageUtil.writePPM(path, TestImages.randomImage(WIDTH, HEIGHT), format);
+    return path;
+  }
+
+  /**
+   * Runs a chain of per-pixel operations from "a" to "e".
+   */
+  private void chain(ProcessingModel model, boolean flipVertically) {
+    model.flipHorizontal("a", "b");
+    if (flipVertically) {
+      model.flipVertical("b", "b");
+    }
+    model.brighten(-30, "b", "c");
+    model.sepia("c", "d");
+    model.levels(10, 120, 240, "d", "d");
+    model.luma("d", "e");
+  }
+
+  /**
+   * Returns the bytes of the file the image of "e" is written to after being made.
+   */
+  private byte[] madeAndWritten(String source, boolean flipVertically, PpmFormat format)
+          throws IOException {
+    ProcessingModel model = new ProcessingModelImpl();
+    model.load(source, "a");
+    chain(model, flipVertically);
+    String path = tempFile();
+    ImageUtil.writePPM(path, model.getImage("e"), format);
+    return Files.readAllBytes(new File(path).toPath());
+  }
+
+  private void assertStreamed(PpmFormat from, boolean flipVertically, PpmFormat to)
+          throws IOException {
+    String source = sourceFile(from);
+    ProcessingModelImpl model = new ProcessingModelImpl();
+    model.load(source, "a");
+    chain(model, flipVertically);
+    String path = tempFile();
+    model.save(path, "e", to);
+
+    assertEquals(from == PpmFormat.PLAIN, model.images.get("a").isMade());
+    assertFalse(model.images.get("e").isMade());
+    assertArrayEquals(madeAndWritten(source, flipVertically, to),
+            Files.readAllBytes(new File(path).toPath()));
+  }
+
+  @Test
+  public void testPlainFileIsStreamed() throws IOException {
+    assertStreamed(PpmFormat.PLAIN, false, PpmFormat.PLAIN);
+    assertStreamed(PpmFormat.PLAIN, false, PpmFormat.BINARY);
+  }
+
+  @Test
+  public void testBinaryFileIsStreamedInAnyDirection() throws IOException {
+    assertStreamed(PpmFormat.BINARY, true, PpmFormat.BINARY);
+    assertStreamed(PpmFormat.BINARY, true, PpmFormat.PLAIN);
+    assertStreamed(PpmFormat.BINARY_16, true, PpmFormat.BINARY_16);
+  }
+
+  @Test
+  public void testPlainFileFlippedVerticallyIsStreamedFromItsImage() throws IOException {
+    String source = sourceFile(PpmFormat.PLAIN);
+    ProcessingModelImpl model = new ProcessingModelImpl();
+    model.load(source, "a");
+    chain(model, true);
+    String path = tempFile();
+    model.save(path, "e", PpmFormat.BINARY);
+
+    assertTrue(model.images.get("a").isMade());
+    assertFalse(model.images.get("e").isMade());
+    assertArrayEquals(madeAndWritten(source, true, PpmFormat.BINARY),
+            Files.readAllBytes(new File(path).toPath()));
+  }
+
+  @Test
+  public void testChainWithBlurIsMadeToSave() throws IOException {
+    ProcessingModelImpl model = new ProcessingModelImpl();
+    model.load(sourceFile(PpmFormat.BINARY), "a");
+    model.blur("a", "b");
+    model.sepia("b", "c");
+    model.save(tempFile(), "c");
+    assertTrue(model.images.get("c").isMade());
+  }
+
+  @Test
+  public void testMadeImageIsStreamed() throws IOException {
+    String source = sourceFile(PpmFormat.PLAIN);
+    ProcessingModelImpl model = new ProcessingModelImpl();
+    model.load(source, "a");
+    model.getImage("a");
+    chain(model, true);
+    String path = tempFile();
+    model.save(path, "e");
+
+    assertFalse(model.images.get("e").isMade());
+    assertArrayEquals(madeAndWritten(source, true, PpmFormat.PLAIN),
+            Files.readAllBytes(new File(path).toPath()));
+  }
+
+  @Test
+  public void testScriptParsesPlainFileOnce() throws IOException {
+    String source = sourceFile(PpmFormat.PLAIN);
+    ProcessingModelImpl model = new ProcessingModelImpl();
+    model.load(source, "ny");
+    model.redComponent("ny", "nyRED");
+    model.save(tempFile(), "nyRED");
+    assertTrue(model.images.get("ny").isMade());
+    Image parsed = model.images.get("ny").image();
+    model.flipHorizontal("ny", "nyHORIZONTAL");
+    model.save(tempFile(), "nyHORIZONTAL");
+    model.brighten(10, "ny", "nyBRIGHT");
+    model.save(source, "nyBRIGHT");
+    model.sepia("ny", "nySEPIA");
+    String sepia = tempFile();
+    model.save(sepia, "nySEPIA");
+    assertSame(parsed, model.images.get("ny").image());
+    assertFalse(model.images.get("nySEPIA").isMade());
+
+    Image expected = ImageUtil.load(sourceFile(PpmFormat.PLAIN));
+    expected.sepia();
+    assertArrayEquals(expected.getPixels(), ImageUtil.load(sepia).getPixels());
+  }
+}
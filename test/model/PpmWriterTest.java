@@ -0,0 +1,69 @@
+package model;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * This class represents tests for writing PPM files.
+ */
+public class PpmWriterTest {
+
+  private byte[] written(Image image, PpmFormat format) throws IOException {
+    File file = File.createTempFile("writer", ".ppm");
+    file.deleteOnExit();
+    ImageUtil.writePPM(file.getPath(), image, format);
+    return Files.readAllBytes(file.toPath());
+  }
+
+  @Test
+  public void testPlainFile() throws IOException {
+    Image image = new PackedImage(2, 1, new int[]{0x000A63, 0xFF0964});
+    assertEquals("P3\n# Created by CS3500 students Julia Ouritskaya and Evelyn Robert\n"
+                    + "2 1\n255\n0\n10\n99\n255\n9\n100\n",
+            new String(written(image, PpmFormat.PLAIN), StandardCharsets.US_ASCII));
+  }
+
+  @Test
+  public void testBinaryFiles() throws IOException {
+    Image image = new PackedImage(2, 1, new int[]{0x000A63, 0xFF0964});
+    byte[] header = "P6\n2 1\n255\n".getBytes(StandardCharsets.US_ASCII);
+    byte[] expected = new byte[header.length + 6];
+    System.arraycopy(header, 0, expected, 0, header.length);
+    System.arraycopy(new byte[]{0, 10, 99, (byte) 255, 9, 100}, 0, expected, header.length, 6);
+    assertArrayEquals(expected, written(image, PpmFormat.BINARY));
+
+    byte[] wide = written(image, PpmFormat.BINARY_16);
+    int start = "P6\n2 1\n65535\n".length();
+    assertEquals(start + 12, wide.length);
+    assertEquals((byte) 255, wide[start + 6]);
+    assertEquals((byte) 255, wide[start + 7]);
+    assertEquals(10, wide[start + 2]);
+    assertEquals(10, wide[start + 3]);
+  }
+
+  @Test
+  public void testRowsLongerThanTheBufferReadBack() throws IOException {
+    int width = 100000;
+    int[] data = new int[width * 2];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (i * 0x9E3779) & 0xFFFFFF;
+    }
+    for (PpmFormat format : PpmFormat.values()) {
+      File file = File.createTempFile("writer", ".ppm");
+      file.deleteOnExit();
+      ImageUtil.writePPM(file.getPath(), new PackedImage(width, 2, data), format);
+      Image loaded = ImageUtil.readPPM(file.getPath());
+      int[] row = new int[width];
+      loaded.getRow(1, row);
+      assertArrayEquals(Arrays.copyOfRange(data, width, 2 * width), row);
+    }
+  }
+}
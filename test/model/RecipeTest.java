@@ -0,0 +1,108 @@
+package model;
+
+import org.junit.Test;
+
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class represents tests for images stored as recipes that are made when used.
+ */
+public class RecipeTest {
+  private static final int WIDTH = 23;
+  private static final int HEIGHT = 11;
+
+  private int made;
+
+  /**
+   * Returns an operation that brightens a copy of its source and counts how often it runs.
+   */
+  private Recipe.Operation counted() {
+    return (image, fixed) -> {
+      this.made++;
+      Image copy = ImageUtil.cloneImage(image);
+      copy.brighten(1);
+      return copy;
+    };
+  }
+
+  @Test
+  public void testNothingIsMadeUntilUsed() {
+    Recipe source = Recipe.of(TestImages.randomImage(WIDTH, HEIGHT));
+    Recipe middle = source.then(counted());
+    Recipe last = middle.then(counted());
+    assertEquals(0, this.made);
+    assertFalse(last.isMade());
+
+    last.image();
+    assertEquals(2, this.made);
+    assertTrue(middle.isMade());
+    last.image();
+    assertEquals(2, this.made);
+  }
+
+  @Test
+  public void testSharedPrefixIsMadeOnce() {
+    Recipe shared = Recipe.of(TestImages.randomImage(WIDTH, HEIGHT)).then(counted());
+    shared.bind();
+    Recipe left = shared.then(counted());
+    Recipe right = shared.then(counted());
+    left.image();
+    right.image();
+    assertEquals(3, this.made);
+    assertArrayEquals(left.image().getPixels(), right.image().getPixels());
+  }
+
+  @Test
+  public void testLongChainIsMadeWithoutNesting() {
+    Recipe recipe = Recipe.of(new PackedImage(1, 1));
+    for (int i = 0; i < 100000; i++) {
+      recipe = recipe.then(counted());
+    }
+    assertEquals(255, recipe.image().getRGB(0, 0) & 0xFF);
+  }
+
+  @Test
+  public void testUnusedIntermediatesAreNeverMade() {
+    ProcessingModelImpl model = new ProcessingModelImpl();
+    model.addImage(TestImages.randomImage(WIDTH, HEIGHT), "a");
+    model.blur("a", "b");
+    model.sharpen("b", "b");
+    model.sepia("a", "c");
+    assertFalse(model.images.get("b").isMade());
+    assertFalse(model.images.get("c").isMade());
+
+    model.getImage("c");
+    assertFalse(model.images.get("b").isMade());
+    assertTrue(model.images.get("c").isMade());
+  }
+
+  @Test
+  public void testRecipesKeepTheirSourceWhenItsNameIsReused() {
+    ProcessingModelImpl model = new ProcessingModelImpl();
+    model.addImage(TestImages.randomImage(WIDTH, HEIGHT), "a");
+    model.sepia("a", "b");
+    model.addImage(new PackedImage(WIDTH, HEIGHT), "a");
+    model.brighten(10, "b", "b");
+
+    Image expected = TestImages.randomImage(WIDTH, HEIGHT);
+    expected.sepia();
+    expected.brighten(10);
+    assertArrayEquals(expected.getPixels(), model.getImage("b").getPixels());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingSourceFailsStraightAway() {
+    new ProcessingModelImpl().sepia("missing", "b");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBadArgumentFailsStraightAway() {
+    ProcessingModelImpl model = new ProcessingModelImpl();
+    model.addImage(TestImages.randomImage(WIDTH, HEIGHT), "a");
+    model.gamma(-1, "a", "b");
+  }
+}
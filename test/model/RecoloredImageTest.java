@@ -0,0 +1,120 @@
+package model;
+
+import org.junit.After;
+import org.junit.Test;
+
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class represents tests for images with a chain of colour operations waiting.
+ */
+public class RecoloredImageTest {
+  private static final int WIDTH = 41;
+  private static final int HEIGHT = 23;
+
+  @After
+  public void useDoubles() {
+    FixedPoint.setEnabled(false);
+  }
+
+  /**
+   * Applies each step of a chain to the image in turn.
+   */
+  private void applyInTurn(Image image, String[] chain) {
+    for (String step : chain) {
+      switch (step) {
+        case "sepia":
+          image.sepia();
+          break;
+        case "greyscale":
+          image.greyscale();
+          break;
+        case "brighten":
+          image.brighten(40);
+          break;
+        case "darken":
+          image.brighten(-70);
+          break;
+        default:
+          image.component(step);
+      }
+    }
+  }
+
+  /**
+   * Builds the chain as a recoloured image over the given image.
+   */
+  private Image recolor(Image image, String[] chain) {
+    Image result = RecoloredImage.recolor(image, ChannelTable.brighten(0), false);
+    applyInTurn(result, chain);
+    return result;
+  }
+
+  @Test
+  public void testChainsMatchStepByStep() {
+    String[][] chains = {
+        {"sepia", "sepia", "brighten", "sepia", "darken"},
+        {"brighten", "greyscale", "sepia", "darken", "red"},
+        {"sepia", "luma", "brighten", "sepia", "blue"},
+        {"green", "sepia"},
+        {"darken", "brighten", "value", "sepia"},
+        {"sepia", "intensity", "darken"}
+    };
+    for (boolean fixed : new boolean[]{false, true}) {
+      FixedPoint.setEnabled(fixed);
+      for (String[] chain : chains) {
+        Image[] sources = {TestImages.randomImage(WIDTH, HEIGHT),
+            new PlanarImage(TestImages.randomImage(WIDTH, HEIGHT)),
+            GreyImage.greyscale(TestImages.randomImage(WIDTH, HEIGHT))};
+        for (Image source : sources) {
+          Image expected = ImageUtil.cloneImage(source);
+          applyInTurn(expected, chain);
+          Image actual = recolor(source, chain);
+          assertTrue(RecoloredImage.isPending(actual));
+          assertArrayEquals(String.join(" ", chain), expected.getPixels(),
+                  actual.getPixels());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testSourceAndCopiesAreIndependent() {
+    PackedImage source = TestImages.randomImage(WIDTH, HEIGHT);
+    Image first = RecoloredImage.recolor(source, ColorMatrix.SEPIA, false);
+    Image second = RecoloredImage.recolor(first, ColorMatrix.GREYSCALE, false);
+    Image copy = ImageUtil.cloneImage(second);
+    second.brighten(30);
+
+    Image sepia = TestImages.randomImage(WIDTH, HEIGHT);
+    sepia.sepia();
+    Image grey = TestImages.randomImage(WIDTH, HEIGHT);
+    grey.sepia();
+    grey.greyscale();
+    assertArrayEquals(TestImages.randomImage(WIDTH, HEIGHT).getPixels(), source.getPixels());
+    assertArrayEquals(sepia.getPixels(), first.getPixels());
+    assertArrayEquals(grey.getPixels(), copy.getPixels());
+    grey.brighten(30);
+    assertArrayEquals(grey.getPixels(), second.getPixels());
+  }
+
+  @Test
+  public void testModelChainsColourOperations() {
+    ProcessingModel model = new ProcessingModelImpl();
+    model.addImage(TestImages.randomImage(WIDTH, HEIGHT), "a");
+    model.sepia("a", "b");
+    model.brighten(25, "b", "c");
+    model.greyscale("c", "d");
+    model.redComponent("d", "e");
+    model.sepia("e", "f");
+    assertTrue(RecoloredImage.isPending(model.getImage("f")));
+
+    Image expected = TestImages.randomImage(WIDTH, HEIGHT);
+    applyInTurn(expected, new String[]{"sepia"});
+    expected.brighten(25);
+    applyInTurn(expected, new String[]{"greyscale", "red", "sepia"});
+    assertArrayEquals(expected.getPixels(), model.getImage("f").getPixels());
+  }
+}
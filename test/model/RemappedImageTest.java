@@ -0,0 +1,117 @@
+package model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * This class represents tests for mirrored, transposed and cropped views of an image.
+ */
+public class RemappedImageTest {
+  private Pixel a = new Pixel(1, 2, 3);
+  private Pixel b = new Pixel(4, 5, 6);
+  private Pixel c = new Pixel(7, 8, 9);
+  private Pixel d = new Pixel(11, 12, 13);
+  private Pixel e = new Pixel(14, 15, 16);
+  private Pixel f = new Pixel(250, 200, 100);
+
+  // indexed by x and then y: the top row is a b c, the bottom row is d e f
+  private Pixel[][] pixels = {
+          {a, d},
+          {b, e},
+          {c, f}
+  };
+
+  @Test
+  public void testFlipsMatchPackedImage() {
+    Image packed = new PackedImage(pixels);
+    packed.flipHorizontal();
+    assertArrayEquals(packed.getPixels(),
+            RemappedImage.flipHorizontal(new PackedImage(pixels)).getPixels());
+
+    packed = new PackedImage(pixels);
+    packed.flipVertical();
+    assertArrayEquals(packed.getPixels(),
+            RemappedImage.flipVertical(new PackedImage(pixels)).getPixels());
+  }
+
+  @Test
+  public void testTransposeAndCrop() {
+    Image transposed = RemappedImage.transpose(new PackedImage(pixels));
+    assertEquals(2, transposed.getWidth());
+    assertEquals(3, transposed.getHeight());
+    assertEquals(f, transposed.getPixelAt(1, 2));
+    assertEquals(d, transposed.getPixelAt(1, 0));
+
+    Image cropped = RemappedImage.crop(new PackedImage(pixels), 1, 0, 2, 2);
+    Pixel[][] expected = {{b, e}, {c, f}};
+    assertArrayEquals(expected, cropped.getPixels());
+  }
+
+  @Test
+  public void testChainedViews() {
+    Image view = RemappedImage.flipHorizontal(new PackedImage(pixels));
+    view = RemappedImage.flipVertical(view);
+    view.flipHorizontal();
+    // mirrored twice left to right and once top to bottom
+    Pixel[][] expected = {{d, a}, {e, b}, {f, c}};
+    assertArrayEquals(expected, view.getPixels());
+
+    Image cropped = RemappedImage.crop(RemappedImage.transpose(view), 0, 1, 2, 2);
+    assertEquals(e, cropped.getPixelAt(0, 0));
+    assertEquals(c, cropped.getPixelAt(1, 1));
+  }
+
+  @Test
+  public void testViewIgnoresLaterChangesToSource() {
+    Image source = new PackedImage(pixels);
+    Image view = RemappedImage.flipHorizontal(source);
+    source.brighten(10);
+    assertEquals(c, view.getPixelAt(0, 0));
+  }
+
+  @Test
+  public void testOperationMaterializes() {
+    Image view = RemappedImage.flipHorizontal(new PackedImage(pixels));
+    Image copy = ImageUtil.cloneImage(view);
+    view.component("red");
+    view.flipVertical();
+    assertEquals(new Pixel(250, 250, 250), view.getPixelAt(0, 0));
+    assertEquals(new Pixel(7, 7, 7), view.getPixelAt(0, 1));
+    assertEquals(c, copy.getPixelAt(0, 0));
+  }
+
+  @Test
+  public void testHistogram() {
+    int[][] expected = new PackedImage(pixels).histogram();
+    int[][] actual = RemappedImage.transpose(new PackedImage(pixels)).histogram();
+    for (int channel = 0; channel < 4; channel++) {
+      assertArrayEquals(expected[channel], actual[channel]);
+    }
+    int[][] cropped = RemappedImage.crop(new PackedImage(pixels), 2, 1, 1, 1).histogram();
+    assertEquals(1, cropped[0][250]);
+    assertEquals(1, cropped[3][183]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCropOutsideImage() {
+    RemappedImage.crop(new PackedImage(pixels), 2, 0, 2, 2);
+  }
+
+  @Test
+  public void testEditedViewStopsSharingItsSource() {
+    // a size that no other test uses, so the pool holds only this test's arrays
+    int width = 211;
+    int height = 67;
+    PackedImage source = new PackedImage(width, height);
+    source.setRGB(0, 0, 0x123456);
+    Image view = RemappedImage.flipHorizontal(source);
+    view.brighten(1);
+    BufferPool.release(view);
+
+    // the source is the only owner of its data again, so releasing it hands the data back
+    BufferPool.release(source);
+    assertEquals(0x123456, BufferPool.take(width * height, false)[0]);
+  }
+}
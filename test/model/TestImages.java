@@ -0,0 +1,74 @@
+package model;
+
+import java.util.Random;
+
+/**
+ * This class builds the images the model tests share: random pixels from a fixed seed, so
+ * every run sees the same images, and the named operations the image tests compare across
+ * image types.
+ */
+final class TestImages {
+  /**
+   * The operations {@link #apply(Image, String)} knows, one per operation of an image.
+   */
+  static final String[] OPERATIONS = {"horizontal-flip", "vertical-flip", "brighten", "darken",
+      "sepia", "greyscale", "blur", "sharpen", "red", "green", "blue", "luma", "intensity",
+      "value"};
+
+  private TestImages() {
+  }
+
+  /**
+   * Returns the given number of random packed 0xRRGGBB pixels, the same on every call.
+   */
+  static int[] randomPixels(int count) {
+    Random random = new Random(3500);
+    int[] data = new int[count];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = random.nextInt(0x1000000);
+    }
+    return data;
+  }
+
+  /**
+   * Returns a packed image of the given size holding {@link #randomPixels(int)}.
+   */
+  static PackedImage randomImage(int width, int height) {
+    return new PackedImage(width, height, randomPixels(width * height));
+  }
+
+  /**
+   * Runs the named operation on the image: a flip, brighten or darken, a filter, or a
+   * component.
+   */
+  static void apply(Image image, String operation) {
+    switch (operation) {
+      case "horizontal-flip":
+        image.flipHorizontal();
+        break;
+      case "vertical-flip":
+        image.flipVertical();
+        break;
+      case "brighten":
+        image.brighten(60);
+        break;
+      case "darken":
+        image.brighten(-40);
+        break;
+      case "sepia":
+        image.sepia();
+        break;
+      case "greyscale":
+        image.greyscale();
+        break;
+      case "blur":
+        image.blur();
+        break;
+      case "sharpen":
+        image.sharpen();
+        break;
+      default:
+        image.component(operation);
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * This class represents tests for an image split into lazily loaded tiles.
+ */
+public class TiledImageTest {
+  private static final int WIDTH = 11;
+  private static final int HEIGHT = 7;
+
+  @Test
+  public void testTilesLoadOnlyWhenTouched() {
+    TiledImage image = new TiledImage(TestImages.randomImage(WIDTH, HEIGHT), 4);
+    assertEquals(0, image.getLoadedTileCount());
+    assertEquals(TestImages.randomImage(WIDTH, HEIGHT).getPixelAt(9, 5), image.getPixelAt(9, 5));
+    assertEquals(1, image.getLoadedTileCount());
+
+    int[] region = new int[3 * 2];
+    image.getRegion(3, 0, 3, 2, region, 0);
+    assertEquals(3, image.getLoadedTileCount());
+  }
+
+  @Test
+  public void testGetRegion() {
+    PackedImage packed = TestImages.randomImage(WIDTH, HEIGHT);
+    TiledImage image = new TiledImage(packed, 4);
+    int[] region = new int[WIDTH * HEIGHT];
+    image.getRegion(0, 0, WIDTH, HEIGHT, region, 0);
+    assertArrayEquals(packed.getPixels(), new PackedImage(WIDTH, HEIGHT, region).getPixels());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetRegionOutside() {
+    new TiledImage(WIDTH, HEIGHT).getRegion(8, 0, 4, 1, new int[4], 0);
+  }
+
+  @Test
+  public void testOperationsMatchPackedImage() {
+    for (String operation : TestImages.OPERATIONS) {
+      Image tiled = new TiledImage(TestImages.randomImage(WIDTH, HEIGHT), 4);
+      Image packed = TestImages.randomImage(WIDTH, HEIGHT);
+      TestImages.apply(tiled, operation);
+      TestImages.apply(packed, operation);
+      assertEquals(operation, packed.toString(), new PackedImage(tiled.getPixels()).toString());
+    }
+  }
+
+  @Test
+  public void testHistogram() {
+    int[][] expected = TestImages.randomImage(WIDTH, HEIGHT).histogram();
+    int[][] actual = new TiledImage(TestImages.randomImage(WIDTH, HEIGHT), 4).histogram();
+    for (int channel = 0; channel < 4; channel++) {
+      assertArrayEquals(expected[channel], actual[channel]);
+    }
+  }
+
+  @Test
+  public void testCopyOnWrite() {
+    TiledImage image = new TiledImage(TestImages.randomImage(WIDTH, HEIGHT), 4);
+    Pixel before = image.getPixelAt(0, 0);
+    Image copy = ImageUtil.cloneImage(image);
+    copy.brighten(255);
+    assertEquals(new Pixel(255, 255, 255), copy.getPixelAt(0, 0));
+    assertEquals(before, image.getPixelAt(0, 0));
+
+    image.brighten(-255);
+    assertEquals(new Pixel(0, 0, 0), image.getPixelAt(0, 0));
+    assertEquals(new Pixel(255, 255, 255), copy.getPixelAt(0, 0));
+  }
+
+  @Test
+  public void testRowsAcrossTiles() {
+    PackedImage packed = TestImages.randomImage(WIDTH, HEIGHT);
+    TiledImage tiled = new TiledImage(packed, 4);
+    int[] expected = new int[WIDTH];
+    int[] actual = new int[WIDTH];
+    for (int y = 0; y < HEIGHT; y++) {
+      packed.getRow(y, expected);
+      tiled.getRow(y, actual);
+      assertArrayEquals(expected, actual);
+    }
+
+    TiledImage written = new TiledImage(WIDTH, HEIGHT);
+    for (int y = 0; y < HEIGHT; y++) {
+      packed.getRow(y, expected);
+      written.setRow(y, expected);
+    }
+    written.setRGB(10, 6, 0x123456);
+    packed.setRGB(10, 6, 0x123456);
+    assertArrayEquals(packed.getPixels(), written.getPixels());
+  }
+
+  @Test
+  public void testUniformTiles() {
+    // a white 10x10 page with one dark mark in the top-left 4x4 tile
+    int[] data = new int[100];
+    Arrays.fill(data, 0xFFFFFF);
+    data[11] = 0x202020;
+    PackedImage packed = new PackedImage(10, 10, data);
+    TiledImage tiled = TiledImage.compressed(packed);
+    assertEquals(1, tiled.getLoadedTileCount());
+    assertEquals(0, tiled.getUniformTileCount());
+
+    TiledImage small = new TiledImage(packed, 4);
+    small.getRegion(0, 0, 10, 10, new int[100], 0);
+    assertEquals(8, small.getUniformTileCount());
+
+    small.sepia();
+    packed.sepia();
+    assertEquals(8, small.getUniformTileCount());
+    assertArrayEquals(packed.getPixels(), small.getPixels());
+    int[][] expected = packed.histogram();
+    int[][] actual = small.histogram();
+    for (int channel = 0; channel < 4; channel++) {
+      assertArrayEquals(expected[channel], actual[channel]);
+    }
+
+    small.setRGB(9, 9, 0);
+    assertEquals(7, small.getUniformTileCount());
+    assertEquals(0, small.getRGB(9, 9));
+    assertEquals(packed.getRGB(8, 9), small.getRGB(8, 9));
+    small.setRGB(9, 9, packed.getRGB(9, 9));
+    small.compact();
+    assertEquals(8, small.getUniformTileCount());
+  }
+
+  @Test
+  public void testBlankImageIsUniform() {
+    TiledImage blank = new TiledImage(600, 600);
+    blank.brighten(30);
+    assertEquals(9, blank.getUniformTileCount());
+    assertEquals(new Pixel(30, 30, 30), blank.getPixelAt(599, 599));
+    assertEquals(360000, blank.histogram()[0][30]);
+  }
+
+  @Test
+  public void testMostlyUniformImagesLoadTiled() {
+    int[] data = new int[600 * 300];
+    Arrays.fill(data, 0xFFFFFF);
+    data[0] = 0;
+    Image page = ImageUtil.compressIfUniform(new PackedImage(600, 300, data));
+    assertTrue(page instanceof TiledImage);
+    assertEquals(5, ((TiledImage) page).getUniformTileCount());
+    assertEquals(0, page.getRGB(0, 0));
+    assertTrue(ImageUtil.compressIfUniform(TestImages.randomImage(WIDTH, HEIGHT))
+            instanceof PackedImage);
+  }
+}